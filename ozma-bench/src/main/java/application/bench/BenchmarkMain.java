@@ -0,0 +1,39 @@
+package application.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result comes with its
+ * allocation rate, and writes the results as JSON for comparing against a
+ * baseline run.
+ *
+ * Takes the usual JMH options, for example a benchmark pattern and
+ * -p bodies=1000 to pick scenes. Without -rf and -rff results go to
+ * jmh-result.json.
+ */
+public class BenchmarkMain {
+
+	private static final String DEFAULT_RESULT = "jmh-result.json";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class);
+
+		if (!cmd.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+
+		if (!cmd.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT);
+		}
+
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,76 @@
+package application.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.BodyStore;
+import application.physics.broadphase.Broadphase;
+import application.physics.broadphase.BruteForceBroadphase;
+import application.physics.broadphase.DynamicTreeBroadphase;
+import application.physics.broadphase.PairBuffer;
+import application.physics.broadphase.SpatialHashBroadphase;
+import application.physics.broadphase.SweepAndPruneBroadphase;
+
+/**
+ * Finding the potential collisions of a scene that doesn't move, so
+ * broadphases that keep state between updates only pay for what changed.
+ * The brute force broadphase is left out by default, at the larger scenes it
+ * takes minutes per invocation; pass -p broadphase=brute to include it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class BroadphaseBenchmark {
+
+	@Param({ "hash", "sap", "tree" })
+	public String broadphase;
+
+	private BodyStore bodies;
+	private PairBuffer pairs;
+	private Broadphase phase;
+
+	@Setup
+	public void setup(SceneState scene) {
+		List<BasicPhysicsEntity> entities = scene.build();
+		bodies = new BodyStore();
+		bodies.sync(entities);
+		pairs = new PairBuffer();
+		phase = create(broadphase);
+	}
+
+	@Benchmark
+	public int findPotentialCollisions() {
+		pairs.clear();
+		phase.findPotentialCollisions(bodies, pairs);
+		return pairs.size();
+	}
+
+	/**
+	 * @param name
+	 * @return a new broadphase of the named kind
+	 */
+	static Broadphase create(String name) {
+		switch (name) {
+		case "hash":
+			return new SpatialHashBroadphase();
+		case "sap":
+			return new SweepAndPruneBroadphase();
+		case "tree":
+			return new DynamicTreeBroadphase();
+		case "brute":
+			return new BruteForceBroadphase();
+		default:
+			throw new IllegalArgumentException("unknown broadphase " + name);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package application.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.BodyStore;
+import application.physics.CollisionManifold;
+import application.physics.PhysicsEngine;
+import application.physics.broadphase.PairBuffer;
+import application.physics.broadphase.SpatialHashBroadphase;
+import application.physics.narrowphase.ManifoldPool;
+import application.physics.narrowphase.Narrowphase;
+
+/**
+ * Building the manifolds of every touching pair of a scene, and running the
+ * contact solver over them the way an update does.
+ *
+ * Solving moves the bodies and fills the contact cache, so every invocation
+ * first puts the bodies back where the scene had them and clears the cache.
+ * Each one then solves the same overlapping scene from cold, however long the
+ * iteration. Putting them back is a copy of six floats a body, small next to
+ * the solve.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ContactBenchmark {
+
+	private PhysicsEngine engine;
+	private BodyStore bodies;
+	private PairBuffer pairs;
+	private Narrowphase narrowphase;
+	private ManifoldPool pool;
+	private List<CollisionManifold> contacts;
+
+	// the bodies as the scene was built
+	private float[] posX;
+	private float[] posY;
+	private float[] velX;
+	private float[] velY;
+	private float[] angle;
+	private float[] angularVel;
+
+	@Setup(Level.Iteration)
+	public void setup(SceneState scene) {
+		List<BasicPhysicsEntity> entities = scene.build();
+		engine = new PhysicsEngine(entities);
+		bodies = engine.getBodies();
+		bodies.sync(entities);
+
+		pairs = new PairBuffer();
+		new SpatialHashBroadphase().findPotentialCollisions(bodies, pairs);
+		pairs.sort(bodies.size());
+
+		narrowphase = engine.getNarrowphase();
+		pool = new ManifoldPool();
+		ManifoldPool contactPool = new ManifoldPool();
+		manifolds(contactPool);
+		contacts = new ArrayList<>(contactPool.size());
+		for (int i = 0; i < contactPool.size(); i++) {
+			contacts.add(contactPool.get(i));
+		}
+
+		int n = bodies.size();
+		posX = new float[n];
+		posY = new float[n];
+		velX = new float[n];
+		velY = new float[n];
+		angle = new float[n];
+		angularVel = new float[n];
+		for (int i = 0; i < n; i++) {
+			posX[i] = bodies.getPositionX(i);
+			posY[i] = bodies.getPositionY(i);
+			velX[i] = bodies.getVelocityX(i);
+			velY[i] = bodies.getVelocityY(i);
+			angle[i] = bodies.getAngle(i);
+			angularVel[i] = bodies.getAngularVelocity(i);
+		}
+	}
+
+	/**
+	 * The manifold of every potential pair that touches, into pooled manifolds
+	 */
+	@Benchmark
+	public void manifolds(Blackhole bh) {
+		manifolds(pool);
+		bh.consume(pool.size());
+	}
+
+	/**
+	 * Warm start, velocity and position passes over every contact, then
+	 * keeping the impulses, starting from the scene as built
+	 */
+	@Benchmark
+	public void solve() {
+		for (int i = 0; i < posX.length; i++) {
+			bodies.setPosition(i, posX[i], posY[i]);
+			bodies.setVelocity(i, velX[i], velY[i]);
+			bodies.setAngle(i, angle[i]);
+			bodies.setAngularVelocity(i, angularVel[i]);
+		}
+		engine.clearContactCache();
+
+		engine.solve(contacts);
+	}
+
+	private void manifolds(ManifoldPool out) {
+		out.clear();
+		for (int i = 0; i < pairs.size(); i++) {
+			if (narrowphase.collide(bodies.getEntity(pairs.first(i)), bodies.getEntity(pairs.second(i)), out.next())) {
+				out.keep();
+			}
+		}
+	}
+}
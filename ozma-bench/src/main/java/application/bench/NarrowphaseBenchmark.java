@@ -0,0 +1,117 @@
+package application.bench;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import application.entity.BasicPhysicsEntity;
+import application.math.Vector2;
+import application.physics.CollisionManifold;
+import application.physics.PhysicsEngine;
+import application.physics.PhysicsProperties;
+import application.physics.narrowphase.Narrowphase;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * The collision test and the manifold of a single pair of shapes, for each
+ * kind of pair. Each invocation goes through a fixed set of pairs and the
+ * time is reported per pair. The collision test gets pairs placed so about
+ * half of them overlap, the manifold only gets overlapping pairs. Both go
+ * through the same routine, the manifold is written into one reused for every
+ * pair.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class NarrowphaseBenchmark {
+
+	private static final int PAIRS = 1024;
+
+	@Param({ "circle-circle", "rect-rect", "circle-rect" })
+	public String pair;
+
+	private PhysicsEngine engine;
+	private Narrowphase narrowphase;
+	private CollisionManifold out;
+	private BasicPhysicsEntity[] first;
+	private BasicPhysicsEntity[] second;
+
+	// pairs that overlap, for the manifold
+	private BasicPhysicsEntity[] touchingFirst;
+	private BasicPhysicsEntity[] touchingSecond;
+
+	@Setup
+	public void setup() {
+		engine = new PhysicsEngine(new ArrayList<BasicPhysicsEntity>());
+		narrowphase = engine.getNarrowphase();
+		out = new CollisionManifold();
+		Random rand = new Random(42L);
+		first = new BasicPhysicsEntity[PAIRS];
+		second = new BasicPhysicsEntity[PAIRS];
+		touchingFirst = new BasicPhysicsEntity[PAIRS];
+		touchingSecond = new BasicPhysicsEntity[PAIRS];
+
+		boolean firstCircle = pair.startsWith("circle");
+		boolean secondCircle = pair.endsWith("circle");
+
+		// within 1.5 sizes about half overlap, within 0.7 sizes all of them do
+		float reach = SceneState.BODY_SIZE * 1.5f;
+		float touch = SceneState.BODY_SIZE * 0.7f;
+
+		for (int i = 0; i < PAIRS; i++) {
+			first[i] = entity(firstCircle, 0f, 0f);
+			second[i] = entity(secondCircle, offset(rand, reach), offset(rand, reach));
+			touchingFirst[i] = entity(firstCircle, 0f, 0f);
+			touchingSecond[i] = entity(secondCircle, offset(rand, touch), offset(rand, touch));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public int checkCollision() {
+		int hits = 0;
+		for (int i = 0; i < PAIRS; i++) {
+			if (engine.checkCollision(first[i].getShape(), second[i].getShape())) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public void manifold(Blackhole bh) {
+		for (int i = 0; i < PAIRS; i++) {
+			bh.consume(narrowphase.collide(touchingFirst[i], touchingSecond[i], out));
+			bh.consume(out.getPenDepth());
+		}
+	}
+
+	private static float offset(Random rand, float reach) {
+		return ((rand.nextFloat() * 2f) - 1f) * reach;
+	}
+
+	private static BasicPhysicsEntity entity(boolean circle, float x, float y) {
+		Vector2 pos = new Vector2(x, y);
+		Shape shape;
+		if (circle) {
+			shape = new CircleShape(pos, 0f, SceneState.BODY_SIZE / 2f);
+		} else {
+			shape = new RectShape(pos, 0f, SceneState.BODY_SIZE, SceneState.BODY_SIZE);
+		}
+		return new BasicPhysicsEntity(pos, shape, new PhysicsProperties(5f, 0.1f));
+	}
+}
@@ -0,0 +1,92 @@
+package application.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import application.entity.BasicPhysicsEntity;
+import application.math.Vector2;
+import application.physics.PhysicsProperties;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * A scene of bodies scattered over a square on top of a frozen floor.
+ *
+ * The square is sized so the bodies cover the given share of it, so density
+ * controls how many pairs touch independently of the body count. The scene is
+ * built from a fixed seed, every benchmark with the same parameters sees the
+ * same bodies.
+ */
+@State(Scope.Thread)
+public class SceneState {
+
+	/**
+	 * Width of rectangles and diameter of circles
+	 */
+	public static final float BODY_SIZE = 20f;
+
+	private static final long SEED = 42L;
+	private static final float FLOOR_HEIGHT = 50f;
+
+	@Param({ "100", "1000", "10000", "100000" })
+	public int bodies;
+
+	/**
+	 * Share of the bodies that are circles, the rest are rectangles
+	 */
+	@Param({ "0", "0.5", "1" })
+	public float circleShare;
+
+	/**
+	 * Share of the square covered by bodies
+	 */
+	@Param({ "0.1", "0.4" })
+	public float density;
+
+	/**
+	 * Builds a fresh copy of the scene, the floor last
+	 * @return the entities
+	 */
+	public List<BasicPhysicsEntity> build() {
+		Random rand = new Random(SEED);
+		List<BasicPhysicsEntity> entities = new ArrayList<>(bodies + 1);
+		float side = getSide();
+
+		for (int i = 0; i < bodies; i++) {
+			Vector2 pos = new Vector2(rand.nextFloat() * side, rand.nextFloat() * side);
+
+			Shape shape;
+			if (rand.nextFloat() < circleShare) {
+				shape = new CircleShape(pos, 0f, BODY_SIZE / 2f);
+			} else {
+				shape = new RectShape(pos, 0f, BODY_SIZE, BODY_SIZE);
+			}
+
+			PhysicsProperties prop = new PhysicsProperties(5f, 0.1f);
+			prop.setDynamicFriction(0.2f);
+			prop.setStaticFriction(0.4f);
+			entities.add(new BasicPhysicsEntity(pos, shape, prop));
+		}
+
+		Vector2 floorPos = new Vector2(side / 2f, side + (FLOOR_HEIGHT / 2f));
+		BasicPhysicsEntity floor = new BasicPhysicsEntity(floorPos, new RectShape(floorPos, 0f, side, FLOOR_HEIGHT),
+				new PhysicsProperties(0f, 0f));
+		floor.setFrozen(true);
+		entities.add(floor);
+
+		return entities;
+	}
+
+	/**
+	 * @return the side of the square the bodies are scattered over
+	 */
+	public float getSide() {
+		return (float) Math.sqrt(bodies * BODY_SIZE * BODY_SIZE / density);
+	}
+}
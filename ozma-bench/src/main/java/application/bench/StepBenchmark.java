@@ -0,0 +1,45 @@
+package application.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import application.physics.PhysicsEngine;
+
+/**
+ * A full update and integration of a scene. The scene is rebuilt for every
+ * iteration, so iterations measure the same part of the fall instead of an
+ * ever more settled pile.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class StepBenchmark {
+
+	private static final float TIMESTEP = 1f / 60f;
+
+	@Param({ "false", "true" })
+	public boolean parallel;
+
+	private PhysicsEngine engine;
+
+	@Setup(Level.Iteration)
+	public void setup(SceneState scene) {
+		engine = new PhysicsEngine(scene.build());
+	}
+
+	@Benchmark
+	public int update() {
+		engine.update(parallel);
+		engine.integrate(TIMESTEP);
+		return engine.getContactCount();
+	}
+}
@@ -0,0 +1,378 @@
+package application.entity;
+
+import application.math.Vector2;
+import application.physics.BodyStore;
+import application.physics.PhysicsProperties;
+import application.physics.shape.Shape;
+
+/**
+ * An entity moved by the physics engine.
+ * 
+ * Once the engine has picked it up, the entity is a handle onto its slot in the
+ * engine's BodyStore: velocity, angular velocity, angle and the frozen flag are
+ * read from and written to the store, and the position and angle are copied
+ * back after every integration.
+ */
+public class BasicPhysicsEntity extends Entity {
+	
+	/**
+	 * Velocity added to every moving entity on each update
+	 */
+	public static final float GRAVITY = 2f;
+	
+	/**
+	 * Moves smaller than this are dropped
+	 */
+	public static final float MIN_MOVE = 0.0001f;
+	
+	private Shape shape;
+	private PhysicsProperties properties;
+	private float angularVelocity;
+	private boolean frozen;
+	private boolean bullet;
+	private boolean fixedRotation;
+	
+	/**
+	 * The store holding this entity's state, null when not in an engine
+	 */
+	private BodyStore store;
+	
+	/**
+	 * Slot of the entity in the store, also its position in the engine's list
+	 */
+	private int bodyIndex = -1;
+
+	/**
+	 * @param position
+	 * @param shape
+	 * @param properties
+	 */
+	public BasicPhysicsEntity(Vector2 position, Shape shape, PhysicsProperties properties) {
+		super(position);
+		this.shape = shape;
+		this.properties = properties;
+	}
+
+	@Override
+	public void update(float delta) {
+		
+		if (store != null) {
+			store.integrate(bodyIndex, bodyIndex + 1, delta);
+			store.syncShapes(bodyIndex, bodyIndex + 1);
+			return;
+		}
+		
+		if (!frozen) {
+			velocity.setY(velocity.getY() + GRAVITY);
+			float dx = velocity.getX() * delta;
+			float dy = velocity.getY() * delta;
+			
+			if (Math.abs(dx) < MIN_MOVE) {
+				dx = 0f;
+			}
+			
+			if (Math.abs(dy) < MIN_MOVE) {
+				dy = 0f;
+			}
+			
+			position.set(position.getX() + dx, position.getY() + dy);
+			
+			if (angularVelocity != 0f) {
+				shape.setAngle(shape.getAngle() + (angularVelocity * delta));
+			}
+			shape.moveTo(position);
+		}
+		
+		// apply damping effects
+//		Vector2 dampingVector = new Vector2(properties.getVelocityDamping(), properties.getVelocityDamping());
+//		dampingVector.linearMutliply(delta);
+//		velocity.reduce(dampingVector);
+
+	}
+
+	@Override
+	public boolean pointWithin(Vector2 point) {
+		return shape.pointWithin(point);
+	}
+	
+	/**
+	 * Applies a force
+	 * @param force
+	 */
+	public void applyForce(Vector2 force) {
+		if (store != null) {
+			store.wake(bodyIndex);
+			store.addVelocity(bodyIndex, force.getX(), force.getY());
+		} else {
+			velocity.add(force);
+		}
+	}
+	
+	/**
+	 * While in an engine this is a copy of the velocity in the store,
+	 * changing it does nothing, use setVelocity or applyForce instead
+	 */
+	@Override
+	public Vector2 getVelocity() {
+		if (store != null) {
+			velocity.setX(store.getVelocityX(bodyIndex));
+			velocity.setY(store.getVelocityY(bodyIndex));
+		}
+		return velocity;
+	}
+	
+	@Override
+	public void setVelocity(Vector2 velocity) {
+		this.velocity = velocity;
+		if (store != null) {
+			store.wake(bodyIndex);
+			store.setVelocity(bodyIndex, velocity.getX(), velocity.getY());
+		}
+	}
+	
+	@Override
+	public void setPosition(Vector2 position) {
+		this.position = position;
+		if (store != null) {
+			store.wake(bodyIndex);
+			store.setPosition(bodyIndex, position.getX(), position.getY());
+		}
+	}
+	
+	/**
+	 * @return the angle of the entity in radians, the angle of its shape
+	 */
+	public float getAngle() {
+		if (store != null) {
+			return store.getAngle(bodyIndex);
+		}
+		return shape.getAngle();
+	}
+	
+	/**
+	 * Turns the entity and its shape
+	 * @param angle in radians
+	 */
+	public void setAngle(float angle) {
+		if (store != null) {
+			store.wake(bodyIndex);
+			store.setAngle(bodyIndex, angle);
+			shape.setTransform(shape.getPosition(), angle, store.getCos(bodyIndex), store.getSin(bodyIndex));
+		} else {
+			shape.setAngle(angle);
+		}
+	}
+	
+	/**
+	 * @return the angular velocity in radians a second
+	 */
+	public float getAngularVelocity() {
+		if (store != null) {
+			return store.getAngularVelocity(bodyIndex);
+		}
+		return angularVelocity;
+	}
+	
+	/**
+	 * @param angularVelocity in radians a second
+	 */
+	public void setAngularVelocity(float angularVelocity) {
+		this.angularVelocity = angularVelocity;
+		if (store != null) {
+			store.wake(bodyIndex);
+			store.setAngularVelocity(bodyIndex, angularVelocity);
+		}
+	}
+	
+	/**
+	 * Makes this entity a handle onto a slot of the store, called by the store
+	 * @param store
+	 * @param index
+	 */
+	public void attach(BodyStore store, int index) {
+		this.store = store;
+		bodyIndex = index;
+	}
+	
+	/**
+	 * Takes the state back from the store, called by the store
+	 * @param x
+	 * @param y
+	 * @param velX
+	 * @param velY
+	 * @param angularVelocity
+	 * @param frozen
+	 */
+	public void detach(float x, float y, float velX, float velY, float angularVelocity, boolean frozen) {
+		position.setX(x);
+		position.setY(y);
+		velocity.setX(velX);
+		velocity.setY(velY);
+		this.angularVelocity = angularVelocity;
+		this.frozen = frozen;
+		store = null;
+		bodyIndex = -1;
+	}
+	
+	/**
+	 * Copies the position in the store into the entity, then moves and turns
+	 * the shape with the cosine and sine the store already worked out
+	 */
+	public void syncFromStore() {
+		position.setX(store.getPositionX(bodyIndex));
+		position.setY(store.getPositionY(bodyIndex));
+		shape.setTransform(position, store.getAngle(bodyIndex), store.getCos(bodyIndex), store.getSin(bodyIndex));
+	}
+
+	/**
+	 * @return the shape
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * @param shape
+	 *            the shape to set
+	 */
+	public void setShape(Shape shape) {
+		if (store != null) {
+			this.shape.setStore(null, -1);
+		}
+		this.shape = shape;
+		if (store != null) {
+			store.refresh(bodyIndex);
+		}
+	}
+
+	/**
+	 * @return the properties
+	 */
+	public PhysicsProperties getProperties() {
+		return properties;
+	}
+
+	/**
+	 * @param properties
+	 *            the properties to set
+	 */
+	public void setProperties(PhysicsProperties properties) {
+		this.properties = properties;
+		if (store != null) {
+			store.refresh(bodyIndex);
+		}
+	}
+
+	/**
+	 * Static entities are not moved by collisions, either because they are
+	 * frozen or because they have no mass
+	 * @return
+	 */
+	public boolean isStatic() {
+		if (store != null) {
+			return store.isStatic(bodyIndex);
+		}
+		return frozen || properties.getInvMass() == 0f;
+	}
+
+	/**
+	 * @return the frozen
+	 */
+	public boolean isFrozen() {
+		if (store != null) {
+			return store.isFrozen(bodyIndex);
+		}
+		return frozen;
+	}
+
+	/**
+	 * @param frozen the frozen to set
+	 */
+	public void setFrozen(boolean frozen) {
+		this.frozen = frozen;
+		if (store != null) {
+			store.setFrozen(bodyIndex, frozen);
+		}
+	}
+
+	/**
+	 * @return the bullet
+	 */
+	public boolean isBullet() {
+		if (store != null) {
+			return store.isBullet(bodyIndex);
+		}
+		return bullet;
+	}
+
+	/**
+	 * Bullets are swept for collisions on every update, not only when they
+	 * move fast, so they can't pass through thin bodies
+	 * @param bullet the bullet to set
+	 */
+	public void setBullet(boolean bullet) {
+		this.bullet = bullet;
+		if (store != null) {
+			store.setBullet(bodyIndex, bullet);
+		}
+	}
+
+	/**
+	 * @return the fixedRotation
+	 */
+	public boolean isFixedRotation() {
+		return fixedRotation;
+	}
+
+	/**
+	 * Entities with fixed rotation are never turned by collisions
+	 * @param fixedRotation the fixedRotation to set
+	 */
+	public void setFixedRotation(boolean fixedRotation) {
+		this.fixedRotation = fixedRotation;
+		if (store != null) {
+			store.refresh(bodyIndex);
+		}
+	}
+
+	/**
+	 * How far to draw the entity from its position so it appears part way
+	 * between its position before the last update and its current one
+	 * @param alpha from PhysicsEngine.step
+	 * @param out gets the offset, zero when not in an engine
+	 * @return out
+	 */
+	public Vector2 getRenderOffset(float alpha, Vector2 out) {
+		if (store == null) {
+			out.set(0f, 0f);
+		} else {
+			out.set(store.getInterpolatedX(bodyIndex, alpha) - store.getPositionX(bodyIndex),
+					store.getInterpolatedY(bodyIndex, alpha) - store.getPositionY(bodyIndex));
+		}
+		return out;
+	}
+
+	/**
+	 * Entities only sleep while in an engine, setting the velocity or position
+	 * or applying a force wakes them
+	 * @return true if the engine put this entity to sleep
+	 */
+	public boolean isSleeping() {
+		return store != null && store.isSleeping(bodyIndex);
+	}
+
+	/**
+	 * @return the bodyIndex
+	 */
+	public int getBodyIndex() {
+		return bodyIndex;
+	}
+
+	/**
+	 * @return the store holding this entity's state, or null
+	 */
+	public BodyStore getBodyStore() {
+		return store;
+	}
+
+}
@@ -1,7 +1,6 @@
 package application.entity;
 
 import application.math.Vector2;
-import javafx.scene.canvas.GraphicsContext;
 
 public abstract class Entity {
 	
@@ -33,13 +32,6 @@ public abstract class Entity {
 	 */
 	public abstract void update(float delta);
 	
-	/**
-	 * Renders the entity
-	 * @param gc
-	 * @param delta
-	 */
-	public abstract void render(GraphicsContext gc, float delta);
-	
 	/**
 	 * Checks if a point is within entity
 	 * @param point
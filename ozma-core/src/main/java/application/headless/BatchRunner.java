@@ -0,0 +1,233 @@
+package application.headless;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.PhysicsEngine;
+import application.physics.broadphase.Broadphase;
+import application.physics.broadphase.BruteForceBroadphase;
+import application.physics.broadphase.DynamicTreeBroadphase;
+import application.physics.broadphase.SpatialHashBroadphase;
+import application.physics.broadphase.SweepAndPruneBroadphase;
+
+/**
+ * Runs a scenario for many seeds without a window, as fast as the CPU allows.
+ *
+ * Each seed gets its own world and engine and is stepped on one thread with a
+ * fixed timestep, so its result doesn't depend on how many seeds run at once.
+ * Seeds are spread over a thread pool. One CSV row is written per seed, in
+ * seed order, followed by a summary.
+ *
+ * Options, all optional:
+ * --scenario scatter|piles, --bodies n, --seeds n, --first-seed n,
+ * --steps n, --threads n, --broadphase hash|sap|tree|brute,
+ * --velocity-iterations n, --position-iterations n, --sleep true|false,
+ * --off-heap true|false, --out file (standard out by default)
+ */
+public class BatchRunner {
+
+	private static final float TIMESTEP = 1f / 60f;
+
+	private Scenario scenario = Scenario.SCATTER;
+	private int bodies = 200;
+	private int seeds = 8;
+	private long firstSeed = 0;
+	private int steps = 3600;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private String broadphase = "hash";
+	private int velocityIterations = -1;
+	private int positionIterations = -1;
+	private boolean sleep = true;
+	private boolean offHeap;
+	private String out;
+
+	/**
+	 * Entry point
+	 * @param args see the class comment
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		BatchRunner runner = new BatchRunner();
+		runner.parse(args);
+		runner.runAll();
+	}
+
+	/**
+	 * Reads the options
+	 * @param args
+	 */
+	private void parse(String[] args) {
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("missing value for " + args[i]);
+			}
+
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "--scenario":
+				scenario = Scenario.valueOf(value.toUpperCase(Locale.ROOT));
+				break;
+			case "--bodies":
+				bodies = Integer.parseInt(value);
+				break;
+			case "--seeds":
+				seeds = Integer.parseInt(value);
+				break;
+			case "--first-seed":
+				firstSeed = Long.parseLong(value);
+				break;
+			case "--steps":
+				steps = Integer.parseInt(value);
+				break;
+			case "--threads":
+				threads = Math.max(1, Integer.parseInt(value));
+				break;
+			case "--broadphase":
+				broadphase = value;
+				createBroadphase(); // fail now rather than on every seed
+				break;
+			case "--velocity-iterations":
+				velocityIterations = Integer.parseInt(value);
+				break;
+			case "--position-iterations":
+				positionIterations = Integer.parseInt(value);
+				break;
+			case "--sleep":
+				sleep = Boolean.parseBoolean(value);
+				break;
+			case "--off-heap":
+				offHeap = Boolean.parseBoolean(value);
+				break;
+			case "--out":
+				out = value;
+				break;
+			default:
+				throw new IllegalArgumentException("unknown option " + args[i]);
+			}
+		}
+	}
+
+	/**
+	 * Runs every seed across the pool and writes the results
+	 */
+	private void runAll() throws IOException, InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<RunResult>> futures = new ArrayList<>();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < seeds; i++) {
+			long seed = firstSeed + i;
+			futures.add(pool.submit(() -> run(seed)));
+		}
+
+		List<RunResult> results = new ArrayList<>();
+		try {
+			for (Future<RunResult> f : futures) {
+				results.add(f.get());
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("seed failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+
+		long wall = System.nanoTime() - start;
+
+		PrintStream ps = out == null ? System.out
+				: new PrintStream(Files.newOutputStream(Paths.get(out)), false, StandardCharsets.UTF_8.name());
+		try {
+			write(ps, results, wall);
+		} finally {
+			if (ps != System.out) {
+				ps.close();
+			}
+		}
+	}
+
+	/**
+	 * Builds and steps the world of one seed
+	 * @param seed
+	 * @return what the run did
+	 */
+	private RunResult run(long seed) {
+		List<BasicPhysicsEntity> entities = new ArrayList<>();
+		scenario.build(new Random(seed), bodies, entities);
+
+		PhysicsEngine engine = new PhysicsEngine(entities, createBroadphase(), offHeap);
+		engine.setSleepingAllowed(sleep);
+		if (velocityIterations > 0) {
+			engine.setVelocityIterations(velocityIterations);
+		}
+		if (positionIterations >= 0) {
+			engine.setPositionIterations(positionIterations);
+		}
+
+		long totalContacts = 0;
+		int maxContacts = 0;
+		long start = System.nanoTime();
+
+		for (int s = 0; s < steps; s++) {
+			engine.update(false);
+			engine.integrate(TIMESTEP);
+
+			totalContacts += engine.getContactCount();
+			maxContacts = Math.max(maxContacts, engine.getContactCount());
+		}
+
+		long nanos = System.nanoTime() - start;
+		return new RunResult(seed, steps, nanos, totalContacts, maxContacts, engine.getBodies().stateHash());
+	}
+
+	/**
+	 * Writes a row per seed, then the summary as comments
+	 * @param ps
+	 * @param results
+	 * @param wall nanoseconds for the whole batch
+	 */
+	private void write(PrintStream ps, List<RunResult> results, long wall) {
+		ps.println(RunResult.CSV_HEADER);
+
+		long totalSteps = 0;
+		long totalContacts = 0;
+		for (RunResult r : results) {
+			ps.println(r.toCsv());
+			totalSteps += r.getSteps();
+			totalContacts += r.getTotalContacts();
+		}
+
+		double seconds = wall / 1e9;
+		ps.println(String.format(Locale.ROOT, "# scenario=%s bodies=%d seeds=%d steps=%d threads=%d broadphase=%s off-heap=%b",
+				scenario.name().toLowerCase(Locale.ROOT), bodies, seeds, steps, threads, broadphase, offHeap));
+		ps.println(String.format(Locale.ROOT, "# wall=%.3fs steps/sec=%.1f contacts/step=%.2f", seconds,
+				seconds == 0 ? 0 : totalSteps / seconds, totalSteps == 0 ? 0 : totalContacts / (double) totalSteps));
+	}
+
+	/**
+	 * @return a new broadphase of the chosen kind, every engine needs its own
+	 */
+	private Broadphase createBroadphase() {
+		switch (broadphase) {
+		case "hash":
+			return new SpatialHashBroadphase();
+		case "sap":
+			return new SweepAndPruneBroadphase();
+		case "tree":
+			return new DynamicTreeBroadphase();
+		case "brute":
+			return new BruteForceBroadphase();
+		default:
+			throw new IllegalArgumentException("unknown broadphase " + broadphase);
+		}
+	}
+}
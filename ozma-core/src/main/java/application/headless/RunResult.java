@@ -0,0 +1,103 @@
+package application.headless;
+
+import java.util.Locale;
+
+/**
+ * What one seed of a batch run did
+ */
+public class RunResult {
+
+	/**
+	 * Header of the rows written by toCsv
+	 */
+	public static final String CSV_HEADER = "seed,steps,seconds,steps_per_sec,contacts_per_step,max_contacts,state_hash";
+
+	private final long seed;
+	private final int steps;
+	private final long nanos;
+	private final long totalContacts;
+	private final int maxContacts;
+	private final long stateHash;
+
+	/**
+	 * @param seed
+	 * @param steps
+	 * @param nanos time spent stepping
+	 * @param totalContacts contacts summed over every step
+	 * @param maxContacts most contacts in one step
+	 * @param stateHash of the bodies after the last step
+	 */
+	public RunResult(long seed, int steps, long nanos, long totalContacts, int maxContacts, long stateHash) {
+		super();
+		this.seed = seed;
+		this.steps = steps;
+		this.nanos = nanos;
+		this.totalContacts = totalContacts;
+		this.maxContacts = maxContacts;
+		this.stateHash = stateHash;
+	}
+
+	/**
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return the steps
+	 */
+	public int getSteps() {
+		return steps;
+	}
+
+	/**
+	 * @return the nanoseconds spent stepping
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return the steps simulated per second of wall time
+	 */
+	public double getStepsPerSecond() {
+		return nanos == 0 ? 0 : steps / (nanos / 1e9);
+	}
+
+	/**
+	 * @return the contacts summed over every step
+	 */
+	public long getTotalContacts() {
+		return totalContacts;
+	}
+
+	/**
+	 * @return the average number of contacts per step
+	 */
+	public double getContactsPerStep() {
+		return steps == 0 ? 0 : totalContacts / (double) steps;
+	}
+
+	/**
+	 * @return the most contacts in one step
+	 */
+	public int getMaxContacts() {
+		return maxContacts;
+	}
+
+	/**
+	 * @return the hash of the bodies after the last step
+	 */
+	public long getStateHash() {
+		return stateHash;
+	}
+
+	/**
+	 * @return the result as a row under CSV_HEADER
+	 */
+	public String toCsv() {
+		return String.format(Locale.ROOT, "%d,%d,%.3f,%.1f,%.2f,%d,%016x", seed, steps, nanos / 1e9, getStepsPerSecond(),
+				getContactsPerStep(), maxContacts, stateHash);
+	}
+}
@@ -0,0 +1,102 @@
+package application.headless;
+
+import java.util.List;
+import java.util.Random;
+
+import application.entity.BasicPhysicsEntity;
+import application.math.Vector2;
+import application.physics.PhysicsProperties;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * Worlds the batch runner can build. Everything random is drawn from the
+ * given Random, so the same seed always builds the same world.
+ */
+public enum Scenario {
+
+	/**
+	 * Circles and rectangles dropped at random over the window onto a floor,
+	 * like the window's initialize button but with any number of bodies
+	 */
+	SCATTER {
+		@Override
+		public void build(Random rand, int bodies, List<BasicPhysicsEntity> out) {
+			for (int i = 0; i < bodies; i++) {
+				Vector2 pos = new Vector2(rand.nextFloat() * WIDTH, rand.nextFloat() * (HEIGHT - FLOOR_HEIGHT));
+
+				Shape shape;
+				if (i % 2 == 0) {
+					shape = new CircleShape(pos, 0f, SIZE / 2f);
+				} else {
+					shape = new RectShape(pos, (float) Math.PI / rand.nextFloat(), SIZE, SIZE);
+				}
+
+				out.add(new BasicPhysicsEntity(pos, shape, bodyProperties()));
+			}
+
+			out.add(floor());
+		}
+	},
+
+	/**
+	 * Columns of boxes standing on a floor, with a little random sideways
+	 * offset per box so the columns don't all behave the same
+	 */
+	PILES {
+		@Override
+		public void build(Random rand, int bodies, List<BasicPhysicsEntity> out) {
+			int height = Math.max(1, (int) ((HEIGHT - FLOOR_HEIGHT) / SIZE) - 2);
+			int columns = (bodies + height - 1) / height;
+			float spacing = WIDTH / (columns + 1f);
+			float floorTop = HEIGHT - FLOOR_HEIGHT;
+
+			for (int i = 0; i < bodies; i++) {
+				int column = i / height;
+				int row = i % height;
+				Vector2 pos = new Vector2(spacing * (column + 1) + ((rand.nextFloat() - 0.5f) * 4f),
+						floorTop - (SIZE / 2f) - (row * SIZE));
+
+				out.add(new BasicPhysicsEntity(pos, new RectShape(pos, 0f, SIZE, SIZE), bodyProperties()));
+			}
+
+			out.add(floor());
+		}
+	};
+
+	/**
+	 * Size of the world, the same as the window
+	 */
+	public static final float WIDTH = 1280f;
+	public static final float HEIGHT = 720f;
+
+	private static final float SIZE = 40f;
+	private static final float FLOOR_HEIGHT = 50f;
+
+	/**
+	 * Builds the world
+	 * @param rand
+	 * @param bodies number of moving bodies
+	 * @param out gets the entities
+	 */
+	public abstract void build(Random rand, int bodies, List<BasicPhysicsEntity> out);
+
+	private static PhysicsProperties bodyProperties() {
+		PhysicsProperties prop = new PhysicsProperties(5f, 0.1f);
+		prop.setDynamicFriction(0.2f);
+		prop.setStaticFriction(0.4f);
+		return prop;
+	}
+
+	private static BasicPhysicsEntity floor() {
+		Vector2 floorPos = new Vector2(WIDTH / 2f, HEIGHT - (FLOOR_HEIGHT / 2f));
+		PhysicsProperties floorProp = new PhysicsProperties(0, 0f);
+		floorProp.setDynamicFriction(0f);
+		floorProp.setStaticFriction(0f);
+
+		BasicPhysicsEntity floor = new BasicPhysicsEntity(floorPos, new RectShape(floorPos, 0f, WIDTH, FLOOR_HEIGHT), floorProp);
+		floor.setFrozen(true);
+		return floor;
+	}
+}
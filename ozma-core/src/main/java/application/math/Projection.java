@@ -14,16 +14,40 @@ public class Projection {
 		this.max = max;
 	}
 	
+	/**
+	 * @param p1
+	 * @param p2
+	 * @return true if the projections share more than an end point, which
+	 * includes one containing the other
+	 */
 	public static boolean overlap(Projection p1, Projection p2) {
-		if (p2.min < p1.max && p1.max < p2.max) {
-			return true;
-		}
-		
-		if (p2.min < p1.min && p1.min < p2.max) {
-			return true;
-		}
+		return overlap(p1.min, p1.max, p2.min, p2.max);
+	}
+	
+	/**
+	 * Same as overlap on two projections, given as floats
+	 * @param min1
+	 * @param max1
+	 * @param min2
+	 * @param max2
+	 * @return true if the ranges share more than an end point, which includes
+	 * one containing the other
+	 */
+	public static boolean overlap(float min1, float max1, float min2, float max2) {
+		return min1 < max2 && min2 < max1;
+	}
+	
+	/**
+	 * Sets both min and max
+	 * @param min
+	 * @param max
+	 * @return returns itself to allow chains of operations
+	 */
+	public Projection set(float min, float max) {
+		this.min = min;
+		this.max = max;
 		
-		return false;
+		return this;
 	}
 
 	/**
@@ -22,6 +22,118 @@ public class Vector2 {
 		this.y = y;
 	}
 	
+	/**
+	 * Dot product of two vectors given as floats
+	 * @param ax
+	 * @param ay
+	 * @param bx
+	 * @param by
+	 * @return
+	 */
+	public static float dot(float ax, float ay, float bx, float by) {
+		return (ax * bx) + (ay * by);
+	}
+	
+	/**
+	 * Cross product of two vectors given as floats, the z of the 3d one
+	 * @param ax
+	 * @param ay
+	 * @param bx
+	 * @param by
+	 * @return
+	 */
+	public static float cross(float ax, float ay, float bx, float by) {
+		return (ax * by) - (ay * bx);
+	}
+	
+	/**
+	 * the length of a vector given as floats without doing the sqrt step
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static float lengthSquared(float x, float y) {
+		return (x * x) + (y * y);
+	}
+	
+	/**
+	 * the length of a vector given as floats
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static float length(float x, float y) {
+		return (float)Math.sqrt((x * x) + (y * y));
+	}
+	
+	/**
+	 * Adds two vectors into out, out may be either of them
+	 * @param a
+	 * @param b
+	 * @param out
+	 * @return out
+	 */
+	public static Vector2 add(Vector2 a, Vector2 b, Vector2 out) {
+		out.x = a.x + b.x;
+		out.y = a.y + b.y;
+		
+		return out;
+	}
+	
+	/**
+	 * Minus b from a into out, out may be either of them
+	 * @param a
+	 * @param b
+	 * @param out
+	 * @return out
+	 */
+	public static Vector2 minus(Vector2 a, Vector2 b, Vector2 out) {
+		out.x = a.x - b.x;
+		out.y = a.y - b.y;
+		
+		return out;
+	}
+	
+	/**
+	 * Writes the vector x, y with a length of 1 into out
+	 * @param x
+	 * @param y
+	 * @param out
+	 * @return out
+	 */
+	public static Vector2 normalize(float x, float y, Vector2 out) {
+		float len = length(x, y);
+		out.x = x / len;
+		out.y = y / len;
+		
+		return out;
+	}
+	
+	/**
+	 * Sets both x and y
+	 * @param x
+	 * @param y
+	 * @return returns itself to allow chains of operations
+	 */
+	public Vector2 set(float x, float y) {
+		this.x = x;
+		this.y = y;
+		
+		return this;
+	}
+	
+	/**
+	 * Copies x and y from the other vector
+	 * @param other
+	 * @return returns itself to allow chains of operations
+	 */
+	public Vector2 set(Vector2 other) {
+		x = other.x;
+		y = other.y;
+		
+		return this;
+	}
+	
 	/**
 	 * Dot product operation between this and the other vector
 	 * @param other
@@ -141,6 +253,19 @@ public class Vector2 {
 		return new Vector2(-y, x);
 	}
 	
+	/**
+	 * Writes the normal into out instead of creating a new vector
+	 * @param out may be this vector
+	 * @return out
+	 */
+	public Vector2 getNormal(Vector2 out) {
+		float nx = -y;
+		out.y = x;
+		out.x = nx;
+		
+		return out;
+	}
+	
 	/**
 	 * makes the length to 1
 	 * @return returns itself to allow chains of operations
@@ -0,0 +1,350 @@
+package application.physics;
+
+/**
+ * Where a BodyStore keeps the numbers of its bodies, read and written one
+ * field of one slot at a time.
+ *
+ * HeapBodyRecords keeps each field in its own array, DirectBodyRecords keeps
+ * one fixed size record per body outside the heap. The store is made with one
+ * or the other and never switches. An engine that never asks for off heap
+ * records never loads DirectBodyRecords, so every call here has a single
+ * implementation the JIT inlines as if there were no choice.
+ */
+interface BodyRecords {
+
+	/**
+	 * @param i slot
+	 * @return the position x
+	 */
+	float getPosX(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the position x
+	 */
+	void setPosX(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the position y
+	 */
+	float getPosY(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the position y
+	 */
+	void setPosY(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the position x before the last move
+	 */
+	float getPrevX(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the position x before the last move
+	 */
+	void setPrevX(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the position y before the last move
+	 */
+	float getPrevY(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the position y before the last move
+	 */
+	void setPrevY(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the velocity x
+	 */
+	float getVelX(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the velocity x
+	 */
+	void setVelX(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the velocity y
+	 */
+	float getVelY(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the velocity y
+	 */
+	void setVelY(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the angle in radians
+	 */
+	float getAngle(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the angle in radians
+	 */
+	void setAngle(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the angle before the last move
+	 */
+	float getPrevAngle(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the angle before the last move
+	 */
+	void setPrevAngle(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the angular velocity in radians a second
+	 */
+	float getAngularVel(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the angular velocity in radians a second
+	 */
+	void setAngularVel(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the cosine of the angle
+	 */
+	float getCos(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the cosine of the angle
+	 */
+	void setCos(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the sine of the angle
+	 */
+	float getSin(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the sine of the angle
+	 */
+	void setSin(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the seconds spent slower than the sleep speed
+	 */
+	float getRestTime(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the seconds spent slower than the sleep speed
+	 */
+	void setRestTime(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the inverse mass
+	 */
+	float getInvMass(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the inverse mass
+	 */
+	void setInvMass(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the inverse moment of inertia
+	 */
+	float getInvInertia(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the inverse moment of inertia
+	 */
+	void setInvInertia(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the restitution
+	 */
+	float getRestitution(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the restitution
+	 */
+	void setRestitution(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the static friction
+	 */
+	float getStaticFriction(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the static friction
+	 */
+	void setStaticFriction(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the dynamic friction
+	 */
+	float getDynamicFriction(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the dynamic friction
+	 */
+	void setDynamicFriction(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the loose check radius
+	 */
+	float getRadius(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the loose check radius
+	 */
+	void setRadius(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return half the width of the unturned shape
+	 */
+	float getHalfWidth(int i);
+
+	/**
+	 * @param i slot
+	 * @param value half the width of the unturned shape
+	 */
+	void setHalfWidth(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return half the height of the unturned shape
+	 */
+	float getHalfHeight(int i);
+
+	/**
+	 * @param i slot
+	 * @param value half the height of the unturned shape
+	 */
+	void setHalfHeight(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the half width of the box around the shape
+	 */
+	float getExtentX(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the half width of the box around the shape
+	 */
+	void setExtentX(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the half height of the box around the shape
+	 */
+	float getExtentY(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the half height of the box around the shape
+	 */
+	void setExtentY(int i, float value);
+
+	/**
+	 * @param i slot
+	 * @return the FROZEN, SLEEPING and BULLET flags
+	 */
+	int getFlags(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the FROZEN, SLEEPING and BULLET flags
+	 */
+	void setFlags(int i, int value);
+
+	/**
+	 * @param i slot
+	 * @return the group the body fell asleep with
+	 */
+	int getSleepGroup(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the group the body fell asleep with
+	 */
+	void setSleepGroup(int i, int value);
+
+	/**
+	 * @param i slot
+	 * @return the next body of the sleep group, the groups being rings
+	 */
+	int getSleepNext(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the next body of the sleep group
+	 */
+	void setSleepNext(int i, int value);
+
+	/**
+	 * @param i slot
+	 * @return the shape type id
+	 */
+	int getShapeType(int i);
+
+	/**
+	 * @param i slot
+	 * @param value the shape type id
+	 */
+	void setShapeType(int i, int value);
+
+	/**
+	 * Copies the positions and angles of the bodies from start to end into
+	 * the previous ones
+	 * @param start
+	 * @param end
+	 */
+	void savePositions(int start, int end);
+
+	/**
+	 * @return the number of bodies there is room for
+	 */
+	int capacity();
+
+	/**
+	 * Makes room for more bodies, keeping the ones there
+	 * @param capacity more than the current one
+	 */
+	void grow(int capacity);
+
+	/**
+	 * @return bytes kept outside the heap
+	 */
+	long offHeapBytes();
+}
@@ -0,0 +1,825 @@
+package application.physics;
+
+import java.util.Arrays;
+import java.util.List;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * The state of every body in the engine, kept as a fixed set of float and int
+ * fields per body. By default each field is a primitive array on the heap;
+ * an off heap store keeps one fixed size record per body in direct memory
+ * instead, so the numbers of a million bodies are a single buffer to the
+ * garbage collector. The engine only reads and writes them through this class,
+ * so it runs the same against either.
+ *
+ * Slot i always belongs to the entity at index i of the engine's list. While an
+ * entity is in the store it is only a handle: its position, velocity and frozen
+ * flag live here, and the engine's loops walk these records instead of chasing
+ * entity, vector, properties and shape objects for every body.
+ *
+ * Materials and shape sizes are copied in when an entity is attached, or
+ * when it is given a new shape, material or fixed rotation. Changing a shared
+ * PhysicsProperties marks every store that copied it, and the next sync
+ * copies that store's slots in again. A shape in the store copies its own
+ * slot again when resized. Either way the change takes effect without the
+ * engine reading them on every update.
+ *
+ * Turning bodies keep the cosine and sine of their angle, worked out once when
+ * the angle changes. Their shapes are handed both so the vertices and normals
+ * are transformed once per integration, however many pairs read them.
+ *
+ * Sleeping bodies are skipped like frozen ones until they are woken. They fall
+ * asleep in groups, one group per contact island, and waking any body of a
+ * group wakes all of it so a pile never wakes up with its support asleep.
+ * Each group is a ring of slots linked through the records, so waking one
+ * walks only its own bodies however many others sleep.
+ */
+public class BodyStore {
+
+	/**
+	 * Flag for bodies that don't move
+	 */
+	public static final int FROZEN = 1;
+
+	/**
+	 * Flag for bodies that came to rest and are skipped until woken
+	 */
+	public static final int SLEEPING = 2;
+
+	/**
+	 * Flag for bodies that are always swept for collisions, however slow
+	 */
+	public static final int BULLET = 4;
+
+	/**
+	 * Bodies with either flag don't move on their own
+	 */
+	private static final int INACTIVE = FROZEN | SLEEPING;
+
+	private BasicPhysicsEntity[] entities;
+
+	// a sleeping slot of each group, by group, to link bodies put to sleep into
+	private int[] groupAnchor;
+	private int size;
+	private int version;
+
+	// squared distance the furthest body moved from its saved position
+	private float driftSq;
+
+	// set when a PhysicsProperties this store copied changed
+	private boolean materialsChanged;
+
+	private final BodyRecords records;
+
+	/**
+	 * Creates a store keeping its records on the heap
+	 */
+	public BodyStore() {
+		this(false);
+	}
+
+	/**
+	 * @param offHeap keep the records in direct memory, one fixed size record
+	 * per body, instead of in an array per field on the heap
+	 */
+	public BodyStore(boolean offHeap) {
+		super();
+		entities = new BasicPhysicsEntity[0];
+		groupAnchor = new int[0];
+		records = offHeap ? new DirectBodyRecords() : new HeapBodyRecords();
+		ensureCapacity(64);
+	}
+
+	/**
+	 * Lines the slots up with the list. Entities that left or moved to another
+	 * index get their state back first, then the new occupants are copied in.
+	 * @param list
+	 */
+	public void sync(List<BasicPhysicsEntity> list) {
+		int n = list.size();
+		ensureCapacity(n);
+
+		for (int i = 0; i < size; i++) {
+			if (entities[i] != null && (i >= n || entities[i] != list.get(i))) {
+				detach(i);
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			BasicPhysicsEntity e = list.get(i);
+			if (entities[i] != e) {
+				attach(i, e);
+				refresh(i);
+			}
+		}
+
+		size = n;
+
+		if (materialsChanged) {
+			materialsChanged = false;
+			for (int i = 0; i < n; i++) {
+				refresh(i);
+			}
+		}
+	}
+
+	/**
+	 * Gives every entity its state back and empties the store
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			if (entities[i] != null) {
+				detach(i);
+			}
+		}
+		size = 0;
+	}
+
+	/**
+	 * Moves the bodies from start to end by their velocity, after adding
+	 * gravity. Frozen and sleeping bodies are skipped. Only the records are touched, use syncShapes to move the shapes.
+	 * @param start
+	 * @param end
+	 * @param delta seconds
+	 */
+	public void integrate(int start, int end, float delta) {
+		applyGravity(start, end);
+		move(start, end, delta);
+	}
+
+	/**
+	 * Remembers the current positions and angles as the previous ones, for
+	 * drawing between two updates
+	 * @param start
+	 * @param end
+	 */
+	public void savePositions(int start, int end) {
+		records.savePositions(start, end);
+		driftSq = 0f;
+	}
+
+	/**
+	 * Takes the bodies from start to end into account for getDrift, after
+	 * they moved
+	 * @param start
+	 * @param end
+	 */
+	public void updateDrift(int start, int end) {
+		float max = driftSq;
+		for (int i = start; i < end; i++) {
+			float dx = records.getPosX(i) - records.getPrevX(i);
+			float dy = records.getPosY(i) - records.getPrevY(i);
+			max = Math.max(max, (dx * dx) + (dy * dy));
+		}
+		driftSq = max;
+	}
+
+	/**
+	 * @return how far the furthest body moved from its saved position, as of
+	 * the last updateDrift. The broadphase saw the bodies at their saved
+	 * positions, so its queries have to reach this much further.
+	 */
+	public float getDrift() {
+		return (float) Math.sqrt(driftSq);
+	}
+
+	/**
+	 * Adds gravity to the velocity of the bodies from start to end
+	 * @param start
+	 * @param end
+	 */
+	public void applyGravity(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if ((records.getFlags(i) & INACTIVE) == 0) {
+				records.setVelY(i, records.getVelY(i) + BasicPhysicsEntity.GRAVITY);
+			}
+		}
+	}
+
+	/**
+	 * Moves the bodies from start to end by their velocity and turns them by
+	 * their angular velocity. Only the records are touched, use syncShapes to
+	 * move the shapes.
+	 * @param start
+	 * @param end
+	 * @param delta seconds
+	 */
+	public void move(int start, int end, float delta) {
+		for (int i = start; i < end; i++) {
+			if ((records.getFlags(i) & INACTIVE) != 0) {
+				continue;
+			}
+			
+			float w = records.getAngularVel(i);
+			if (w != 0f) {
+				float a = records.getAngle(i) + (w * delta);
+				records.setAngle(i, a);
+				records.setCos(i, (float) Math.cos(a));
+				records.setSin(i, (float) Math.sin(a));
+				updateExtents(i);
+			}
+
+			records.setPosX(i, records.getPosX(i) + getMoveX(i, delta));
+			records.setPosY(i, records.getPosY(i) + getMoveY(i, delta));
+		}
+	}
+
+	/**
+	 * @param i
+	 * @param delta seconds
+	 * @return how far move takes a moving body along x, nothing if less than
+	 * MIN_MOVE
+	 */
+	public float getMoveX(int i, float delta) {
+		float dx = records.getVelX(i) * delta;
+		return Math.abs(dx) < BasicPhysicsEntity.MIN_MOVE ? 0f : dx;
+	}
+
+	/**
+	 * @param i
+	 * @param delta seconds
+	 * @return how far move takes a moving body along y, nothing if less than
+	 * MIN_MOVE
+	 */
+	public float getMoveY(int i, float delta) {
+		float dy = records.getVelY(i) * delta;
+		return Math.abs(dy) < BasicPhysicsEntity.MIN_MOVE ? 0f : dy;
+	}
+
+	/**
+	 * Copies the positions of the bodies that can move into their entities and
+	 * shapes
+	 * @param start
+	 * @param end
+	 */
+	public void syncShapes(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if ((records.getFlags(i) & INACTIVE) == 0) {
+				entities[i].syncFromStore();
+			}
+		}
+	}
+
+	/**
+	 * Copies an entity into a slot and makes it a handle onto it
+	 * @param i
+	 * @param e
+	 */
+	private void attach(int i, BasicPhysicsEntity e) {
+		if (e.getBodyStore() != null) {
+			e.getBodyStore().detach(e.getBodyIndex());
+		}
+
+		entities[i] = e;
+		records.setPosX(i, e.getPosition().getX());
+		records.setPosY(i, e.getPosition().getY());
+		records.setVelX(i, e.getVelocity().getX());
+		records.setVelY(i, e.getVelocity().getY());
+		setAngle(i, e.getShape().getAngle());
+		records.setAngularVel(i, e.getAngularVelocity());
+		records.setFlags(i, (e.isFrozen() ? FROZEN : 0) | (e.isBullet() ? BULLET : 0));
+		records.setRestTime(i, 0f);
+		e.attach(this, i);
+	}
+
+	/**
+	 * Gives the entity in a slot its state back
+	 * @param i
+	 */
+	private void detach(int i) {
+		BasicPhysicsEntity e = entities[i];
+		entities[i] = null;
+		version++;
+
+		if (e != null) {
+			e.getShape().setStore(null, -1);
+		}
+
+		if ((records.getFlags(i) & SLEEPING) != 0) {
+			unlinkSleeping(i);
+			records.setFlags(i, records.getFlags(i) & ~SLEEPING);
+		}
+
+		if (e != null && e.getBodyStore() == this && e.getBodyIndex() == i) {
+			e.detach(records.getPosX(i), records.getPosY(i), records.getVelX(i),
+					records.getVelY(i), records.getAngularVel(i), (records.getFlags(i) & FROZEN) != 0);
+		}
+	}
+
+	/**
+	 * Copies the material and shape of a slot's entity again, called by the
+	 * entity when it gets a new one
+	 * @param i
+	 */
+	public void refresh(int i) {
+		BasicPhysicsEntity e = entities[i];
+		PhysicsProperties prop = e.getProperties();
+		prop.addStore(this);
+		records.setInvMass(i, prop.getInvMass());
+		records.setRestitution(i, prop.getRestitution());
+		records.setStaticFriction(i, prop.getStaticFriction());
+		records.setDynamicFriction(i, prop.getDynamicFriction());
+
+		Shape shape = e.getShape();
+		shape.setStore(this, i);
+		records.setShapeType(i, shape.getShapeType());
+		records.setRadius(i, shape.getLooseCheckRadius());
+
+		float inertia = e.isFixedRotation() ? 0f : shape.getInertia(prop.getMass());
+		records.setInvInertia(i, inertia > 0f ? 1f / inertia : 0f);
+
+		if (records.getShapeType(i) == CircleShape.TYPE_ID) {
+			records.setHalfWidth(i, ((CircleShape) shape).getRadius());
+			records.setHalfHeight(i, records.getHalfWidth(i));
+		} else if (records.getShapeType(i) == RectShape.TYPE_ID) {
+			records.setHalfWidth(i, ((RectShape) shape).getWidth() / 2f);
+			records.setHalfHeight(i, ((RectShape) shape).getHeight() / 2f);
+		} else {
+			records.setHalfWidth(i, records.getRadius(i));
+			records.setHalfHeight(i, records.getRadius(i));
+		}
+		updateExtents(i);
+	}
+
+	/**
+	 * Has the next sync copy every slot's material again, called by the
+	 * PhysicsProperties this store copied when one of them changes
+	 */
+	void materialChanged() {
+		materialsChanged = true;
+	}
+
+	/**
+	 * Works out the half size of the box around a body's shape at its angle,
+	 * for when the angle or size changes
+	 * @param i
+	 */
+	private void updateExtents(int i) {
+		float halfWidth = records.getHalfWidth(i);
+		float halfHeight = records.getHalfHeight(i);
+		if (records.getShapeType(i) == RectShape.TYPE_ID) {
+			float cos = Math.abs(records.getCos(i));
+			float sin = Math.abs(records.getSin(i));
+			records.setExtentX(i, (cos * halfWidth) + (sin * halfHeight));
+			records.setExtentY(i, (sin * halfWidth) + (cos * halfHeight));
+		} else {
+			records.setExtentX(i, halfWidth);
+			records.setExtentY(i, halfHeight);
+		}
+	}
+
+	private void ensureCapacity(int n) {
+		if (records.capacity() >= n) {
+			return;
+		}
+
+		int cap = Math.max(n, records.capacity() * 2);
+		entities = Arrays.copyOf(entities, cap);
+		groupAnchor = Arrays.copyOf(groupAnchor, cap);
+		records.grow(cap);
+	}
+
+	/**
+	 * @return true if the records are kept outside the heap
+	 */
+	public boolean isOffHeap() {
+		return records instanceof DirectBodyRecords;
+	}
+
+	/**
+	 * @return bytes of records kept outside the heap, zero when on the heap
+	 */
+	public long getOffHeapBytes() {
+		return records.offHeapBytes();
+	}
+
+	/**
+	 * @return the number of bodies
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return a hash of the position, angle, velocities and flags of every body, equal
+	 * for two stores only if they hold bit for bit the same state
+	 */
+	public long stateHash() {
+		long h = 1125899906842597L;
+		for (int i = 0; i < size; i++) {
+			h = (31 * h) + Float.floatToIntBits(records.getPosX(i));
+			h = (31 * h) + Float.floatToIntBits(records.getPosY(i));
+			h = (31 * h) + Float.floatToIntBits(records.getVelX(i));
+			h = (31 * h) + Float.floatToIntBits(records.getVelY(i));
+			h = (31 * h) + Float.floatToIntBits(records.getAngle(i));
+			h = (31 * h) + Float.floatToIntBits(records.getAngularVel(i));
+			h = (31 * h) + records.getFlags(i);
+		}
+		return h;
+	}
+
+	/**
+	 * @return a number that changes whenever an entity leaves its slot, so slot
+	 * numbers kept from before may now mean another entity
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * @param i
+	 * @return the entity the slot belongs to
+	 */
+	public BasicPhysicsEntity getEntity(int i) {
+		return entities[i];
+	}
+
+	/**
+	 * @param i
+	 * @return the position x of the body
+	 */
+	public float getPositionX(int i) {
+		return records.getPosX(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the position y of the body
+	 */
+	public float getPositionY(int i) {
+		return records.getPosY(i);
+	}
+
+	/**
+	 * @param i
+	 * @param alpha 0 for the previous position, 1 for the current one
+	 * @return the position x of the body between its previous and current one
+	 */
+	public float getInterpolatedX(int i, float alpha) {
+		return records.getPrevX(i) + ((records.getPosX(i) - records.getPrevX(i)) * alpha);
+	}
+
+	/**
+	 * @param i
+	 * @param alpha 0 for the previous position, 1 for the current one
+	 * @return the position y of the body between its previous and current one
+	 */
+	public float getInterpolatedY(int i, float alpha) {
+		return records.getPrevY(i) + ((records.getPosY(i) - records.getPrevY(i)) * alpha);
+	}
+
+	/**
+	 * Sets the position of a body
+	 * @param i
+	 * @param x
+	 * @param y
+	 */
+	public void setPosition(int i, float x, float y) {
+		records.setPosX(i, x);
+		records.setPosY(i, y);
+	}
+
+	/**
+	 * @param i
+	 * @return the velocity x of the body
+	 */
+	public float getVelocityX(int i) {
+		return records.getVelX(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the velocity y of the body
+	 */
+	public float getVelocityY(int i) {
+		return records.getVelY(i);
+	}
+
+	/**
+	 * Sets the velocity of a body
+	 * @param i
+	 * @param x
+	 * @param y
+	 */
+	public void setVelocity(int i, float x, float y) {
+		records.setVelX(i, x);
+		records.setVelY(i, y);
+	}
+
+	/**
+	 * Adds to the velocity of a body
+	 * @param i
+	 * @param x
+	 * @param y
+	 */
+	public void addVelocity(int i, float x, float y) {
+		records.setVelX(i, records.getVelX(i) + x);
+		records.setVelY(i, records.getVelY(i) + y);
+	}
+
+	/**
+	 * @param i
+	 * @return the angle of the body in radians
+	 */
+	public float getAngle(int i) {
+		return records.getAngle(i);
+	}
+
+	/**
+	 * @param i
+	 * @param alpha 0 for the previous angle, 1 for the current one
+	 * @return the angle of the body between its previous and current one
+	 */
+	public float getInterpolatedAngle(int i, float alpha) {
+		return records.getPrevAngle(i) + ((records.getAngle(i) - records.getPrevAngle(i)) * alpha);
+	}
+
+	/**
+	 * Sets the angle of a body, with its cosine and sine
+	 * @param i
+	 * @param angle
+	 */
+	public void setAngle(int i, float angle) {
+		records.setAngle(i, angle);
+		records.setCos(i, (float) Math.cos(angle));
+		records.setSin(i, (float) Math.sin(angle));
+		updateExtents(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the cosine of the body's angle
+	 */
+	public float getCos(int i) {
+		return records.getCos(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the sine of the body's angle
+	 */
+	public float getSin(int i) {
+		return records.getSin(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the angular velocity of the body in radians a second
+	 */
+	public float getAngularVelocity(int i) {
+		return records.getAngularVel(i);
+	}
+
+	/**
+	 * Sets the angular velocity of a body
+	 * @param i
+	 * @param angularVelocity
+	 */
+	public void setAngularVelocity(int i, float angularVelocity) {
+		records.setAngularVel(i, angularVelocity);
+	}
+
+	/**
+	 * Adds to the angular velocity of a body
+	 * @param i
+	 * @param angularVelocity
+	 */
+	public void addAngularVelocity(int i, float angularVelocity) {
+		records.setAngularVel(i, records.getAngularVel(i) + angularVelocity);
+	}
+
+	/**
+	 * @param i
+	 * @return true if the body is frozen
+	 */
+	public boolean isFrozen(int i) {
+		return (records.getFlags(i) & FROZEN) != 0;
+	}
+
+	/**
+	 * Sets the frozen of a body
+	 * @param i
+	 * @param frozen
+	 */
+	public void setFrozen(int i, boolean frozen) {
+		records.setFlags(i, frozen ? (records.getFlags(i) | FROZEN) : (records.getFlags(i) & ~FROZEN));
+	}
+
+	/**
+	 * @param i
+	 * @return true if the body is a bullet
+	 */
+	public boolean isBullet(int i) {
+		return (records.getFlags(i) & BULLET) != 0;
+	}
+
+	/**
+	 * Sets the bullet of a body
+	 * @param i
+	 * @param bullet
+	 */
+	public void setBullet(int i, boolean bullet) {
+		records.setFlags(i, bullet ? (records.getFlags(i) | BULLET) : (records.getFlags(i) & ~BULLET));
+	}
+
+	/**
+	 * @param i
+	 * @return true if the body is sleeping
+	 */
+	public boolean isSleeping(int i) {
+		return (records.getFlags(i) & SLEEPING) != 0;
+	}
+
+	/**
+	 * @param i
+	 * @return true if the body is neither frozen nor sleeping
+	 */
+	public boolean isActive(int i) {
+		return (records.getFlags(i) & INACTIVE) == 0;
+	}
+
+	/**
+	 * Puts a body to sleep, stopping it
+	 * @param i
+	 * @param group bodies put to sleep together share a group and wake
+	 * together, a slot of the store such as the root of their island
+	 */
+	public void sleep(int i, int group) {
+		if ((records.getFlags(i) & SLEEPING) != 0) {
+			unlinkSleeping(i);
+		}
+
+		// join the ring of a body already asleep in the group, or start one
+		int anchor = groupAnchor[group];
+		if (anchor != i && (records.getFlags(anchor) & SLEEPING) != 0 && records.getSleepGroup(anchor) == group) {
+			records.setSleepNext(i, records.getSleepNext(anchor));
+			records.setSleepNext(anchor, i);
+		} else {
+			records.setSleepNext(i, i);
+			groupAnchor[group] = i;
+		}
+
+		records.setFlags(i, records.getFlags(i) | SLEEPING);
+		records.setSleepGroup(i, group);
+		records.setVelX(i, 0f);
+		records.setVelY(i, 0f);
+		records.setAngularVel(i, 0f);
+	}
+
+	/**
+	 * @param i
+	 * @return the group the body fell asleep with, only meaningful while it sleeps
+	 */
+	public int getSleepGroup(int i) {
+		return records.getSleepGroup(i);
+	}
+
+	/**
+	 * Wakes a body and every body that fell asleep with it
+	 * @param i
+	 */
+	public void wake(int i) {
+		records.setRestTime(i, 0f);
+		if ((records.getFlags(i) & SLEEPING) == 0) {
+			return;
+		}
+
+		int j = i;
+		do {
+			records.setFlags(j, records.getFlags(j) & ~SLEEPING);
+			records.setRestTime(j, 0f);
+			j = records.getSleepNext(j);
+		} while (j != i);
+	}
+
+	/**
+	 * Takes a sleeping body out of its group's ring, leaving its flags
+	 * @param i
+	 */
+	private void unlinkSleeping(int i) {
+		int next = records.getSleepNext(i);
+		int prev = i;
+		while (records.getSleepNext(prev) != i) {
+			prev = records.getSleepNext(prev);
+		}
+		records.setSleepNext(prev, next);
+		records.setSleepNext(i, i);
+
+		int group = records.getSleepGroup(i);
+		if (groupAnchor[group] == i) {
+			groupAnchor[group] = next;
+		}
+	}
+
+	/**
+	 * Wakes every body
+	 */
+	public void wakeAll() {
+		for (int i = 0; i < size; i++) {
+			records.setFlags(i, records.getFlags(i) & ~SLEEPING);
+			records.setRestTime(i, 0f);
+		}
+	}
+
+	/**
+	 * @param i
+	 * @return seconds the body has been moving slower than the sleep speed
+	 */
+	public float getRestTime(int i) {
+		return records.getRestTime(i);
+	}
+
+	/**
+	 * Sets the rest time of a body
+	 * @param i
+	 * @param restTime
+	 */
+	public void setRestTime(int i, float restTime) {
+		records.setRestTime(i, restTime);
+	}
+
+	/**
+	 * @param i
+	 * @return true if collisions can't move the body
+	 */
+	public boolean isStatic(int i) {
+		return (records.getFlags(i) & FROZEN) != 0 || records.getInvMass(i) == 0f;
+	}
+
+	/**
+	 * @param i
+	 * @return the inv mass of the body
+	 */
+	public float getInvMass(int i) {
+		return records.getInvMass(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the inverse moment of inertia of the body, zero if it can't turn
+	 */
+	public float getInvInertia(int i) {
+		return records.getInvInertia(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the restitution of the body
+	 */
+	public float getRestitution(int i) {
+		return records.getRestitution(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the static friction of the body
+	 */
+	public float getStaticFriction(int i) {
+		return records.getStaticFriction(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the dynamic friction of the body
+	 */
+	public float getDynamicFriction(int i) {
+		return records.getDynamicFriction(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the shape type of the body
+	 */
+	public int getShapeType(int i) {
+		return records.getShapeType(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the loose check radius of the body's shape
+	 */
+	public float getRadius(int i) {
+		return records.getRadius(i);
+	}
+
+	/**
+	 * @param i
+	 * @return half the width of the body's shape
+	 */
+	public float getExtentX(int i) {
+		return records.getExtentX(i);
+	}
+
+	/**
+	 * @param i
+	 * @return half the height of the body's shape
+	 */
+	public float getExtentY(int i) {
+		return records.getExtentY(i);
+	}
+
+}
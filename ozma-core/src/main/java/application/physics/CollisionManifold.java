@@ -0,0 +1,207 @@
+/**
+ * 
+ */
+package application.physics;
+
+import application.entity.BasicPhysicsEntity;
+import application.math.Vector2;
+
+/**
+ * @author Davis
+ *
+ * Where two bodies touch, written by the narrowphase. Manifolds are pooled and
+ * reset for each pair instead of created, see ManifoldPool.
+ */
+public class CollisionManifold {
+	
+	/**
+	 * Most points a pair touches at
+	 */
+	public static final int MAX_POINTS = 2;
+	
+	private BasicPhysicsEntity entityA;
+	private BasicPhysicsEntity entityB;
+	private float penDepth;
+	private final Vector2 normal;
+	private final Vector2[] contacts;
+	private int pointCount;
+	
+	// solver state per contact point, accumulated over the update and kept between updates by the contact cache
+	private final float[] normalImpulse;
+	private final float[] tangentImpulse;
+	private final float[] velocityBias;
+	private float normalOffset;
+
+	/**
+	 * Creates an empty manifold, see reset
+	 */
+	public CollisionManifold() {
+		super();
+		normal = new Vector2(0f, 1f);
+		contacts = new Vector2[MAX_POINTS];
+		for (int p = 0; p < MAX_POINTS; p++) {
+			contacts[p] = new Vector2();
+		}
+		normalImpulse = new float[MAX_POINTS];
+		tangentImpulse = new float[MAX_POINTS];
+		velocityBias = new float[MAX_POINTS];
+	}
+	
+	/**
+	 * Empties the manifold for a new pair
+	 * @param a
+	 * @param b
+	 */
+	public void reset(BasicPhysicsEntity a, BasicPhysicsEntity b) {
+		entityA = a;
+		entityB = b;
+		penDepth = 0f;
+		normal.set(0f, 1f);
+		pointCount = 0;
+		normalOffset = 0f;
+		for (int p = 0; p < MAX_POINTS; p++) {
+			normalImpulse[p] = 0f;
+			tangentImpulse[p] = 0f;
+			velocityBias[p] = 0f;
+		}
+	}
+	
+	/**
+	 * Removes the contact points, keeping the pair
+	 */
+	public void clearContacts() {
+		pointCount = 0;
+	}
+	
+	/**
+	 * Adds a point the bodies touch at, past MAX_POINTS the point is dropped
+	 * @param x
+	 * @param y
+	 */
+	public void addContact(float x, float y) {
+		if (pointCount < MAX_POINTS) {
+			contacts[pointCount++].set(x, y);
+		}
+	}
+
+	/**
+	 * @param x normal pointing from A to B
+	 * @param y
+	 */
+	public void setNormal(float x, float y) {
+		normal.set(x, y);
+	}
+
+	/**
+	 * @param penDepth the penDepth to set
+	 */
+	public void setPenDepth(float penDepth) {
+		this.penDepth = penDepth;
+	}
+
+	/**
+	 * @return the entityA
+	 */
+	public BasicPhysicsEntity getEntityA() {
+		return entityA;
+	}
+
+	/**
+	 * @return the entityB
+	 */
+	public BasicPhysicsEntity getEntityB() {
+		return entityB;
+	}
+
+	/**
+	 * @return the penDepth
+	 */
+	public float getPenDepth() {
+		return penDepth;
+	}
+
+	/**
+	 * @return the normal
+	 */
+	public Vector2 getNormal() {
+		return normal;
+	}
+
+	/**
+	 * @return the number of points the bodies touch at, up to MAX_POINTS
+	 */
+	public int getPointCount() {
+		return pointCount;
+	}
+
+	/**
+	 * @param point
+	 * @return where the bodies touch
+	 */
+	public Vector2 getContact(int point) {
+		return contacts[point];
+	}
+
+	/**
+	 * @param point
+	 * @return the normal impulse accumulated by the solver at the point
+	 */
+	public float getNormalImpulse(int point) {
+		return normalImpulse[point];
+	}
+
+	/**
+	 * @param point
+	 * @param normalImpulse the normalImpulse to set
+	 */
+	public void setNormalImpulse(int point, float normalImpulse) {
+		this.normalImpulse[point] = normalImpulse;
+	}
+
+	/**
+	 * @param point
+	 * @return the tangent impulse accumulated by the solver at the point
+	 */
+	public float getTangentImpulse(int point) {
+		return tangentImpulse[point];
+	}
+
+	/**
+	 * @param point
+	 * @param tangentImpulse the tangentImpulse to set
+	 */
+	public void setTangentImpulse(int point, float tangentImpulse) {
+		this.tangentImpulse[point] = tangentImpulse;
+	}
+
+	/**
+	 * @param point
+	 * @return the separating speed the solver aims for along the normal at the point
+	 */
+	public float getVelocityBias(int point) {
+		return velocityBias[point];
+	}
+
+	/**
+	 * @param point
+	 * @param velocityBias the velocityBias to set
+	 */
+	public void setVelocityBias(int point, float velocityBias) {
+		this.velocityBias[point] = velocityBias;
+	}
+
+	/**
+	 * @return how far B was from A along the normal when the solve started
+	 */
+	public float getNormalOffset() {
+		return normalOffset;
+	}
+
+	/**
+	 * @param normalOffset the normalOffset to set
+	 */
+	public void setNormalOffset(float normalOffset) {
+		this.normalOffset = normalOffset;
+	}
+
+}
@@ -0,0 +1,240 @@
+package application.physics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import application.physics.broadphase.PairSet;
+
+/**
+ * Remembers the impulses each touching pair ended the last update with, so the
+ * next update can start from them instead of from nothing. Every pair keeps the
+ * impulses of up to CollisionManifold.MAX_POINTS points, in the order the
+ * manifold gave them.
+ *
+ * Pairs are keyed by the body slots of the pair. There are two tables: the one
+ * written by the last update, which is only read during a solve and so can be
+ * read from several threads, and the one being filled by the current update.
+ * Ending an update swaps them, which also drops every pair that stopped
+ * touching.
+ */
+class ContactCache {
+
+	private static final int POINTS = CollisionManifold.MAX_POINTS;
+
+	private Table previous;
+	private Table current;
+
+	ContactCache() {
+		previous = new Table(64);
+		current = new Table(64);
+	}
+
+	/**
+	 * @param a body slot
+	 * @param b body slot
+	 * @return the slot of the pair in the last update, or -1 if it wasn't touching
+	 */
+	int find(int a, int b) {
+		return previous.find(PairSet.key(a, b));
+	}
+
+	/**
+	 * @param found from find
+	 * @param point
+	 * @return the accumulated normal impulse of the point in the last update
+	 */
+	float getNormalImpulse(int found, int point) {
+		return previous.normalImpulse[(found * POINTS) + point];
+	}
+
+	/**
+	 * @param found from find
+	 * @param point
+	 * @return the accumulated tangent impulse of the point in the last update
+	 */
+	float getTangentImpulse(int found, int point) {
+		return previous.tangentImpulse[(found * POINTS) + point];
+	}
+
+	/**
+	 * Keeps the impulses of a pair for the next update
+	 * @param a body slot
+	 * @param b body slot
+	 * @param cm the pair's manifold, points it doesn't have are kept as zero
+	 */
+	void store(int a, int b, CollisionManifold cm) {
+		int slot = current.put(PairSet.key(a, b));
+		for (int p = 0; p < POINTS; p++) {
+			boolean has = p < cm.getPointCount();
+			current.normalImpulse[(slot * POINTS) + p] = has ? cm.getNormalImpulse(p) : 0f;
+			current.tangentImpulse[(slot * POINTS) + p] = has ? cm.getTangentImpulse(p) : 0f;
+		}
+		current.growIfFull();
+	}
+
+	/**
+	 * Keeps the impulses a pair had in the last update for the next one too,
+	 * for pairs that weren't solved because both sides are asleep
+	 * @param a body slot
+	 * @param b body slot
+	 */
+	void carry(int a, int b) {
+		long key = PairSet.key(a, b);
+		int found = previous.find(key);
+		if (found >= 0) {
+			int slot = current.put(key);
+			System.arraycopy(previous.normalImpulse, found * POINTS, current.normalImpulse, slot * POINTS, POINTS);
+			System.arraycopy(previous.tangentImpulse, found * POINTS, current.tangentImpulse, slot * POINTS, POINTS);
+			current.growIfFull();
+		}
+	}
+
+	/**
+	 * Makes the pairs stored during this update the ones found by the next
+	 */
+	void endUpdate() {
+		Table t = previous;
+		previous = current;
+		current = t;
+		current.clear();
+	}
+
+	/**
+	 * Forgets every pair, needed whenever slots change hands
+	 */
+	void clear() {
+		previous.clear();
+		current.clear();
+	}
+
+	/**
+	 * @return the number of pairs carried into the next update
+	 */
+	int size() {
+		return previous.size;
+	}
+
+	/**
+	 * @return bytes written for each pair by write
+	 */
+	static int pairBytes() {
+		return Long.BYTES + (2 * POINTS * Float.BYTES);
+	}
+
+	/**
+	 * Writes the pairs carried into the next update, size of them
+	 * @param out
+	 */
+	void write(ByteBuffer out) {
+		Table t = previous;
+		for (int slot = 0; slot < t.keys.length; slot++) {
+			if (t.keys[slot] == PairSet.EMPTY) {
+				continue;
+			}
+
+			out.putLong(t.keys[slot]);
+			for (int p = 0; p < POINTS; p++) {
+				out.putFloat(t.normalImpulse[(slot * POINTS) + p]);
+				out.putFloat(t.tangentImpulse[(slot * POINTS) + p]);
+			}
+		}
+	}
+
+	/**
+	 * Replaces every pair with ones written by write, as if the last update
+	 * had stored them
+	 * @param in
+	 * @param pairs number of pairs to read
+	 */
+	void read(ByteBuffer in, int pairs) {
+		clear();
+		Table t = previous;
+		for (int i = 0; i < pairs; i++) {
+			int slot = t.put(in.getLong());
+			for (int p = 0; p < POINTS; p++) {
+				t.normalImpulse[(slot * POINTS) + p] = in.getFloat();
+				t.tangentImpulse[(slot * POINTS) + p] = in.getFloat();
+			}
+			t.growIfFull();
+		}
+	}
+
+	/**
+	 * Open addressing map from pair key to impulses, POINTS of each per slot
+	 */
+	private static class Table {
+		long[] keys;
+		float[] normalImpulse;
+		float[] tangentImpulse;
+		int mask;
+		int size;
+
+		Table(int slots) {
+			keys = new long[slots];
+			normalImpulse = new float[slots * POINTS];
+			tangentImpulse = new float[slots * POINTS];
+			mask = slots - 1;
+			Arrays.fill(keys, PairSet.EMPTY);
+		}
+
+		int find(long key) {
+			int slot = indexOf(key);
+			return keys[slot] == key ? slot : -1;
+		}
+
+		/**
+		 * Finds or adds the slot of a key, call growIfFull once its impulses are written
+		 */
+		int put(long key) {
+			int slot = indexOf(key);
+			if (keys[slot] != key) {
+				keys[slot] = key;
+				size++;
+			}
+			return slot;
+		}
+
+		void growIfFull() {
+			if (size * 2 > keys.length) {
+				grow();
+			}
+		}
+
+		void clear() {
+			if (size > 0) {
+				Arrays.fill(keys, PairSet.EMPTY);
+				size = 0;
+			}
+		}
+
+		private int indexOf(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			int slot = (int) (h >>> 32) & mask;
+			while (keys[slot] != PairSet.EMPTY && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			float[] oldNormal = normalImpulse;
+			float[] oldTangent = tangentImpulse;
+
+			keys = new long[oldKeys.length * 2];
+			normalImpulse = new float[keys.length * POINTS];
+			tangentImpulse = new float[keys.length * POINTS];
+			mask = keys.length - 1;
+			Arrays.fill(keys, PairSet.EMPTY);
+
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != PairSet.EMPTY) {
+					int slot = indexOf(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					System.arraycopy(oldNormal, i * POINTS, normalImpulse, slot * POINTS, POINTS);
+					System.arraycopy(oldTangent, i * POINTS, tangentImpulse, slot * POINTS, POINTS);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package application.physics;
+
+import java.util.List;
+
+/**
+ * Splits contacts into islands that share no moving entity, using union find
+ * over the colliding pairs.
+ *
+ * Static entities are never changed by impulses, so they don't join islands
+ * together: two piles resting on the same floor are still two islands. Islands
+ * can then be solved at the same time. Contacts keep their original order
+ * within an island, so solving an island gives exactly what solving the whole
+ * list in order would give for those entities.
+ *
+ * Entities are looked up by their slot in the engine's BodyStore.
+ */
+class ContactIslands {
+
+	// union find over the entities
+	private int[] parent;
+	private int[] rank;
+	private int[] islandOfRoot;
+
+	// island of each contact, -1 when neither side can move
+	private int[] contactIsland;
+
+	// contact indices grouped by island, island i holds islandStart[i] up to islandStart[i + 1]
+	private int[] islandStart;
+	private int[] islandContacts;
+	private int islandCount;
+
+	ContactIslands() {
+		parent = new int[0];
+		rank = new int[0];
+		islandOfRoot = new int[0];
+		contactIsland = new int[0];
+		islandStart = new int[1];
+		islandContacts = new int[0];
+	}
+
+	/**
+	 * Finds the islands of the contacts
+	 * @param bodies
+	 * @param contacts
+	 */
+	void build(BodyStore bodies, List<CollisionManifold> contacts) {
+		int bodyCount = bodies.size();
+		int m = contacts.size();
+		ensureBodies(bodyCount);
+		ensureContacts(m);
+
+		for (int i = 0; i < bodyCount; i++) {
+			parent[i] = i;
+			rank[i] = 0;
+			islandOfRoot[i] = -1;
+		}
+
+		for (int k = 0; k < m; k++) {
+			CollisionManifold cm = contacts.get(k);
+			int a = cm.getEntityA().getBodyIndex();
+			int b = cm.getEntityB().getBodyIndex();
+
+			if (!bodies.isStatic(a) && !bodies.isStatic(b)) {
+				union(a, b);
+			}
+		}
+
+		// number the islands in order of their first contact
+		islandCount = 0;
+		for (int k = 0; k < m; k++) {
+			CollisionManifold cm = contacts.get(k);
+			int a = cm.getEntityA().getBodyIndex();
+			int b = cm.getEntityB().getBodyIndex();
+			int body = !bodies.isStatic(a) ? a : b;
+
+			if (bodies.isStatic(body)) {
+				contactIsland[k] = -1;
+				continue;
+			}
+
+			int root = find(body);
+			if (islandOfRoot[root] == -1) {
+				islandOfRoot[root] = islandCount++;
+			}
+			contactIsland[k] = islandOfRoot[root];
+		}
+
+		groupContacts(m);
+	}
+
+	/**
+	 * @return the number of islands found by the last build
+	 */
+	int getIslandCount() {
+		return islandCount;
+	}
+
+	/**
+	 * @param island
+	 * @return position of the island's first contact in getContact
+	 */
+	int getIslandStart(int island) {
+		return islandStart[island];
+	}
+
+	/**
+	 * @param island
+	 * @return one past the position of the island's last contact
+	 */
+	int getIslandEnd(int island) {
+		return islandStart[island + 1];
+	}
+
+	/**
+	 * @param k position from getIslandStart up to getIslandEnd
+	 * @return index into the contact list
+	 */
+	int getContact(int k) {
+		return islandContacts[k];
+	}
+
+	/**
+	 * @param body slot of a body that can move
+	 * @return the slot standing for the island of the body in the last build,
+	 * the body itself when it touched nothing that moves
+	 */
+	int getRoot(int body) {
+		return find(body);
+	}
+
+	/**
+	 * Stable counting sort of the contacts by island
+	 * @param m
+	 */
+	private void groupContacts(int m) {
+		if (islandStart.length < islandCount + 1) {
+			islandStart = new int[Math.max(islandCount + 1, islandStart.length * 2)];
+		}
+
+		for (int i = 0; i <= islandCount; i++) {
+			islandStart[i] = 0;
+		}
+
+		for (int k = 0; k < m; k++) {
+			if (contactIsland[k] >= 0) {
+				islandStart[contactIsland[k] + 1]++;
+			}
+		}
+
+		for (int i = 0; i < islandCount; i++) {
+			islandStart[i + 1] += islandStart[i];
+		}
+
+		// islandStart is used as the fill position, then shifted back
+		for (int k = 0; k < m; k++) {
+			int island = contactIsland[k];
+			if (island >= 0) {
+				islandContacts[islandStart[island]++] = k;
+			}
+		}
+
+		for (int i = islandCount; i > 0; i--) {
+			islandStart[i] = islandStart[i - 1];
+		}
+		islandStart[0] = 0;
+	}
+
+	private int find(int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private void union(int a, int b) {
+		int ra = find(a);
+		int rb = find(b);
+		if (ra == rb) {
+			return;
+		}
+
+		if (rank[ra] < rank[rb]) {
+			parent[ra] = rb;
+		} else if (rank[ra] > rank[rb]) {
+			parent[rb] = ra;
+		} else {
+			parent[rb] = ra;
+			rank[ra]++;
+		}
+	}
+
+	private void ensureBodies(int n) {
+		if (parent.length >= n) {
+			return;
+		}
+
+		int size = Math.max(n, parent.length * 2);
+		parent = new int[size];
+		rank = new int[size];
+		islandOfRoot = new int[size];
+	}
+
+	private void ensureContacts(int m) {
+		if (contactIsland.length >= m) {
+			return;
+		}
+
+		int size = Math.max(m, contactIsland.length * 2);
+		contactIsland = new int[size];
+		islandContacts = new int[size];
+	}
+}
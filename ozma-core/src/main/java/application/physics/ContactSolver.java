@@ -0,0 +1,303 @@
+package application.physics;
+
+import application.math.Vector2;
+
+/**
+ * Sequential impulse solver for contacts.
+ *
+ * Each contact keeps the normal and tangent impulses it has applied so far.
+ * Every pass works out the impulse that would fix the current relative
+ * velocity, then clamps the total rather than the change: the normal impulse
+ * may only push, and friction may not go past the friction coefficient times
+ * the normal impulse. Contacts start each update from the impulses the contact
+ * cache kept from the last one, so bodies resting on each other keep most of
+ * the support they already had.
+ *
+ * The engine runs a number of velocity passes over all contacts, then a
+ * number of position passes. Position passes work out how deep each pair still
+ * is from how far its bodies have moved since the solve started, so running
+ * more of them doesn't push pairs apart further than they overlapped.
+ *
+ * Impulses act at the contact point, so a contact off the line between the
+ * centres turns the bodies as well. Position passes only move the bodies.
+ *
+ * Static bodies are treated as having no inverse mass and are never written,
+ * so contacts of different islands can be solved at the same time.
+ */
+class ContactSolver {
+
+	/**
+	 * Share of the remaining depth removed by each position pass
+	 */
+	private static final float CORRECTION_PERCENT = 0.2f;
+
+	/**
+	 * Furthest a single position pass moves a pair apart, so a deep overlap
+	 * is pushed out over a few updates instead of exploding
+	 */
+	private static final float MAX_CORRECTION = 4f;
+
+	/**
+	 * Depth that is left alone so resting contacts keep touching
+	 */
+	private static final float CORRECTION_SLOP = 0.5f;
+
+	/**
+	 * Contacts closing slower than this don't bounce, so resting bodies don't
+	 * jitter from gravity
+	 */
+	private static final float RESTITUTION_THRESHOLD = 4f;
+
+	private final BodyStore bodies;
+	private final ContactCache cache;
+
+	/**
+	 * @param bodies
+	 * @param cache
+	 */
+	ContactSolver(BodyStore bodies, ContactCache cache) {
+		this.bodies = bodies;
+		this.cache = cache;
+	}
+
+	/**
+	 * Works out the bounce of each point of the contact and where its bodies
+	 * start from. Every contact has to be prepared before any is warm started,
+	 * otherwise the impulses of one contact look like a closing speed to the
+	 * next.
+	 * @param cm
+	 */
+	void prepare(CollisionManifold cm) {
+		int a = cm.getEntityA().getBodyIndex();
+		int b = cm.getEntityB().getBodyIndex();
+		float nx = cm.getNormal().getX();
+		float ny = cm.getNormal().getY();
+		float e = Math.min(bodies.getRestitution(a), bodies.getRestitution(b));
+
+		for (int p = 0; p < cm.getPointCount(); p++) {
+			Vector2 c = cm.getContact(p);
+			float vn = Vector2.dot(relativeVelocityX(a, b, c), relativeVelocityY(a, b, c), nx, ny);
+			cm.setVelocityBias(p, vn < -RESTITUTION_THRESHOLD ? -e * vn : 0f);
+		}
+		cm.setNormalOffset(normalOffset(a, b, nx, ny));
+	}
+
+	/**
+	 * Applies the impulses the contact ended the last update with
+	 * @param cm
+	 */
+	void warmStart(CollisionManifold cm) {
+		int a = cm.getEntityA().getBodyIndex();
+		int b = cm.getEntityB().getBodyIndex();
+		float nx = cm.getNormal().getX();
+		float ny = cm.getNormal().getY();
+		int found = cache.find(a, b);
+
+		for (int p = 0; p < cm.getPointCount(); p++) {
+			float jn = found < 0 ? 0f : cache.getNormalImpulse(found, p);
+			float jt = found < 0 ? 0f : cache.getTangentImpulse(found, p);
+			cm.setNormalImpulse(p, jn);
+			cm.setTangentImpulse(p, jt);
+
+			// tangent is the normal turned a quarter
+			if (found >= 0) {
+				applyImpulse(a, b, cm.getContact(p), (nx * jn) - (ny * jt), (ny * jn) + (nx * jt));
+			}
+		}
+	}
+
+	/**
+	 * One pass over the velocity of each point of the contact, normal first
+	 * then friction
+	 * @param cm
+	 */
+	void solveVelocity(CollisionManifold cm) {
+		int a = cm.getEntityA().getBodyIndex();
+		int b = cm.getEntityB().getBodyIndex();
+		if (invMass(a) + invMass(b) == 0f) {
+			return;
+		}
+
+		float nx = cm.getNormal().getX();
+		float ny = cm.getNormal().getY();
+		float tx = -ny;
+		float ty = nx;
+		float staticFriction = combine(bodies.getStaticFriction(a), bodies.getStaticFriction(b));
+		float dynamicFriction = combine(bodies.getDynamicFriction(a), bodies.getDynamicFriction(b));
+
+		for (int p = 0; p < cm.getPointCount(); p++) {
+			Vector2 c = cm.getContact(p);
+
+			// normal, the total may only push the bodies apart
+			float vn = Vector2.dot(relativeVelocityX(a, b, c), relativeVelocityY(a, b, c), nx, ny);
+			float oldNormal = cm.getNormalImpulse(p);
+			float normalImpulse = Math.max(oldNormal + ((cm.getVelocityBias(p) - vn) / effectiveMass(a, b, c, nx, ny)), 0f);
+			cm.setNormalImpulse(p, normalImpulse);
+
+			float jn = normalImpulse - oldNormal;
+			applyImpulse(a, b, c, nx * jn, ny * jn);
+
+			// friction along the tangent, held by static friction until it slips
+			float vt = Vector2.dot(relativeVelocityX(a, b, c), relativeVelocityY(a, b, c), tx, ty);
+			float oldTangent = cm.getTangentImpulse(p);
+			float tangentImpulse = oldTangent - (vt / effectiveMass(a, b, c, tx, ty));
+
+			if (Math.abs(tangentImpulse) > staticFriction * normalImpulse) {
+				float dynamicLimit = dynamicFriction * normalImpulse;
+				tangentImpulse = Math.max(-dynamicLimit, Math.min(tangentImpulse, dynamicLimit));
+			}
+			cm.setTangentImpulse(p, tangentImpulse);
+
+			float jt = tangentImpulse - oldTangent;
+			applyImpulse(a, b, c, tx * jt, ty * jt);
+		}
+	}
+
+	/**
+	 * Moves the bodies apart by part of the depth they still overlap by, which
+	 * stops them slowly sinking into each other
+	 * @param cm
+	 */
+	void solvePosition(CollisionManifold cm) {
+		int a = cm.getEntityA().getBodyIndex();
+		int b = cm.getEntityB().getBodyIndex();
+		float invMassA = invMass(a);
+		float invMassB = invMass(b);
+		float k = invMassA + invMassB;
+		if (k == 0f) {
+			return;
+		}
+
+		float nx = cm.getNormal().getX();
+		float ny = cm.getNormal().getY();
+		float depth = cm.getPenDepth() - (normalOffset(a, b, nx, ny) - cm.getNormalOffset());
+
+		float correction = Math.min(Math.max(depth - CORRECTION_SLOP, 0f) * CORRECTION_PERCENT, MAX_CORRECTION) / k;
+		float cx = nx * correction;
+		float cy = ny * correction;
+
+		if (invMassA != 0f) {
+			bodies.setPosition(a, bodies.getPositionX(a) - (cx * invMassA), bodies.getPositionY(a) - (cy * invMassA));
+		}
+
+		if (invMassB != 0f) {
+			bodies.setPosition(b, bodies.getPositionX(b) + (cx * invMassB), bodies.getPositionY(b) + (cy * invMassB));
+		}
+	}
+
+	/**
+	 * Keeps the impulses of the contact for the next update
+	 * @param cm
+	 */
+	void store(CollisionManifold cm) {
+		cache.store(cm.getEntityA().getBodyIndex(), cm.getEntityB().getBodyIndex(), cm);
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @param nx
+	 * @param ny
+	 * @return how far b is from a along the normal
+	 */
+	private float normalOffset(int a, int b, float nx, float ny) {
+		return Vector2.dot(
+				bodies.getPositionX(b) - bodies.getPositionX(a),
+				bodies.getPositionY(b) - bodies.getPositionY(a),
+				nx, ny);
+	}
+
+	/**
+	 * Pushes b along the impulse and a against it, at a contact point
+	 * @param a
+	 * @param b
+	 * @param c
+	 * @param x
+	 * @param y
+	 */
+	private void applyImpulse(int a, int b, Vector2 c, float x, float y) {
+		float invMassA = invMass(a);
+		float invMassB = invMass(b);
+		float cx = c.getX();
+		float cy = c.getY();
+
+		if (invMassA != 0f) {
+			bodies.addVelocity(a, -x * invMassA, -y * invMassA);
+			bodies.addAngularVelocity(a, -invInertia(a)
+					* Vector2.cross(cx - bodies.getPositionX(a), cy - bodies.getPositionY(a), x, y));
+		}
+
+		if (invMassB != 0f) {
+			bodies.addVelocity(b, x * invMassB, y * invMassB);
+			bodies.addAngularVelocity(b, invInertia(b)
+					* Vector2.cross(cx - bodies.getPositionX(b), cy - bodies.getPositionY(b), x, y));
+		}
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @param c contact point
+	 * @return x of the velocity of b's point at the contact, relative to a's
+	 */
+	private float relativeVelocityX(int a, int b, Vector2 c) {
+		float cy = c.getY();
+		return (bodies.getVelocityX(b) - (bodies.getAngularVelocity(b) * (cy - bodies.getPositionY(b))))
+				- (bodies.getVelocityX(a) - (bodies.getAngularVelocity(a) * (cy - bodies.getPositionY(a))));
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @param c contact point
+	 * @return y of the velocity of b's point at the contact, relative to a's
+	 */
+	private float relativeVelocityY(int a, int b, Vector2 c) {
+		float cx = c.getX();
+		return (bodies.getVelocityY(b) + (bodies.getAngularVelocity(b) * (cx - bodies.getPositionX(b))))
+				- (bodies.getVelocityY(a) + (bodies.getAngularVelocity(a) * (cx - bodies.getPositionX(a))));
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @param c contact point
+	 * @param dirX
+	 * @param dirY
+	 * @return the inverse of the mass the pair resists an impulse along the
+	 * direction at the contact with, turning included
+	 */
+	private float effectiveMass(int a, int b, Vector2 c, float dirX, float dirY) {
+		float cx = c.getX();
+		float cy = c.getY();
+		float crossA = Vector2.cross(cx - bodies.getPositionX(a), cy - bodies.getPositionY(a), dirX, dirY);
+		float crossB = Vector2.cross(cx - bodies.getPositionX(b), cy - bodies.getPositionY(b), dirX, dirY);
+		return invMass(a) + invMass(b) + (invInertia(a) * crossA * crossA) + (invInertia(b) * crossB * crossB);
+	}
+
+	/**
+	 * @param i
+	 * @return the inverse mass of the body, zero when it is static
+	 */
+	private float invMass(int i) {
+		return bodies.isStatic(i) ? 0f : bodies.getInvMass(i);
+	}
+
+	/**
+	 * @param i
+	 * @return the inverse inertia of the body, zero when it is static
+	 */
+	private float invInertia(int i) {
+		return bodies.isStatic(i) ? 0f : bodies.getInvInertia(i);
+	}
+
+	/**
+	 * Combines the friction of two bodies
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	private static float combine(float a, float b) {
+		return (a * a) + (b * b);
+	}
+}
@@ -0,0 +1,291 @@
+package application.physics;
+
+import application.physics.broadphase.Broadphase;
+import application.physics.broadphase.QueryBuffer;
+import application.physics.shape.CircleShape;
+
+/**
+ * Swept collision for bodies that move far in one integration.
+ *
+ * A body moving more than its own size in one integration can start on one
+ * side of a thin body and end on the other without ever overlapping it, so the
+ * narrow phase never sees the pair. After the integration has moved every
+ * body, the fast ones are moved again from where they started, this time
+ * stopping at the first body in their way. The pair bounces, and the body
+ * carries on with the rest of the time, hitting at most maxSweeps bodies per
+ * integration. Only the fast bodies are done in these smaller steps, the rest
+ * of the world keeps the engine's timestep.
+ *
+ * Circles sweep against circles exactly. Everything else is swept as its
+ * bounding box, which stops a circle slightly early next to a box corner; the
+ * narrow phase of the next update closes the gap.
+ *
+ * Other bodies are taken where the integration left them, so a fast body
+ * chasing a moving one sees it where it ends up rather than where it passes.
+ * They are found with a query of the broadphase around the path, grown by how
+ * far bodies moved since the broadphase saw them.
+ */
+class ContinuousCollision {
+
+	/**
+	 * Gap left between a swept body and the body it hit, so the pair isn't
+	 * found overlapping straight away
+	 */
+	private static final float SKIN = 0.05f;
+
+	private final BodyStore bodies;
+	private final QueryBuffer candidates;
+
+	// the earliest hit of the last sweep
+	private int hitBody;
+	private float hitTime;
+	private float hitNormalX;
+	private float hitNormalY;
+
+	/**
+	 * @param bodies
+	 */
+	ContinuousCollision(BodyStore bodies) {
+		this.bodies = bodies;
+		candidates = new QueryBuffer();
+	}
+
+	/**
+	 * @param i
+	 * @param delta seconds of the integration
+	 * @param threshold share of its smallest half size a body has to move to
+	 * be swept
+	 * @return true if the body is a bullet or moved far enough to be swept
+	 */
+	boolean isFast(int i, float delta, float threshold) {
+		if (!bodies.isActive(i)) {
+			return false;
+		}
+
+		if (bodies.isBullet(i)) {
+			return true;
+		}
+
+		float dx = bodies.getVelocityX(i) * delta;
+		float dy = bodies.getVelocityY(i) * delta;
+		float limit = Math.min(bodies.getExtentX(i), bodies.getExtentY(i)) * threshold;
+		return (dx * dx) + (dy * dy) > limit * limit;
+	}
+
+	/**
+	 * Moves a body that the integration already moved again from where it
+	 * started, stopping and bouncing at every body in its way
+	 * @param i
+	 * @param delta seconds of the integration
+	 * @param maxSweeps most bodies hit before the rest of the time is dropped
+	 * @param broadphase the broadphase of the last update, to find the bodies near the path
+	 */
+	void sweep(int i, float delta, int maxSweeps, Broadphase broadphase) {
+		// where move took it from, after the solver's position pass, which the
+		// positions saved at the start of the update are from before
+		float x = bodies.getPositionX(i) - bodies.getMoveX(i, delta);
+		float y = bodies.getPositionY(i) - bodies.getMoveY(i, delta);
+		float remaining = delta;
+
+		for (int s = 0; s < maxSweeps && remaining > 0f; s++) {
+			float dx = bodies.getVelocityX(i) * remaining;
+			float dy = bodies.getVelocityY(i) * remaining;
+
+			if (!findHit(i, x, y, dx, dy, broadphase)) {
+				x += dx;
+				y += dy;
+				remaining = 0f;
+				break;
+			}
+
+			// back off along the path so the pair ends up just apart
+			float length = (float) Math.sqrt((dx * dx) + (dy * dy));
+			float t = Math.max(0f, hitTime - (SKIN / length));
+			x += dx * t;
+			y += dy * t;
+			remaining -= remaining * hitTime;
+
+			bounce(i, hitBody, hitNormalX, hitNormalY);
+		}
+
+		bodies.setPosition(i, x, y);
+	}
+
+	/**
+	 * Finds the first body hit by a body moving along a path
+	 * @param i
+	 * @param x where the body starts
+	 * @param y
+	 * @param dx how far it moves
+	 * @param dy
+	 * @param broadphase
+	 * @return true if something is hit, see hitBody, hitTime and the normal
+	 */
+	private boolean findHit(int i, float x, float y, float dx, float dy, Broadphase broadphase) {
+		float ex = bodies.getExtentX(i);
+		float ey = bodies.getExtentY(i);
+		float minX = Math.min(x, x + dx) - ex;
+		float maxX = Math.max(x, x + dx) + ex;
+		float minY = Math.min(y, y + dy) - ey;
+		float maxY = Math.max(y, y + dy) + ey;
+		boolean circle = bodies.getShapeType(i) == CircleShape.TYPE_ID;
+
+		hitBody = -1;
+		hitTime = 1f;
+
+		float drift = bodies.getDrift();
+		candidates.clear();
+		broadphase.query(bodies, minX - drift, minY - drift, maxX + drift, maxY + drift, candidates);
+
+		for (int k = 0; k < candidates.size(); k++) {
+			int j = candidates.get(k);
+			if (j == i) {
+				continue;
+			}
+
+			float cx = bodies.getPositionX(j);
+			float cy = bodies.getPositionY(j);
+			float hx = bodies.getExtentX(j);
+			float hy = bodies.getExtentY(j);
+
+			if (cx + hx < minX || cx - hx > maxX || cy + hy < minY || cy - hy > maxY) {
+				continue;
+			}
+
+			if (circle && bodies.getShapeType(j) == CircleShape.TYPE_ID) {
+				sweepCircle(j, x - cx, y - cy, dx, dy, ex + hx);
+			} else {
+				sweepBox(j, x - cx, y - cy, dx, dy, ex + hx, ey + hy);
+			}
+		}
+
+		return hitBody >= 0;
+	}
+
+	/**
+	 * Sweeps a point against a circle around the origin, keeping the hit if it
+	 * is earlier than the one found so far. Paths starting inside don't count,
+	 * the narrow phase already has those.
+	 * @param j the body the circle stands for
+	 * @param rx start of the point relative to the body
+	 * @param ry
+	 * @param dx
+	 * @param dy
+	 * @param r radius of both circles together
+	 */
+	private void sweepCircle(int j, float rx, float ry, float dx, float dy, float r) {
+		float c = (rx * rx) + (ry * ry) - (r * r);
+		if (c <= 0f) {
+			return;
+		}
+
+		float a = (dx * dx) + (dy * dy);
+		float b = (rx * dx) + (ry * dy);
+		float disc = (b * b) - (a * c);
+		if (b >= 0f || disc < 0f) {
+			return;
+		}
+
+		float t = (-b - (float) Math.sqrt(disc)) / a;
+		if (t < hitTime || (t == hitTime && j < hitBody)) {
+			hitBody = j;
+			hitTime = t;
+			hitNormalX = (rx + (dx * t)) / r;
+			hitNormalY = (ry + (dy * t)) / r;
+		}
+	}
+
+	/**
+	 * Sweeps a point against a box around the origin, keeping the hit if it
+	 * is earlier than the one found so far. Paths starting inside don't count.
+	 * @param j the body the box stands for
+	 * @param rx start of the point relative to the body
+	 * @param ry
+	 * @param dx
+	 * @param dy
+	 * @param hx half size of both boxes together
+	 * @param hy
+	 */
+	private void sweepBox(int j, float rx, float ry, float dx, float dy, float hx, float hy) {
+		if (Math.abs(rx) < hx && Math.abs(ry) < hy) {
+			return;
+		}
+
+		float enter = 0f;
+		float exit = 1f;
+		float nx = 0f;
+		float ny = 0f;
+
+		if (dx == 0f) {
+			if (Math.abs(rx) >= hx) {
+				return;
+			}
+		} else {
+			float near = (-Math.signum(dx) * hx - rx) / dx;
+			float far = (Math.signum(dx) * hx - rx) / dx;
+			if (near > enter) {
+				enter = near;
+				nx = -Math.signum(dx);
+			}
+			exit = Math.min(exit, far);
+		}
+
+		if (dy == 0f) {
+			if (Math.abs(ry) >= hy) {
+				return;
+			}
+		} else {
+			float near = (-Math.signum(dy) * hy - ry) / dy;
+			float far = (Math.signum(dy) * hy - ry) / dy;
+			if (near > enter) {
+				enter = near;
+				nx = 0f;
+				ny = -Math.signum(dy);
+			}
+			exit = Math.min(exit, far);
+		}
+
+		// ties go to the lowest slot, whatever order the broadphase found them in
+		if (enter > exit || (nx == 0f && ny == 0f) || enter > hitTime || (enter == hitTime && j > hitBody)) {
+			return;
+		}
+
+		hitBody = j;
+		hitTime = enter;
+		hitNormalX = nx;
+		hitNormalY = ny;
+	}
+
+	/**
+	 * Takes the closing speed out of a swept body and the body it hit, plus
+	 * the bounce, the way one normal impulse of the solver would
+	 * @param a the swept body
+	 * @param b the body hit
+	 * @param nx normal pointing from b to a
+	 * @param ny
+	 */
+	private void bounce(int a, int b, float nx, float ny) {
+		float vn = ((bodies.getVelocityX(a) - bodies.getVelocityX(b)) * nx)
+				+ ((bodies.getVelocityY(a) - bodies.getVelocityY(b)) * ny);
+		if (vn >= 0f) {
+			return;
+		}
+
+		float invMassA = bodies.getInvMass(a);
+		float invMassB = bodies.isStatic(b) ? 0f : bodies.getInvMass(b);
+		if (invMassA + invMassB == 0f) {
+			invMassA = 1f;
+		}
+
+		float e = Math.min(bodies.getRestitution(a), bodies.getRestitution(b));
+		float j = (-(1f + e) * vn) / (invMassA + invMassB);
+		bodies.addVelocity(a, nx * j * invMassA, ny * j * invMassA);
+
+		if (invMassB != 0f) {
+			if (bodies.isSleeping(b)) {
+				bodies.wake(b);
+			}
+			bodies.addVelocity(b, -nx * j * invMassB, -ny * j * invMassB);
+		}
+	}
+}
@@ -0,0 +1,358 @@
+package application.physics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Body records outside the heap, in one direct buffer of fixed size records
+ * in slot order. Every field is a float or int in the platform's byte order,
+ * read through float and int views of the buffer at the index below. The
+ * garbage collector sees a single buffer however many bodies there are, and
+ * all of a body's fields share two cache lines at most.
+ */
+class DirectBodyRecords implements BodyRecords {
+
+	// indices of the fields in a record, in four byte units
+	private static final int POS_X = 0;
+	private static final int POS_Y = 1;
+	private static final int PREV_X = 2;
+	private static final int PREV_Y = 3;
+	private static final int VEL_X = 4;
+	private static final int VEL_Y = 5;
+	private static final int ANGLE = 6;
+	private static final int PREV_ANGLE = 7;
+	private static final int ANGULAR_VEL = 8;
+	private static final int COS = 9;
+	private static final int SIN = 10;
+	private static final int REST_TIME = 11;
+	private static final int INV_MASS = 12;
+	private static final int INV_INERTIA = 13;
+	private static final int RESTITUTION = 14;
+	private static final int STATIC_FRICTION = 15;
+	private static final int DYNAMIC_FRICTION = 16;
+	private static final int RADIUS = 17;
+	private static final int HALF_WIDTH = 18;
+	private static final int HALF_HEIGHT = 19;
+	private static final int EXTENT_X = 20;
+	private static final int EXTENT_Y = 21;
+	private static final int FLAGS = 22;
+	private static final int SLEEP_GROUP = 23;
+	private static final int SLEEP_NEXT = 24;
+	private static final int SHAPE_TYPE = 25;
+
+	/**
+	 * Bytes of each body's record
+	 */
+	static final int RECORD_BYTES = 104;
+
+	// fields in each record
+	private static final int STRIDE = RECORD_BYTES / 4;
+
+	private ByteBuffer records;
+	private FloatBuffer floats;
+	private IntBuffer ints;
+	private int capacity;
+
+	DirectBodyRecords() {
+		records = ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder());
+		floats = records.asFloatBuffer();
+		ints = records.asIntBuffer();
+	}
+
+	@Override
+	public float getPosX(int i) {
+		return floats.get((i * STRIDE) + POS_X);
+	}
+
+	@Override
+	public void setPosX(int i, float value) {
+		floats.put((i * STRIDE) + POS_X, value);
+	}
+
+	@Override
+	public float getPosY(int i) {
+		return floats.get((i * STRIDE) + POS_Y);
+	}
+
+	@Override
+	public void setPosY(int i, float value) {
+		floats.put((i * STRIDE) + POS_Y, value);
+	}
+
+	@Override
+	public float getPrevX(int i) {
+		return floats.get((i * STRIDE) + PREV_X);
+	}
+
+	@Override
+	public void setPrevX(int i, float value) {
+		floats.put((i * STRIDE) + PREV_X, value);
+	}
+
+	@Override
+	public float getPrevY(int i) {
+		return floats.get((i * STRIDE) + PREV_Y);
+	}
+
+	@Override
+	public void setPrevY(int i, float value) {
+		floats.put((i * STRIDE) + PREV_Y, value);
+	}
+
+	@Override
+	public float getVelX(int i) {
+		return floats.get((i * STRIDE) + VEL_X);
+	}
+
+	@Override
+	public void setVelX(int i, float value) {
+		floats.put((i * STRIDE) + VEL_X, value);
+	}
+
+	@Override
+	public float getVelY(int i) {
+		return floats.get((i * STRIDE) + VEL_Y);
+	}
+
+	@Override
+	public void setVelY(int i, float value) {
+		floats.put((i * STRIDE) + VEL_Y, value);
+	}
+
+	@Override
+	public float getAngle(int i) {
+		return floats.get((i * STRIDE) + ANGLE);
+	}
+
+	@Override
+	public void setAngle(int i, float value) {
+		floats.put((i * STRIDE) + ANGLE, value);
+	}
+
+	@Override
+	public float getPrevAngle(int i) {
+		return floats.get((i * STRIDE) + PREV_ANGLE);
+	}
+
+	@Override
+	public void setPrevAngle(int i, float value) {
+		floats.put((i * STRIDE) + PREV_ANGLE, value);
+	}
+
+	@Override
+	public float getAngularVel(int i) {
+		return floats.get((i * STRIDE) + ANGULAR_VEL);
+	}
+
+	@Override
+	public void setAngularVel(int i, float value) {
+		floats.put((i * STRIDE) + ANGULAR_VEL, value);
+	}
+
+	@Override
+	public float getCos(int i) {
+		return floats.get((i * STRIDE) + COS);
+	}
+
+	@Override
+	public void setCos(int i, float value) {
+		floats.put((i * STRIDE) + COS, value);
+	}
+
+	@Override
+	public float getSin(int i) {
+		return floats.get((i * STRIDE) + SIN);
+	}
+
+	@Override
+	public void setSin(int i, float value) {
+		floats.put((i * STRIDE) + SIN, value);
+	}
+
+	@Override
+	public float getRestTime(int i) {
+		return floats.get((i * STRIDE) + REST_TIME);
+	}
+
+	@Override
+	public void setRestTime(int i, float value) {
+		floats.put((i * STRIDE) + REST_TIME, value);
+	}
+
+	@Override
+	public float getInvMass(int i) {
+		return floats.get((i * STRIDE) + INV_MASS);
+	}
+
+	@Override
+	public void setInvMass(int i, float value) {
+		floats.put((i * STRIDE) + INV_MASS, value);
+	}
+
+	@Override
+	public float getInvInertia(int i) {
+		return floats.get((i * STRIDE) + INV_INERTIA);
+	}
+
+	@Override
+	public void setInvInertia(int i, float value) {
+		floats.put((i * STRIDE) + INV_INERTIA, value);
+	}
+
+	@Override
+	public float getRestitution(int i) {
+		return floats.get((i * STRIDE) + RESTITUTION);
+	}
+
+	@Override
+	public void setRestitution(int i, float value) {
+		floats.put((i * STRIDE) + RESTITUTION, value);
+	}
+
+	@Override
+	public float getStaticFriction(int i) {
+		return floats.get((i * STRIDE) + STATIC_FRICTION);
+	}
+
+	@Override
+	public void setStaticFriction(int i, float value) {
+		floats.put((i * STRIDE) + STATIC_FRICTION, value);
+	}
+
+	@Override
+	public float getDynamicFriction(int i) {
+		return floats.get((i * STRIDE) + DYNAMIC_FRICTION);
+	}
+
+	@Override
+	public void setDynamicFriction(int i, float value) {
+		floats.put((i * STRIDE) + DYNAMIC_FRICTION, value);
+	}
+
+	@Override
+	public float getRadius(int i) {
+		return floats.get((i * STRIDE) + RADIUS);
+	}
+
+	@Override
+	public void setRadius(int i, float value) {
+		floats.put((i * STRIDE) + RADIUS, value);
+	}
+
+	@Override
+	public float getHalfWidth(int i) {
+		return floats.get((i * STRIDE) + HALF_WIDTH);
+	}
+
+	@Override
+	public void setHalfWidth(int i, float value) {
+		floats.put((i * STRIDE) + HALF_WIDTH, value);
+	}
+
+	@Override
+	public float getHalfHeight(int i) {
+		return floats.get((i * STRIDE) + HALF_HEIGHT);
+	}
+
+	@Override
+	public void setHalfHeight(int i, float value) {
+		floats.put((i * STRIDE) + HALF_HEIGHT, value);
+	}
+
+	@Override
+	public float getExtentX(int i) {
+		return floats.get((i * STRIDE) + EXTENT_X);
+	}
+
+	@Override
+	public void setExtentX(int i, float value) {
+		floats.put((i * STRIDE) + EXTENT_X, value);
+	}
+
+	@Override
+	public float getExtentY(int i) {
+		return floats.get((i * STRIDE) + EXTENT_Y);
+	}
+
+	@Override
+	public void setExtentY(int i, float value) {
+		floats.put((i * STRIDE) + EXTENT_Y, value);
+	}
+
+	@Override
+	public int getFlags(int i) {
+		return ints.get((i * STRIDE) + FLAGS);
+	}
+
+	@Override
+	public void setFlags(int i, int value) {
+		ints.put((i * STRIDE) + FLAGS, value);
+	}
+
+	@Override
+	public int getSleepGroup(int i) {
+		return ints.get((i * STRIDE) + SLEEP_GROUP);
+	}
+
+	@Override
+	public void setSleepGroup(int i, int value) {
+		ints.put((i * STRIDE) + SLEEP_GROUP, value);
+	}
+
+	@Override
+	public int getSleepNext(int i) {
+		return ints.get((i * STRIDE) + SLEEP_NEXT);
+	}
+
+	@Override
+	public void setSleepNext(int i, int value) {
+		ints.put((i * STRIDE) + SLEEP_NEXT, value);
+	}
+
+	@Override
+	public int getShapeType(int i) {
+		return ints.get((i * STRIDE) + SHAPE_TYPE);
+	}
+
+	@Override
+	public void setShapeType(int i, int value) {
+		ints.put((i * STRIDE) + SHAPE_TYPE, value);
+	}
+
+	@Override
+	public void savePositions(int start, int end) {
+		for (int i = start; i < end; i++) {
+			int record = i * STRIDE;
+			floats.put(record + PREV_X, floats.get(record + POS_X));
+			floats.put(record + PREV_Y, floats.get(record + POS_Y));
+			floats.put(record + PREV_ANGLE, floats.get(record + ANGLE));
+		}
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public void grow(int capacity) {
+		long bytes = (long) capacity * RECORD_BYTES;
+		if (bytes > Integer.MAX_VALUE) {
+			throw new IllegalStateException("too many bodies for off heap records: " + capacity);
+		}
+
+		ByteBuffer grown = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+		grown.put(records.duplicate().clear()).clear();
+		records = grown;
+		floats = records.asFloatBuffer();
+		ints = records.asIntBuffer();
+		this.capacity = capacity;
+	}
+
+	@Override
+	public long offHeapBytes() {
+		return records.capacity();
+	}
+}
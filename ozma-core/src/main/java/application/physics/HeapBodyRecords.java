@@ -0,0 +1,375 @@
+package application.physics;
+
+import java.util.Arrays;
+
+/**
+ * Body records on the heap, one array per field so a loop over one field of
+ * many bodies walks memory in order
+ */
+class HeapBodyRecords implements BodyRecords {
+
+	private float[] posX;
+	private float[] posY;
+	private float[] prevX;
+	private float[] prevY;
+	private float[] velX;
+	private float[] velY;
+	private float[] angle;
+	private float[] prevAngle;
+	private float[] angularVel;
+	private float[] cos;
+	private float[] sin;
+	private float[] restTime;
+	private float[] invMass;
+	private float[] invInertia;
+	private float[] restitution;
+	private float[] staticFriction;
+	private float[] dynamicFriction;
+	private float[] radius;
+	private float[] halfWidth;
+	private float[] halfHeight;
+	private float[] extentX;
+	private float[] extentY;
+	private int[] flags;
+	private int[] sleepGroup;
+	private int[] sleepNext;
+	private int[] shapeType;
+	private int capacity;
+
+	HeapBodyRecords() {
+		posX = new float[0];
+		posY = new float[0];
+		prevX = new float[0];
+		prevY = new float[0];
+		velX = new float[0];
+		velY = new float[0];
+		angle = new float[0];
+		prevAngle = new float[0];
+		angularVel = new float[0];
+		cos = new float[0];
+		sin = new float[0];
+		restTime = new float[0];
+		invMass = new float[0];
+		invInertia = new float[0];
+		restitution = new float[0];
+		staticFriction = new float[0];
+		dynamicFriction = new float[0];
+		radius = new float[0];
+		halfWidth = new float[0];
+		halfHeight = new float[0];
+		extentX = new float[0];
+		extentY = new float[0];
+		flags = new int[0];
+		sleepGroup = new int[0];
+		sleepNext = new int[0];
+		shapeType = new int[0];
+	}
+
+	@Override
+	public float getPosX(int i) {
+		return posX[i];
+	}
+
+	@Override
+	public void setPosX(int i, float value) {
+		posX[i] = value;
+	}
+
+	@Override
+	public float getPosY(int i) {
+		return posY[i];
+	}
+
+	@Override
+	public void setPosY(int i, float value) {
+		posY[i] = value;
+	}
+
+	@Override
+	public float getPrevX(int i) {
+		return prevX[i];
+	}
+
+	@Override
+	public void setPrevX(int i, float value) {
+		prevX[i] = value;
+	}
+
+	@Override
+	public float getPrevY(int i) {
+		return prevY[i];
+	}
+
+	@Override
+	public void setPrevY(int i, float value) {
+		prevY[i] = value;
+	}
+
+	@Override
+	public float getVelX(int i) {
+		return velX[i];
+	}
+
+	@Override
+	public void setVelX(int i, float value) {
+		velX[i] = value;
+	}
+
+	@Override
+	public float getVelY(int i) {
+		return velY[i];
+	}
+
+	@Override
+	public void setVelY(int i, float value) {
+		velY[i] = value;
+	}
+
+	@Override
+	public float getAngle(int i) {
+		return angle[i];
+	}
+
+	@Override
+	public void setAngle(int i, float value) {
+		angle[i] = value;
+	}
+
+	@Override
+	public float getPrevAngle(int i) {
+		return prevAngle[i];
+	}
+
+	@Override
+	public void setPrevAngle(int i, float value) {
+		prevAngle[i] = value;
+	}
+
+	@Override
+	public float getAngularVel(int i) {
+		return angularVel[i];
+	}
+
+	@Override
+	public void setAngularVel(int i, float value) {
+		angularVel[i] = value;
+	}
+
+	@Override
+	public float getCos(int i) {
+		return cos[i];
+	}
+
+	@Override
+	public void setCos(int i, float value) {
+		cos[i] = value;
+	}
+
+	@Override
+	public float getSin(int i) {
+		return sin[i];
+	}
+
+	@Override
+	public void setSin(int i, float value) {
+		sin[i] = value;
+	}
+
+	@Override
+	public float getRestTime(int i) {
+		return restTime[i];
+	}
+
+	@Override
+	public void setRestTime(int i, float value) {
+		restTime[i] = value;
+	}
+
+	@Override
+	public float getInvMass(int i) {
+		return invMass[i];
+	}
+
+	@Override
+	public void setInvMass(int i, float value) {
+		invMass[i] = value;
+	}
+
+	@Override
+	public float getInvInertia(int i) {
+		return invInertia[i];
+	}
+
+	@Override
+	public void setInvInertia(int i, float value) {
+		invInertia[i] = value;
+	}
+
+	@Override
+	public float getRestitution(int i) {
+		return restitution[i];
+	}
+
+	@Override
+	public void setRestitution(int i, float value) {
+		restitution[i] = value;
+	}
+
+	@Override
+	public float getStaticFriction(int i) {
+		return staticFriction[i];
+	}
+
+	@Override
+	public void setStaticFriction(int i, float value) {
+		staticFriction[i] = value;
+	}
+
+	@Override
+	public float getDynamicFriction(int i) {
+		return dynamicFriction[i];
+	}
+
+	@Override
+	public void setDynamicFriction(int i, float value) {
+		dynamicFriction[i] = value;
+	}
+
+	@Override
+	public float getRadius(int i) {
+		return radius[i];
+	}
+
+	@Override
+	public void setRadius(int i, float value) {
+		radius[i] = value;
+	}
+
+	@Override
+	public float getHalfWidth(int i) {
+		return halfWidth[i];
+	}
+
+	@Override
+	public void setHalfWidth(int i, float value) {
+		halfWidth[i] = value;
+	}
+
+	@Override
+	public float getHalfHeight(int i) {
+		return halfHeight[i];
+	}
+
+	@Override
+	public void setHalfHeight(int i, float value) {
+		halfHeight[i] = value;
+	}
+
+	@Override
+	public float getExtentX(int i) {
+		return extentX[i];
+	}
+
+	@Override
+	public void setExtentX(int i, float value) {
+		extentX[i] = value;
+	}
+
+	@Override
+	public float getExtentY(int i) {
+		return extentY[i];
+	}
+
+	@Override
+	public void setExtentY(int i, float value) {
+		extentY[i] = value;
+	}
+
+	@Override
+	public int getFlags(int i) {
+		return flags[i];
+	}
+
+	@Override
+	public void setFlags(int i, int value) {
+		flags[i] = value;
+	}
+
+	@Override
+	public int getSleepGroup(int i) {
+		return sleepGroup[i];
+	}
+
+	@Override
+	public void setSleepGroup(int i, int value) {
+		sleepGroup[i] = value;
+	}
+
+	@Override
+	public int getSleepNext(int i) {
+		return sleepNext[i];
+	}
+
+	@Override
+	public void setSleepNext(int i, int value) {
+		sleepNext[i] = value;
+	}
+
+	@Override
+	public int getShapeType(int i) {
+		return shapeType[i];
+	}
+
+	@Override
+	public void setShapeType(int i, int value) {
+		shapeType[i] = value;
+	}
+
+	@Override
+	public void savePositions(int start, int end) {
+		System.arraycopy(posX, start, prevX, start, end - start);
+		System.arraycopy(posY, start, prevY, start, end - start);
+		System.arraycopy(angle, start, prevAngle, start, end - start);
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public void grow(int capacity) {
+		posX = Arrays.copyOf(posX, capacity);
+		posY = Arrays.copyOf(posY, capacity);
+		prevX = Arrays.copyOf(prevX, capacity);
+		prevY = Arrays.copyOf(prevY, capacity);
+		velX = Arrays.copyOf(velX, capacity);
+		velY = Arrays.copyOf(velY, capacity);
+		angle = Arrays.copyOf(angle, capacity);
+		prevAngle = Arrays.copyOf(prevAngle, capacity);
+		angularVel = Arrays.copyOf(angularVel, capacity);
+		cos = Arrays.copyOf(cos, capacity);
+		sin = Arrays.copyOf(sin, capacity);
+		restTime = Arrays.copyOf(restTime, capacity);
+		invMass = Arrays.copyOf(invMass, capacity);
+		invInertia = Arrays.copyOf(invInertia, capacity);
+		restitution = Arrays.copyOf(restitution, capacity);
+		staticFriction = Arrays.copyOf(staticFriction, capacity);
+		dynamicFriction = Arrays.copyOf(dynamicFriction, capacity);
+		radius = Arrays.copyOf(radius, capacity);
+		halfWidth = Arrays.copyOf(halfWidth, capacity);
+		halfHeight = Arrays.copyOf(halfHeight, capacity);
+		extentX = Arrays.copyOf(extentX, capacity);
+		extentY = Arrays.copyOf(extentY, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		sleepGroup = Arrays.copyOf(sleepGroup, capacity);
+		sleepNext = Arrays.copyOf(sleepNext, capacity);
+		shapeType = Arrays.copyOf(shapeType, capacity);
+		this.capacity = capacity;
+	}
+
+	@Override
+	public long offHeapBytes() {
+		return 0L;
+	}
+}
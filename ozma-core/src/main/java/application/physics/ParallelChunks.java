@@ -0,0 +1,100 @@
+package application.physics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits work into a fixed number of chunks and runs them on a fork join pool.
+ * 
+ * The chunks only depend on how much work there is and how big the pool is,
+ * never on which thread runs what, so work that writes each chunk to its own
+ * buffer and merges them in chunk order gives the same result every time.
+ */
+public final class ParallelChunks {
+
+	/**
+	 * Chunks per thread, a few so idle threads can steal
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Work done for one chunk
+	 */
+	public interface ChunkWork {
+
+		/**
+		 * @param chunk index of the chunk
+		 * @param start first item of the chunk
+		 * @param end one past the last item of the chunk
+		 */
+		void run(int chunk, int start, int end);
+	}
+
+	private ParallelChunks() {
+	}
+
+	/**
+	 * Number of chunks to split the items into
+	 * 
+	 * @param pool
+	 * @param items
+	 * @param minChunkSize smallest chunk worth handing to another thread
+	 * @return at least 1
+	 */
+	public static int chunkCount(ForkJoinPool pool, int items, int minChunkSize) {
+		int byThreads = pool.getParallelism() * CHUNKS_PER_THREAD;
+		int bySize = (items + minChunkSize - 1) / minChunkSize;
+		return Math.max(1, Math.min(byThreads, bySize));
+	}
+
+	/**
+	 * Runs every chunk and waits for all of them
+	 * 
+	 * @param pool
+	 * @param items
+	 * @param chunks from chunkCount
+	 * @param work
+	 */
+	public static void run(ForkJoinPool pool, int items, int chunks, ChunkWork work) {
+		if (chunks == 1) {
+			work.run(0, 0, items);
+			return;
+		}
+
+		pool.invoke(new ChunkTask(items, chunks, 0, chunks, work));
+	}
+
+	/**
+	 * Splits the chunk range in half until there is one chunk left
+	 */
+	private static class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int items;
+		private final int chunks;
+		private final int from;
+		private final int to;
+		private final ChunkWork work;
+
+		ChunkTask(int items, int chunks, int from, int to, ChunkWork work) {
+			this.items = items;
+			this.chunks = chunks;
+			this.from = from;
+			this.to = to;
+			this.work = work;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				int start = (int) ((long) items * from / chunks);
+				int end = (int) ((long) items * (from + 1) / chunks);
+				work.run(from, start, end);
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			invokeAll(new ChunkTask(items, chunks, from, mid, work), new ChunkTask(items, chunks, mid, to, work));
+		}
+	}
+}
@@ -0,0 +1,1033 @@
+/**
+ * 
+ */
+package application.physics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import application.entity.BasicPhysicsEntity;
+import application.math.Vector2;
+import application.physics.broadphase.Broadphase;
+import application.physics.broadphase.PairBuffer;
+import application.physics.broadphase.QueryBuffer;
+import application.physics.broadphase.SpatialHashBroadphase;
+import application.physics.monitor.PhysicsMonitor;
+import application.physics.monitor.StepEvent;
+import application.physics.narrowphase.ManifoldPool;
+import application.physics.narrowphase.Narrowphase;
+import application.physics.shape.Shape;
+
+/**
+ * @author Davis
+ *
+ */
+public class PhysicsEngine {
+	
+	/**
+	 * Fewest potential collisions worth checking on another thread
+	 */
+	private static final int MIN_PARALLEL_PAIRS = 256;
+	
+	private static final int DEFAULT_VELOCITY_ITERATIONS = 8;
+	private static final int DEFAULT_POSITION_ITERATIONS = 3;
+	private static final float DEFAULT_SLEEP_SPEED = 1f;
+	private static final float DEFAULT_TIME_TO_SLEEP = 0.5f;
+	private static final float DEFAULT_TIMESTEP = 1f / 60f;
+	private static final int DEFAULT_MAX_SUBSTEPS = 5;
+	private static final float DEFAULT_SWEEP_THRESHOLD = 1f;
+	private static final int DEFAULT_MAX_SWEEPS = 4;
+	
+	private List<BasicPhysicsEntity> entities;
+	private BodyStore bodies;
+	private PairBuffer potentialCollisions;
+	private List<CollisionManifold> contacts;
+	private Broadphase broadphase;
+	private ContactIslands islands;
+	private ContactCache contactCache;
+	private ContactSolver solver;
+	private int bodyVersion;
+	private int velocityIterations;
+	private int positionIterations;
+	
+	// sleep, the islands of the last update and the shortest rest time of each
+	private boolean sleepingAllowed;
+	private float sleepSpeed;
+	private float timeToSleep;
+	private boolean islandsBuilt;
+	private float[] islandRestTime;
+	
+	// fixed timestep, time waiting to be stepped and steps taken by the last call
+	private float timestep;
+	private int maxSubsteps;
+	private float accumulator;
+	private int substeps;
+	
+	// swept collision for fast bodies
+	private ContinuousCollision continuous;
+	
+	// queries between updates, against the index the broadphase built
+	private SpatialQuery spatialQuery;
+	private boolean sweepingAllowed;
+	private float sweepThreshold;
+	private int maxSweeps;
+	
+	// telemetry, phases are only timed while a monitor or flight recording listens
+	private StepStats stats;
+	private PhysicsMonitor monitor;
+	private boolean timed;
+	// begun by update and committed by integrate, null when no recording wants it
+	private StepEvent stepEvent;
+	
+	// narrow phase, manifolds are reused from a pool per chunk, the sequential one uses the first
+	private Narrowphase narrowphase;
+	private List<ManifoldPool> chunkPools;
+	private CollisionManifold probe;
+	
+	// parallel narrow phase, whether each potential collided
+	private ForkJoinPool pool;
+	private boolean[] collided;
+	
+	/**
+	 * @param entities
+	 */
+	public PhysicsEngine(List<BasicPhysicsEntity> entities) {
+		this(entities, new SpatialHashBroadphase());
+	}
+	
+	/**
+	 * @param entities
+	 * @param broadphase used to find potential collisions
+	 */
+	public PhysicsEngine(List<BasicPhysicsEntity> entities, Broadphase broadphase) {
+		this(entities, broadphase, false);
+	}
+	
+	/**
+	 * @param entities
+	 * @param broadphase used to find potential collisions
+	 * @param offHeap keep the bodies' numbers outside the heap, see BodyStore
+	 */
+	public PhysicsEngine(List<BasicPhysicsEntity> entities, Broadphase broadphase, boolean offHeap) {
+		super();
+		this.entities = entities;
+		this.broadphase = broadphase;
+		bodies = new BodyStore(offHeap);
+		potentialCollisions = new PairBuffer();
+		contacts = new ArrayList<>();
+		islands = new ContactIslands();
+		contactCache = new ContactCache();
+		solver = new ContactSolver(bodies, contactCache);
+		velocityIterations = DEFAULT_VELOCITY_ITERATIONS;
+		positionIterations = DEFAULT_POSITION_ITERATIONS;
+		sleepingAllowed = true;
+		sleepSpeed = DEFAULT_SLEEP_SPEED;
+		timeToSleep = DEFAULT_TIME_TO_SLEEP;
+		islandRestTime = new float[0];
+		timestep = DEFAULT_TIMESTEP;
+		stats = new StepStats();
+		maxSubsteps = DEFAULT_MAX_SUBSTEPS;
+		continuous = new ContinuousCollision(bodies);
+		spatialQuery = new SpatialQuery(bodies);
+		sweepingAllowed = true;
+		sweepThreshold = DEFAULT_SWEEP_THRESHOLD;
+		maxSweeps = DEFAULT_MAX_SWEEPS;
+		narrowphase = new Narrowphase();
+		chunkPools = new ArrayList<>();
+		chunkPools.add(new ManifoldPool());
+		probe = new CollisionManifold();
+		pool = ForkJoinPool.commonPool();
+		collided = new boolean[0];
+	}
+
+	/**
+	 * Clears the engine, removing all references to current entities and collisions.
+	 */
+	public void clearEngine() {
+		bodies.clear();
+		entities.clear();
+		potentialCollisions.clear();
+		contacts.clear();
+		broadphase.clear();
+		contactCache.clear();
+		accumulator = 0f;
+	}
+
+	/**
+	 * Lines the store up with the entity list between updates, for saving
+	 * @return true if no slot changed hands since the last update, so the
+	 * cached impulses and sleep groups still belong to the same bodies
+	 */
+	boolean syncBodies() {
+		bodies.sync(entities);
+		return bodies.getVersion() == bodyVersion;
+	}
+
+	/**
+	 * Keeps the cached impulses and sleep groups through the next update, for
+	 * loading them with the bodies they belong to
+	 */
+	void keepSlots() {
+		bodyVersion = bodies.getVersion();
+	}
+
+	/**
+	 * @return the entities the engine moves, in slot order
+	 */
+	List<BasicPhysicsEntity> getEntities() {
+		return entities;
+	}
+
+	/**
+	 * @return the cached impulses of the touching pairs
+	 */
+	ContactCache getContactCache() {
+		return contactCache;
+	}
+
+	/**
+	 * @return seconds step has kept that don't make up a whole timestep
+	 */
+	float getAccumulator() {
+		return accumulator;
+	}
+
+	/**
+	 * @param accumulator seconds towards the next timestep of step
+	 */
+	void setAccumulator(float accumulator) {
+		this.accumulator = accumulator;
+	}
+
+	/**
+	 * Advances the engine by a frame's worth of time in fixed timesteps.
+	 * Time that doesn't make up a whole timestep is kept for the next call.
+	 * At most maxSubsteps updates are run, any time beyond that is dropped so
+	 * a long hitch slows the simulation down instead of making the next
+	 * frames catch up.
+	 * @param frameDelta seconds since the last call
+	 * @param parallel see update
+	 * @return how far the engine is into the next timestep, from 0 to 1, for
+	 * drawing between the previous and current positions
+	 */
+	public float step(float frameDelta, boolean parallel) {
+		accumulator += frameDelta;
+		substeps = 0;
+		
+		while (accumulator >= timestep && substeps < maxSubsteps) {
+			update(parallel);
+			integrate(timestep);
+			accumulator -= timestep;
+			substeps++;
+		}
+		
+		if (accumulator >= timestep) {
+			accumulator %= timestep;
+		}
+		
+		return accumulator / timestep;
+	}
+	
+	/**
+	 * Adds gravity, then performs collision checks and resolves them, so the
+	 * solver sees the velocity the bodies are about to move with. Pairs where
+	 * neither body is awake are skipped, and sleeping bodies touched by an
+	 * awake one are woken with the rest of their group.
+	 * @param parallel split the broadphase, collision checks and islands
+	 * across the pool. Each island's impulses are applied in the same order as
+	 * on one thread, so the result is the same either way.
+	 */
+	public void update(boolean parallel) {
+		stepEvent = StepEvent.start();
+		timed = monitor != null || stepEvent != null;
+		long start = 0L;
+		if (timed) {
+			start = System.nanoTime();
+		} else {
+			stats.clearTimes();
+		}
+		
+		bodies.sync(entities);
+		bodies.savePositions(0, bodies.size());
+		
+		// cached impulses and sleep groups belong to slots, so they are useless once slots change hands
+		if (bodies.getVersion() != bodyVersion) {
+			bodyVersion = bodies.getVersion();
+			contactCache.clear();
+			bodies.wakeAll();
+		}
+		
+		bodies.applyGravity(0, bodies.size());
+		islandsBuilt = false;
+		
+		boolean inParallel = parallel && pool.getParallelism() > 1;
+		if (inParallel) {
+			broadphase.findPotentialCollisions(bodies, potentialCollisions, pool);
+			potentialCollisions.sort(bodies.size());
+		} else {
+			findPotentialCollisions();
+		}
+		
+		stats.bodies = bodies.size();
+		stats.candidatePairs = potentialCollisions.size();
+		dropSleepingPairs();
+		
+		if (timed) {
+			long now = System.nanoTime();
+			stats.broadphaseNanos = now - start;
+			start = now;
+		}
+		
+		if (inParallel) {
+			findActualCollisionsParallel();
+		} else {
+			findActualCollisions();
+		}
+		wakeTouched();
+		
+		if (timed) {
+			long now = System.nanoTime();
+			stats.narrowphaseNanos = now - start;
+			start = now;
+		}
+		
+		if (inParallel) {
+			solveIslands();
+		} else {
+			solveContacts(contacts);
+		}
+		
+		if (sleepingAllowed && !islandsBuilt) {
+			islands.build(bodies, contacts);
+			islandsBuilt = true;
+		}
+		
+		storeContacts(contacts);
+		stats.contacts = contacts.size();
+		contacts.clear();
+		
+		if (timed) {
+			stats.solveNanos = System.nanoTime() - start;
+		}
+	}
+	
+	/**
+	 * Moves every body that isn't frozen or sleeping by its velocity, then
+	 * moves their entities and shapes to match. Bullets and bodies moving
+	 * further than the sweep threshold are swept so they stop at whatever is
+	 * in their way. Gravity was already added by update, so call update once
+	 * before each integration.
+	 * @param delta seconds since the last integration
+	 */
+	public void integrate(float delta) {
+		long start = timed ? System.nanoTime() : 0L;
+		int n = bodies.size();
+		bodies.move(0, n, delta);
+		bodies.updateDrift(0, n);
+		
+		stats.sweptBodies = 0;
+		if (sweepingAllowed) {
+			sweepFastBodies(delta);
+		}
+		bodies.syncShapes(0, n);
+		
+		if (sleepingAllowed && islandsBuilt) {
+			updateSleep(delta);
+		}
+		
+		if (timed) {
+			stats.integrateNanos = System.nanoTime() - start;
+			stats.sleepingBodies = countSleeping();
+			
+			if (monitor != null) {
+				monitor.record(stats);
+			}
+			if (stepEvent != null) {
+				stepEvent.end(stats);
+				stepEvent = null;
+			}
+		}
+	}
+	
+	/**
+	 * Sweeps the fast bodies in slot order, so the result doesn't depend on
+	 * threads
+	 * @param delta seconds since the last integration
+	 */
+	private void sweepFastBodies(float delta) {
+		for (int i = 0; i < bodies.size(); i++) {
+			if (continuous.isFast(i, delta, sweepThreshold)) {
+				continuous.sweep(i, delta, maxSweeps, broadphase);
+				bodies.updateDrift(i, i + 1);
+				stats.sweptBodies++;
+			}
+		}
+	}
+	
+	/**
+	 * @return the number of sleeping bodies
+	 */
+	private int countSleeping() {
+		int sleeping = 0;
+		for (int i = 0; i < bodies.size(); i++) {
+			if (bodies.isSleeping(i)) {
+				sleeping++;
+			}
+		}
+		return sleeping;
+	}
+	
+	/**
+	 * Adds to the rest time of the bodies moving and turning slower than the
+	 * sleep speed, then puts to sleep every island whose bodies have all
+	 * rested long enough
+	 * @param delta seconds since the last integration
+	 */
+	private void updateSleep(float delta) {
+		int n = bodies.size();
+		if (islandRestTime.length < n) {
+			islandRestTime = new float[Math.max(n, islandRestTime.length * 2)];
+		}
+		
+		float limitSq = sleepSpeed * sleepSpeed;
+		for (int i = 0; i < n; i++) {
+			islandRestTime[i] = Float.MAX_VALUE;
+		}
+		
+		for (int i = 0; i < n; i++) {
+			if (!bodies.isActive(i)) {
+				continue;
+			}
+			
+			// turning counts by how fast the edge of the shape moves
+			float speedSq = Vector2.lengthSquared(bodies.getVelocityX(i), bodies.getVelocityY(i));
+			float edgeSpeed = bodies.getAngularVelocity(i) * bodies.getRadius(i);
+			boolean moving = speedSq > limitSq || edgeSpeed * edgeSpeed > limitSq;
+			float rest = moving ? 0f : bodies.getRestTime(i) + delta;
+			bodies.setRestTime(i, rest);
+			
+			int root = islands.getRoot(i);
+			islandRestTime[root] = Math.min(islandRestTime[root], rest);
+		}
+		
+		for (int i = 0; i < n; i++) {
+			if (bodies.isActive(i)) {
+				int root = islands.getRoot(i);
+				if (islandRestTime[root] >= timeToSleep) {
+					bodies.sleep(i, root);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Removes the potential collisions where neither body is awake. Pairs
+	 * that sleep together keep their cached impulses so they are warm started
+	 * again when woken.
+	 */
+	private void dropSleepingPairs() {
+		int kept = 0;
+		for (int i = 0; i < potentialCollisions.size(); i++) {
+			int a = potentialCollisions.first(i);
+			int b = potentialCollisions.second(i);
+			
+			if (bodies.isActive(a) || bodies.isActive(b)) {
+				potentialCollisions.set(kept++, potentialCollisions.get(i));
+			} else if (bodies.isSleeping(a) || bodies.isSleeping(b)) {
+				contactCache.carry(a, b);
+			}
+		}
+		potentialCollisions.truncate(kept);
+	}
+	
+	/**
+	 * Wakes the sleeping bodies touched by an awake one, with their groups
+	 */
+	private void wakeTouched() {
+		for (int i = 0; i < contacts.size(); i++) {
+			CollisionManifold cm = contacts.get(i);
+			int a = cm.getEntityA().getBodyIndex();
+			int b = cm.getEntityB().getBodyIndex();
+			
+			if (bodies.isSleeping(a)) {
+				bodies.wake(a);
+			}
+			
+			if (bodies.isSleeping(b)) {
+				bodies.wake(b);
+			}
+		}
+	}
+	
+	/**
+	 * Finds potential collisions based on the radius of the shapes, sorted so
+	 * the narrow phase walks the bodies in memory order
+	 */
+	private void findPotentialCollisions() {
+		broadphase.findPotentialCollisions(bodies, potentialCollisions);
+		potentialCollisions.sort(bodies.size());
+	}
+	
+	/**
+	 * Checks if any of the potential collisions are actually collisions
+	 */
+	private void findActualCollisions() {
+		ManifoldPool manifolds = chunkPools.get(0);
+		manifolds.clear();
+		
+		for (int i = 0; i < potentialCollisions.size(); i++) {
+			BasicPhysicsEntity a = bodies.getEntity(potentialCollisions.first(i));
+			BasicPhysicsEntity b = bodies.getEntity(potentialCollisions.second(i));
+			
+			boolean touching = narrowphase.collide(a, b, manifolds.next());
+			markCollision(a.getShape(), b.getShape(), touching);
+			if (touching) {
+				contacts.add(manifolds.keep());
+			}
+		}
+		
+		potentialCollisions.clear();
+	}
+	
+	/**
+	 * Checks the potential collisions across the pool, each chunk into its own
+	 * pool of manifolds, then marks them and merges the contacts in the
+	 * original order
+	 */
+	private void findActualCollisionsParallel() {
+		int n = potentialCollisions.size();
+		int chunks = ParallelChunks.chunkCount(pool, n, MIN_PARALLEL_PAIRS);
+		
+		while (chunkPools.size() < chunks) {
+			chunkPools.add(new ManifoldPool());
+		}
+		
+		if (collided.length < n) {
+			collided = new boolean[Math.max(n, collided.length * 2)];
+		}
+		
+		ParallelChunks.run(pool, n, chunks, (chunk, start, end) -> checkPotentials(start, end, chunkPools.get(chunk)));
+		
+		for (int i = 0; i < n; i++) {
+			Shape a = bodies.getEntity(potentialCollisions.first(i)).getShape();
+			Shape b = bodies.getEntity(potentialCollisions.second(i)).getShape();
+			markCollision(a, b, collided[i]);
+		}
+		
+		for (int c = 0; c < chunks; c++) {
+			ManifoldPool chunk = chunkPools.get(c);
+			for (int k = 0; k < chunk.size(); k++) {
+				contacts.add(chunk.get(k));
+			}
+		}
+		
+		potentialCollisions.clear();
+	}
+	
+	/**
+	 * Resolves every contact in order, all of the velocity iterations then
+	 * all of the position iterations
+	 * @param contacts
+	 */
+	private void solveContacts(List<CollisionManifold> contacts) {
+		int n = contacts.size();
+		
+		for (int i = 0; i < n; i++) {
+			solver.prepare(contacts.get(i));
+		}
+		
+		for (int i = 0; i < n; i++) {
+			solver.warmStart(contacts.get(i));
+		}
+		
+		for (int it = 0; it < velocityIterations; it++) {
+			for (int i = 0; i < n; i++) {
+				solver.solveVelocity(contacts.get(i));
+			}
+		}
+		
+		for (int it = 0; it < positionIterations; it++) {
+			for (int i = 0; i < n; i++) {
+				solver.solvePosition(contacts.get(i));
+			}
+		}
+	}
+	
+	/**
+	 * Keeps the impulses of this update's contacts for warm starting the next
+	 * @param contacts
+	 */
+	private void storeContacts(List<CollisionManifold> contacts) {
+		for (int i = 0; i < contacts.size(); i++) {
+			solver.store(contacts.get(i));
+		}
+		contactCache.endUpdate();
+	}
+	
+	/**
+	 * Splits the contacts into islands that share no moving entity and
+	 * resolves the islands across the pool
+	 */
+	private void solveIslands() {
+		if (contacts.size() < MIN_PARALLEL_PAIRS) {
+			solveContacts(contacts);
+			return;
+		}
+		
+		islands.build(bodies, contacts);
+		islandsBuilt = true;
+		
+		int islandCount = islands.getIslandCount();
+		int chunks = ParallelChunks.chunkCount(pool, islandCount, 1);
+		ParallelChunks.run(pool, islandCount, chunks, (chunk, start, end) -> {
+			for (int island = start; island < end; island++) {
+				solveIsland(island);
+			}
+		});
+	}
+	
+	/**
+	 * Resolves the contacts of one island in order, the same way as
+	 * solveContacts does for all of them
+	 * @param island
+	 */
+	private void solveIsland(int island) {
+		int start = islands.getIslandStart(island);
+		int end = islands.getIslandEnd(island);
+		
+		for (int k = start; k < end; k++) {
+			solver.prepare(contacts.get(islands.getContact(k)));
+		}
+		
+		for (int k = start; k < end; k++) {
+			solver.warmStart(contacts.get(islands.getContact(k)));
+		}
+		
+		for (int it = 0; it < velocityIterations; it++) {
+			for (int k = start; k < end; k++) {
+				solver.solveVelocity(contacts.get(islands.getContact(k)));
+			}
+		}
+		
+		for (int it = 0; it < positionIterations; it++) {
+			for (int k = start; k < end; k++) {
+				solver.solvePosition(contacts.get(islands.getContact(k)));
+			}
+		}
+	}
+	
+	/**
+	 * Checks part of the potential collisions without changing any entity
+	 * @param start
+	 * @param end
+	 * @param manifolds cleared, then keeps the collisions that need resolving
+	 */
+	private void checkPotentials(int start, int end, ManifoldPool manifolds) {
+		manifolds.clear();
+		
+		for (int i = start; i < end; i++) {
+			BasicPhysicsEntity a = bodies.getEntity(potentialCollisions.first(i));
+			BasicPhysicsEntity b = bodies.getEntity(potentialCollisions.second(i));
+			
+			collided[i] = narrowphase.collide(a, b, manifolds.next());
+			if (collided[i]) {
+				manifolds.keep();
+			}
+		}
+	}
+
+	/**
+	 * Check if two shapes are overlapping / clipping / colliding 
+	 * @param entA
+	 * @param entB
+	 * @return
+	 */
+	public boolean checkCollision(Shape a, Shape b) {
+		probe.reset(null, null);
+		boolean collided = narrowphase.collide(a, b, probe);
+		markCollision(a, b, collided);
+		return collided;
+	}
+	
+	/**
+	 * Marks the shapes with whether they collided, for drawing
+	 * @param a
+	 * @param b
+	 * @param collided
+	 */
+	private void markCollision(Shape a, Shape b, boolean collided) {
+		int state = collided ? Shape.COLLIDING : Shape.NOT_COLLIDING;
+		a.setCollisionState(state);
+		b.setCollisionState(state);
+	}
+	
+	/**
+	 * Finds the bodies whose shape holds a point. Like the other queries it
+	 * sees the bodies as of the last integration, bodies added or moved by
+	 * hand since are found once the engine has updated again.
+	 * @param x
+	 * @param y
+	 * @param out cleared, then gets the slots of the bodies found in slot
+	 * order, see BodyStore.getEntity
+	 * @return the number of bodies found
+	 */
+	public int queryPoint(float x, float y, QueryBuffer out) {
+		return spatialQuery.queryPoint(broadphase, x, y, out);
+	}
+	
+	/**
+	 * Finds the bodies whose shape overlaps a box, see queryPoint
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @param out cleared, then gets the slots of the bodies found in slot order
+	 * @return the number of bodies found
+	 */
+	public int queryBox(float minX, float minY, float maxX, float maxY, QueryBuffer out) {
+		return spatialQuery.queryBox(broadphase, narrowphase, minX, minY, maxX, maxY, out);
+	}
+	
+	/**
+	 * Finds the bodies whose shape overlaps a circle, see queryPoint
+	 * @param x centre of the circle
+	 * @param y
+	 * @param radius
+	 * @param out cleared, then gets the slots of the bodies found in slot order
+	 * @return the number of bodies found
+	 */
+	public int queryCircle(float x, float y, float radius, QueryBuffer out) {
+		return spatialQuery.queryCircle(broadphase, narrowphase, x, y, radius, out);
+	}
+	
+	/**
+	 * Finds the first body a ray hits, see queryPoint. Bodies holding the
+	 * start of the ray are not hit.
+	 * @param x0 start of the ray
+	 * @param y0
+	 * @param x1 end of the ray
+	 * @param y1
+	 * @param out cleared, then gets the nearest hit
+	 * @return true if anything was hit
+	 */
+	public boolean raycast(float x0, float y0, float x1, float y1, RaycastBuffer out) {
+		spatialQuery.raycast(broadphase, x0, y0, x1, y1, out);
+		out.keepNearest();
+		return out.size() > 0;
+	}
+	
+	/**
+	 * Finds every body a ray hits, see raycast
+	 * @param x0 start of the ray
+	 * @param y0
+	 * @param x1 end of the ray
+	 * @param y1
+	 * @param out cleared, then gets every hit, nearest first
+	 * @return the number of bodies hit
+	 */
+	public int raycastAll(float x0, float y0, float x1, float y1, RaycastBuffer out) {
+		spatialQuery.raycast(broadphase, x0, y0, x1, y1, out);
+		out.sort();
+		return out.size();
+	}
+	
+	/**
+	 * Resolves the contacts the way a sequential update does and keeps their
+	 * impulses for warm starting the next call, without the rest of the
+	 * update around it. For benchmarking the solver.
+	 * @param manifolds between bodies of this engine's store
+	 */
+	public void solve(List<CollisionManifold> manifolds) {
+		solveContacts(manifolds);
+		storeContacts(manifolds);
+	}
+
+	/**
+	 * Forgets the impulses kept for warm starting, so the next update or
+	 * solve starts every contact cold
+	 */
+	public void clearContactCache() {
+		contactCache.clear();
+	}
+	
+	/**
+	 * @return the table of routines checking each pair of shape types
+	 */
+	public Narrowphase getNarrowphase() {
+		return narrowphase;
+	}
+
+	/**
+	 * @param narrowphase checks the pairs found by the broadphase, register
+	 * routines with it to collide new shape types
+	 */
+	public void setNarrowphase(Narrowphase narrowphase) {
+		this.narrowphase = narrowphase;
+	}
+	
+	/**
+	 * @return the store holding the state of every body
+	 */
+	public BodyStore getBodies() {
+		return bodies;
+	}
+	
+	/**
+	 * @return the number of velocity passes over the contacts each update
+	 */
+	public int getVelocityIterations() {
+		return velocityIterations;
+	}
+
+	/**
+	 * @param velocityIterations passes over the contact velocities each
+	 * update, more keeps piles stiffer at a lower update rate
+	 */
+	public void setVelocityIterations(int velocityIterations) {
+		if (velocityIterations < 1) {
+			throw new IllegalArgumentException("velocityIterations must be at least 1");
+		}
+		this.velocityIterations = velocityIterations;
+	}
+
+	/**
+	 * @return the number of position passes over the contacts each update
+	 */
+	public int getPositionIterations() {
+		return positionIterations;
+	}
+
+	/**
+	 * @param positionIterations passes pushing overlapping bodies apart each
+	 * update, 0 turns position correction off
+	 */
+	public void setPositionIterations(int positionIterations) {
+		if (positionIterations < 0) {
+			throw new IllegalArgumentException("positionIterations can't be negative");
+		}
+		this.positionIterations = positionIterations;
+	}
+	
+	/**
+	 * @return the number of contacts resolved by the last update
+	 */
+	public int getContactCount() {
+		return stats.contacts;
+	}
+
+	/**
+	 * @return what the last update and integration did, phase times are zero
+	 * unless isTimed
+	 */
+	public StepStats getLastStep() {
+		return stats;
+	}
+
+	/**
+	 * @return true if the last update timed its phases, because a monitor is
+	 * set or a flight recording has step events enabled
+	 */
+	public boolean isTimed() {
+		return timed;
+	}
+
+	/**
+	 * @return the monitor recording every step, or null
+	 */
+	public PhysicsMonitor getMonitor() {
+		return monitor;
+	}
+
+	/**
+	 * @param monitor records every step, null to stop
+	 */
+	public void setMonitor(PhysicsMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * @return the seconds simulated by each update of step
+	 */
+	public float getTimestep() {
+		return timestep;
+	}
+
+	/**
+	 * @param timestep the seconds simulated by each update of step
+	 */
+	public void setTimestep(float timestep) {
+		if (!(timestep > 0f)) {
+			throw new IllegalArgumentException("timestep must be positive");
+		}
+		this.timestep = timestep;
+	}
+
+	/**
+	 * @return the most updates a single call of step runs
+	 */
+	public int getMaxSubsteps() {
+		return maxSubsteps;
+	}
+
+	/**
+	 * @param maxSubsteps the most updates a single call of step runs
+	 */
+	public void setMaxSubsteps(int maxSubsteps) {
+		if (maxSubsteps < 1) {
+			throw new IllegalArgumentException("maxSubsteps must be at least 1");
+		}
+		this.maxSubsteps = maxSubsteps;
+	}
+
+	/**
+	 * @return the number of updates run by the last call of step
+	 */
+	public int getSubsteps() {
+		return substeps;
+	}
+
+	/**
+	 * @return true if fast bodies and bullets are swept for collisions
+	 */
+	public boolean isSweepingAllowed() {
+		return sweepingAllowed;
+	}
+
+	/**
+	 * @param sweepingAllowed false lets fast bodies pass through thin ones,
+	 * bullets included
+	 */
+	public void setSweepingAllowed(boolean sweepingAllowed) {
+		this.sweepingAllowed = sweepingAllowed;
+	}
+
+	/**
+	 * @return the share of its smallest half size a body has to move in one
+	 * integration to be swept
+	 */
+	public float getSweepThreshold() {
+		return sweepThreshold;
+	}
+
+	/**
+	 * @param sweepThreshold the share of its smallest half size a body has to
+	 * move in one integration to be swept, 1 by default. Lower catches more
+	 * bodies at the cost of sweeping them.
+	 */
+	public void setSweepThreshold(float sweepThreshold) {
+		if (!(sweepThreshold > 0f)) {
+			throw new IllegalArgumentException("sweepThreshold must be positive");
+		}
+		this.sweepThreshold = sweepThreshold;
+	}
+
+	/**
+	 * @return the most bodies a swept body stops at in one integration
+	 */
+	public int getMaxSweeps() {
+		return maxSweeps;
+	}
+
+	/**
+	 * @param maxSweeps the most bodies a swept body stops at in one
+	 * integration, the time left after that is dropped
+	 */
+	public void setMaxSweeps(int maxSweeps) {
+		if (maxSweeps < 1) {
+			throw new IllegalArgumentException("maxSweeps must be at least 1");
+		}
+		this.maxSweeps = maxSweeps;
+	}
+
+	/**
+	 * @return true if bodies that come to rest are put to sleep
+	 */
+	public boolean isSleepingAllowed() {
+		return sleepingAllowed;
+	}
+
+	/**
+	 * @param sleepingAllowed false wakes every body and keeps them awake
+	 */
+	public void setSleepingAllowed(boolean sleepingAllowed) {
+		this.sleepingAllowed = sleepingAllowed;
+		if (!sleepingAllowed) {
+			bodies.wakeAll();
+		}
+	}
+
+	/**
+	 * @return the speed below which a body counts as resting
+	 */
+	public float getSleepSpeed() {
+		return sleepSpeed;
+	}
+
+	/**
+	 * @param sleepSpeed the speed below which a body counts as resting
+	 */
+	public void setSleepSpeed(float sleepSpeed) {
+		if (sleepSpeed < 0f) {
+			throw new IllegalArgumentException("sleepSpeed can't be negative");
+		}
+		this.sleepSpeed = sleepSpeed;
+	}
+
+	/**
+	 * @return seconds every body of an island has to rest before it sleeps
+	 */
+	public float getTimeToSleep() {
+		return timeToSleep;
+	}
+
+	/**
+	 * @param timeToSleep seconds every body of an island has to rest before
+	 * it sleeps
+	 */
+	public void setTimeToSleep(float timeToSleep) {
+		if (timeToSleep < 0f) {
+			throw new IllegalArgumentException("timeToSleep can't be negative");
+		}
+		this.timeToSleep = timeToSleep;
+	}
+
+	/**
+	 * Wakes an entity of this engine and everything that fell asleep with it
+	 * @param entity
+	 */
+	public void wake(BasicPhysicsEntity entity) {
+		if (entity.getBodyStore() == bodies) {
+			bodies.wake(entity.getBodyIndex());
+		}
+	}
+	
+	/**
+	 * @return the broadphase
+	 */
+	public Broadphase getBroadphase() {
+		return broadphase;
+	}
+
+	/**
+	 * @param broadphase the broadphase to set
+	 */
+	public void setBroadphase(Broadphase broadphase) {
+		this.broadphase.clear();
+		this.broadphase = broadphase;
+	}
+
+	/**
+	 * @return the pool used by parallel updates
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @param pool used by parallel updates, the common pool by default
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+}
\ No newline at end of file
@@ -3,6 +3,8 @@
  */
 package application.physics;
 
+import java.util.Arrays;
+
 /**
  * @author Davis
  *
@@ -17,6 +19,9 @@ public class PhysicsProperties {
 	private float staticFriction;
 	private float dynamicFriction;
 
+	// stores holding a copy of these properties, told when they change
+	private BodyStore[] stores = new BodyStore[0];
+
 	/**
 	 * @param mass
 	 * @param restitutionl
@@ -50,6 +55,7 @@ public class PhysicsProperties {
 		} else {
 			invMass = 0;
 		}
+		changed();
 	}
 
 	/**
@@ -72,6 +78,7 @@ public class PhysicsProperties {
 	 */
 	public void setRestitution(float restitution) {
 		this.restitution = restitution;
+		changed();
 	}
 
 	/**
@@ -102,6 +109,7 @@ public class PhysicsProperties {
 	 */
 	public void setStaticFriction(float staticFriction) {
 		this.staticFriction = staticFriction;
+		changed();
 	}
 
 	/**
@@ -117,5 +125,27 @@ public class PhysicsProperties {
 	 */
 	public void setDynamicFriction(float dynamicFriction) {
 		this.dynamicFriction = dynamicFriction;
+		changed();
+	}
+
+	/**
+	 * Remembers a store that copied these properties, so it is told when
+	 * they change
+	 * @param store
+	 */
+	void addStore(BodyStore store) {
+		for (BodyStore s : stores) {
+			if (s == store) {
+				return;
+			}
+		}
+		stores = Arrays.copyOf(stores, stores.length + 1);
+		stores[stores.length - 1] = store;
+	}
+
+	private void changed() {
+		for (BodyStore s : stores) {
+			s.materialChanged();
+		}
 	}
 }
@@ -0,0 +1,182 @@
+package application.physics;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of the bodies a ray hits, with how far along the ray, where
+ * and facing which way each is hit. The caller keeps the buffer and hands it
+ * to every raycast, so casting doesn't create objects once it has grown.
+ */
+public class RaycastBuffer {
+
+	private int[] bodies;
+	private float[] fraction;
+	private float[] pointX;
+	private float[] pointY;
+	private float[] normalX;
+	private float[] normalY;
+	private int size;
+
+	public RaycastBuffer() {
+		this(8);
+	}
+
+	/**
+	 * @param capacity expected number of hits
+	 */
+	public RaycastBuffer(int capacity) {
+		super();
+		int cap = Math.max(capacity, 4);
+		bodies = new int[cap];
+		fraction = new float[cap];
+		pointX = new float[cap];
+		pointY = new float[cap];
+		normalX = new float[cap];
+		normalY = new float[cap];
+	}
+
+	/**
+	 * Adds a hit
+	 * @param body slot of the body hit
+	 * @param t how far along the ray, 0 at the start and 1 at the end
+	 * @param x where the ray enters the body
+	 * @param y
+	 * @param nx normal of the surface hit, pointing out of the body
+	 * @param ny
+	 */
+	void add(int body, float t, float x, float y, float nx, float ny) {
+		if (size == bodies.length) {
+			int cap = size * 2;
+			bodies = Arrays.copyOf(bodies, cap);
+			fraction = Arrays.copyOf(fraction, cap);
+			pointX = Arrays.copyOf(pointX, cap);
+			pointY = Arrays.copyOf(pointY, cap);
+			normalX = Arrays.copyOf(normalX, cap);
+			normalY = Arrays.copyOf(normalY, cap);
+		}
+
+		bodies[size] = body;
+		fraction[size] = t;
+		pointX[size] = x;
+		pointY[size] = y;
+		normalX[size] = nx;
+		normalY[size] = ny;
+		size++;
+	}
+
+	/**
+	 * Sorts the hits nearest first, ties by slot. Rays rarely hit more than a
+	 * handful of bodies, so this is an insertion sort.
+	 */
+	void sort() {
+		for (int k = 1; k < size; k++) {
+			for (int m = k; m > 0 && after(m - 1, m); m--) {
+				swap(m - 1, m);
+			}
+		}
+	}
+
+	/**
+	 * Keeps only the nearest hit
+	 */
+	void keepNearest() {
+		int best = 0;
+		for (int k = 1; k < size; k++) {
+			if (after(best, k)) {
+				best = k;
+			}
+		}
+
+		if (size > 0) {
+			swap(0, best);
+			size = 1;
+		}
+	}
+
+	private boolean after(int a, int b) {
+		return fraction[a] > fraction[b] || (fraction[a] == fraction[b] && bodies[a] > bodies[b]);
+	}
+
+	private void swap(int a, int b) {
+		int body = bodies[a];
+		bodies[a] = bodies[b];
+		bodies[b] = body;
+		float f = fraction[a];
+		fraction[a] = fraction[b];
+		fraction[b] = f;
+		f = pointX[a];
+		pointX[a] = pointX[b];
+		pointX[b] = f;
+		f = pointY[a];
+		pointY[a] = pointY[b];
+		pointY[b] = f;
+		f = normalX[a];
+		normalX[a] = normalX[b];
+		normalX[b] = f;
+		f = normalY[a];
+		normalY[a] = normalY[b];
+		normalY[b] = f;
+	}
+
+	/**
+	 * @param k
+	 * @return the slot of the body of the k-th hit
+	 */
+	public int getBody(int k) {
+		return bodies[k];
+	}
+
+	/**
+	 * @param k
+	 * @return how far along the ray the k-th hit is, 0 at the start and 1 at the end
+	 */
+	public float getFraction(int k) {
+		return fraction[k];
+	}
+
+	/**
+	 * @param k
+	 * @return x of where the ray enters the body of the k-th hit
+	 */
+	public float getPointX(int k) {
+		return pointX[k];
+	}
+
+	/**
+	 * @param k
+	 * @return y of where the ray enters the body of the k-th hit
+	 */
+	public float getPointY(int k) {
+		return pointY[k];
+	}
+
+	/**
+	 * @param k
+	 * @return x of the normal of the surface of the k-th hit
+	 */
+	public float getNormalX(int k) {
+		return normalX[k];
+	}
+
+	/**
+	 * @param k
+	 * @return y of the normal of the surface of the k-th hit
+	 */
+	public float getNormalY(int k) {
+		return normalY[k];
+	}
+
+	/**
+	 * @return the number of hits
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes every hit
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
@@ -0,0 +1,273 @@
+package application.physics;
+
+import application.math.Vector2;
+import application.physics.broadphase.Broadphase;
+import application.physics.broadphase.QueryBuffer;
+import application.physics.narrowphase.Narrowphase;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * Finds the bodies at a point, in an area or along a ray.
+ *
+ * The broadphase index of the last update gives the bodies that may be there,
+ * its query grown by how far bodies moved since. Only those are then checked
+ * against their shapes, so a query costs about the same however many bodies
+ * there are. Areas are checked with the narrowphase routines, against a
+ * probe shape that is moved around instead of created.
+ *
+ * Shapes are taken where the last integration left them.
+ */
+class SpatialQuery {
+
+	private final BodyStore bodies;
+	private final QueryBuffer candidates;
+	private final Vector2 point;
+	private final Vector2 probePosition;
+	private final CircleShape circleProbe;
+	private final RectShape boxProbe;
+	private final CollisionManifold manifold;
+
+	/**
+	 * @param bodies
+	 */
+	SpatialQuery(BodyStore bodies) {
+		this.bodies = bodies;
+		candidates = new QueryBuffer();
+		point = new Vector2();
+		probePosition = new Vector2();
+		circleProbe = new CircleShape(probePosition, 0f, 1f);
+		boxProbe = new RectShape(probePosition, 0f, 1f, 1f);
+		manifold = new CollisionManifold();
+	}
+
+	/**
+	 * @param broadphase
+	 * @param x
+	 * @param y
+	 * @param out cleared, then gets the bodies whose shape holds the point, in slot order
+	 * @return the number of bodies found
+	 */
+	int queryPoint(Broadphase broadphase, float x, float y, QueryBuffer out) {
+		findCandidates(broadphase, x, y, x, y);
+		point.set(x, y);
+		out.clear();
+
+		for (int k = 0; k < candidates.size(); k++) {
+			int j = candidates.get(k);
+			if (bodies.getEntity(j).getShape().pointWithin(point)) {
+				out.add(j);
+			}
+		}
+
+		return out.size();
+	}
+
+	/**
+	 * @param broadphase
+	 * @param narrowphase
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @param out cleared, then gets the bodies whose shape overlaps the box, in slot order
+	 * @return the number of bodies found
+	 */
+	int queryBox(Broadphase broadphase, Narrowphase narrowphase, float minX, float minY, float maxX, float maxY,
+			QueryBuffer out) {
+		findCandidates(broadphase, minX, minY, maxX, maxY);
+		probePosition.set((minX + maxX) / 2f, (minY + maxY) / 2f);
+		boxProbe.moveTo(probePosition);
+		boxProbe.setWidth(maxX - minX);
+		boxProbe.setHeight(maxY - minY);
+		return collideCandidates(narrowphase, boxProbe, out);
+	}
+
+	/**
+	 * @param broadphase
+	 * @param narrowphase
+	 * @param x centre of the circle
+	 * @param y
+	 * @param radius
+	 * @param out cleared, then gets the bodies whose shape overlaps the circle, in slot order
+	 * @return the number of bodies found
+	 */
+	int queryCircle(Broadphase broadphase, Narrowphase narrowphase, float x, float y, float radius, QueryBuffer out) {
+		findCandidates(broadphase, x - radius, y - radius, x + radius, y + radius);
+		probePosition.set(x, y);
+		circleProbe.moveTo(probePosition);
+		circleProbe.setRadius(radius);
+		return collideCandidates(narrowphase, circleProbe, out);
+	}
+
+	/**
+	 * Casts a ray from one point to another. Bodies holding the start of the
+	 * ray are not hit, so a ray cast from inside a body sees past it.
+	 * @param broadphase
+	 * @param x0 start of the ray
+	 * @param y0
+	 * @param x1 end of the ray
+	 * @param y1
+	 * @param out cleared, then gets every body hit, in no particular order
+	 * @return the number of bodies hit
+	 */
+	int raycast(Broadphase broadphase, float x0, float y0, float x1, float y1, RaycastBuffer out) {
+		candidates.clear();
+		broadphase.queryRay(bodies, x0, y0, x1, y1, bodies.getDrift(), candidates);
+		out.clear();
+
+		float dx = x1 - x0;
+		float dy = y1 - y0;
+
+		for (int k = 0; k < candidates.size(); k++) {
+			int j = candidates.get(k);
+			Shape shape = bodies.getEntity(j).getShape();
+
+			if (shape.getShapeType() == CircleShape.TYPE_ID) {
+				raycastCircle(j, (CircleShape) shape, x0, y0, dx, dy, out);
+			} else if (shape.getShapeType() == RectShape.TYPE_ID) {
+				raycastRect(j, (RectShape) shape, x0, y0, dx, dy, out);
+			}
+		}
+
+		return out.size();
+	}
+
+	/**
+	 * Puts the bodies the broadphase finds around a box into candidates
+	 * @param broadphase
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 */
+	private void findCandidates(Broadphase broadphase, float minX, float minY, float maxX, float maxY) {
+		float drift = bodies.getDrift();
+		candidates.clear();
+		broadphase.query(bodies, minX - drift, minY - drift, maxX + drift, maxY + drift, candidates);
+		candidates.sort();
+	}
+
+	/**
+	 * @param narrowphase
+	 * @param probe
+	 * @param out cleared, then gets the candidates whose shape overlaps the probe
+	 * @return the number of bodies found
+	 */
+	private int collideCandidates(Narrowphase narrowphase, Shape probe, QueryBuffer out) {
+		out.clear();
+
+		for (int k = 0; k < candidates.size(); k++) {
+			int j = candidates.get(k);
+			manifold.reset(null, null);
+			if (narrowphase.collide(probe, bodies.getEntity(j).getShape(), manifold)) {
+				out.add(j);
+			}
+		}
+
+		return out.size();
+	}
+
+	/**
+	 * @param j
+	 * @param circle
+	 * @param x0
+	 * @param y0
+	 * @param dx
+	 * @param dy
+	 * @param out gets the hit, if any
+	 */
+	private static void raycastCircle(int j, CircleShape circle, float x0, float y0, float dx, float dy,
+			RaycastBuffer out) {
+		float r = circle.getRadius();
+		float mx = x0 - circle.getPosition().getX();
+		float my = y0 - circle.getPosition().getY();
+		float c = (mx * mx) + (my * my) - (r * r);
+		float a = (dx * dx) + (dy * dy);
+		float b = (mx * dx) + (my * dy);
+		float disc = (b * b) - (a * c);
+
+		if (c <= 0f || b >= 0f || disc < 0f) {
+			return;
+		}
+
+		float t = (-b - (float) Math.sqrt(disc)) / a;
+		if (t > 1f) {
+			return;
+		}
+
+		float hx = mx + (dx * t);
+		float hy = my + (dy * t);
+		out.add(j, t, x0 + (dx * t), y0 + (dy * t), hx / r, hy / r);
+	}
+
+	/**
+	 * Slab test in the rect's own axes
+	 * @param j
+	 * @param rect
+	 * @param x0
+	 * @param y0
+	 * @param dx
+	 * @param dy
+	 * @param out gets the hit, if any
+	 */
+	private static void raycastRect(int j, RectShape rect, float x0, float y0, float dx, float dy,
+			RaycastBuffer out) {
+		float cos = rect.getCos();
+		float sin = rect.getSin();
+		float rx = x0 - rect.getPosition().getX();
+		float ry = y0 - rect.getPosition().getY();
+		float lx = (cos * rx) + (sin * ry);
+		float ly = (cos * ry) - (sin * rx);
+		float ldx = (cos * dx) + (sin * dy);
+		float ldy = (cos * dy) - (sin * dx);
+		float hw = rect.getWidth() / 2f;
+		float hh = rect.getHeight() / 2f;
+
+		if (Math.abs(lx) < hw && Math.abs(ly) < hh) {
+			return;
+		}
+
+		float enter = 0f;
+		float exit = 1f;
+		float nx = 0f;
+		float ny = 0f;
+
+		if (ldx == 0f) {
+			if (Math.abs(lx) > hw) {
+				return;
+			}
+		} else {
+			float near = ((-Math.signum(ldx) * hw) - lx) / ldx;
+			float far = ((Math.signum(ldx) * hw) - lx) / ldx;
+			if (near >= enter) {
+				enter = near;
+				nx = -Math.signum(ldx);
+			}
+			exit = Math.min(exit, far);
+		}
+
+		if (ldy == 0f) {
+			if (Math.abs(ly) > hh) {
+				return;
+			}
+		} else {
+			float near = ((-Math.signum(ldy) * hh) - ly) / ldy;
+			float far = ((Math.signum(ldy) * hh) - ly) / ldy;
+			if (near >= enter) {
+				enter = near;
+				nx = 0f;
+				ny = -Math.signum(ldy);
+			}
+			exit = Math.min(exit, far);
+		}
+
+		if (enter > exit || (nx == 0f && ny == 0f)) {
+			return;
+		}
+
+		// back out of the rect's axes
+		out.add(j, enter, x0 + (dx * enter), y0 + (dy * enter), (cos * nx) - (sin * ny), (sin * nx) + (cos * ny));
+	}
+}
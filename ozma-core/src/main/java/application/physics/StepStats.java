@@ -0,0 +1,99 @@
+package application.physics;
+
+/**
+ * What the last update and integration of an engine did, and how long each
+ * phase took. Phase times are only measured while something is listening,
+ * see PhysicsEngine.isTimed, otherwise they stay zero.
+ */
+public class StepStats {
+
+	long broadphaseNanos;
+	long narrowphaseNanos;
+	long solveNanos;
+	long integrateNanos;
+	int bodies;
+	int candidatePairs;
+	int contacts;
+	int sleepingBodies;
+	int sweptBodies;
+
+	/**
+	 * Zeroes the phase times, for steps that aren't timed
+	 */
+	void clearTimes() {
+		broadphaseNanos = 0L;
+		narrowphaseNanos = 0L;
+		solveNanos = 0L;
+		integrateNanos = 0L;
+	}
+
+	/**
+	 * @return nanoseconds spent finding potential collisions
+	 */
+	public long getBroadphaseNanos() {
+		return broadphaseNanos;
+	}
+
+	/**
+	 * @return nanoseconds spent checking potential collisions and building manifolds
+	 */
+	public long getNarrowphaseNanos() {
+		return narrowphaseNanos;
+	}
+
+	/**
+	 * @return nanoseconds spent in the contact solver
+	 */
+	public long getSolveNanos() {
+		return solveNanos;
+	}
+
+	/**
+	 * @return nanoseconds spent moving bodies and deciding which sleep
+	 */
+	public long getIntegrateNanos() {
+		return integrateNanos;
+	}
+
+	/**
+	 * @return nanoseconds of all the phases together
+	 */
+	public long getStepNanos() {
+		return broadphaseNanos + narrowphaseNanos + solveNanos + integrateNanos;
+	}
+
+	/**
+	 * @return the number of bodies
+	 */
+	public int getBodies() {
+		return bodies;
+	}
+
+	/**
+	 * @return the number of pairs found by the broadphase
+	 */
+	public int getCandidatePairs() {
+		return candidatePairs;
+	}
+
+	/**
+	 * @return the number of contacts solved
+	 */
+	public int getContacts() {
+		return contacts;
+	}
+
+	/**
+	 * @return the number of sleeping bodies after the integration
+	 */
+	public int getSleepingBodies() {
+		return sleepingBodies;
+	}
+
+	/**
+	 * @return the number of bodies swept for collisions by the integration
+	 */
+	public int getSweptBodies() {
+		return sweptBodies;
+	}
+}
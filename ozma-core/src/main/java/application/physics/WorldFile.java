@@ -0,0 +1,387 @@
+package application.physics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import application.entity.BasicPhysicsEntity;
+import application.math.Vector2;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * Saves the whole state of an engine to a compact binary file and loads it
+ * back, so a world can be stopped and picked up again exactly where it was.
+ *
+ * Everything is little endian and fixed size: a header with the engine's
+ * settings and counts, then one record per material, one per body in slot
+ * order and one per touching pair the contact cache carries. Bodies that share
+ * a PhysicsProperties share a material record, and still share one after
+ * loading. Sleep groups, rest times and cached impulses are kept too, so a
+ * loaded engine steps to bit for bit the same state as the one it was saved
+ * from. The broadphase isn't saved, it is rebuilt from the bodies on every
+ * update anyway.
+ *
+ * Files are encoded into a heap buffer and written a slice at a time, so
+ * saving often, as checkpoints do, leaves no direct memory waiting for the
+ * collector. Large files are memory mapped for loading instead of read, so the
+ * records are decoded straight from the page cache.
+ */
+public final class WorldFile {
+
+	/**
+	 * "OZMW", the first four bytes of every world file
+	 */
+	public static final int MAGIC = 0x4F5A4D57;
+
+	/**
+	 * Format written by save, bumped whenever a record changes
+	 */
+	public static final int VERSION = 1;
+
+	// sizes in bytes
+	private static final int HEADER_BYTES = 15 * 4;
+	private static final int MATERIAL_BYTES = 5 * 4;
+	private static final int BODY_BYTES = 13 * 4;
+
+	// files at least this big are mapped instead of read
+	private static final long MAP_THRESHOLD = 1 << 20;
+
+	// most bytes handed to the channel at once, which copies them through a direct buffer of its own
+	private static final int WRITE_SLICE = 64 * 1024;
+
+	// header flags
+	private static final int SLEEPING_ALLOWED = 1;
+	private static final int SWEEPING_ALLOWED = 2;
+
+	// body flags, beside the store's FROZEN, SLEEPING and BULLET
+	private static final int FIXED_ROTATION = 8;
+
+	private WorldFile() {
+	}
+
+	/**
+	 * Writes the engine to a file, replacing it
+	 * @param engine
+	 * @param path
+	 * @throws IOException
+	 */
+	public static void save(PhysicsEngine engine, Path path) throws IOException {
+		ByteBuffer out = write(engine);
+		int end = out.limit();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (out.position() < end) {
+				out.limit(Math.min(end, out.position() + WRITE_SLICE));
+				while (out.hasRemaining()) {
+					channel.write(out);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces everything in the engine with a world read from a file. The
+	 * engine's entity list is emptied and filled with new entities.
+	 * @param engine
+	 * @param path
+	 * @throws IOException if the file can't be read or isn't a world file
+	 */
+	public static void load(PhysicsEngine engine, Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("world file too large: " + size + " bytes");
+			}
+
+			ByteBuffer in;
+			if (size >= MAP_THRESHOLD) {
+				in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			} else {
+				in = ByteBuffer.allocate((int) size);
+				while (in.hasRemaining() && channel.read(in) >= 0) {
+					// keep reading until full or the end of the file
+				}
+				in.flip();
+			}
+			read(engine, in);
+		}
+	}
+
+	/**
+	 * @param engine
+	 * @return the engine in the file format, ready to be read from
+	 */
+	public static ByteBuffer toBuffer(PhysicsEngine engine) {
+		return write(engine);
+	}
+
+	/**
+	 * Replaces everything in the engine with a world in the file format, see
+	 * load
+	 * @param engine
+	 * @param in read from its position on
+	 * @throws IOException if it isn't a world file
+	 */
+	public static void fromBuffer(PhysicsEngine engine, ByteBuffer in) throws IOException {
+		read(engine, in);
+	}
+
+	/**
+	 * Encodes the engine into a buffer of exactly the right size
+	 * @param engine
+	 * @return the buffer, flipped
+	 */
+	private static ByteBuffer write(PhysicsEngine engine) {
+		// once slots change hands the next update drops cached impulses and wakes everything, so save it that way
+		boolean slotsKept = engine.syncBodies();
+		BodyStore bodies = engine.getBodies();
+		ContactCache cache = engine.getContactCache();
+		int n = bodies.size();
+		int pairs = slotsKept ? cache.size() : 0;
+
+		Map<PhysicsProperties, Integer> ids = new IdentityHashMap<>();
+		List<PhysicsProperties> materials = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			PhysicsProperties prop = bodies.getEntity(i).getProperties();
+			if (!ids.containsKey(prop)) {
+				ids.put(prop, materials.size());
+				materials.add(prop);
+			}
+		}
+
+		int size = HEADER_BYTES + (materials.size() * MATERIAL_BYTES) + (n * BODY_BYTES)
+				+ (pairs * ContactCache.pairBytes());
+		ByteBuffer out = ByteBuffer.allocate(size);
+		out.order(ByteOrder.LITTLE_ENDIAN);
+
+		out.putInt(MAGIC);
+		out.putInt(VERSION);
+		out.putInt((engine.isSleepingAllowed() ? SLEEPING_ALLOWED : 0) | (engine.isSweepingAllowed() ? SWEEPING_ALLOWED : 0));
+		out.putFloat(engine.getTimestep());
+		out.putFloat(engine.getAccumulator());
+		out.putInt(engine.getMaxSubsteps());
+		out.putInt(engine.getVelocityIterations());
+		out.putInt(engine.getPositionIterations());
+		out.putFloat(engine.getSleepSpeed());
+		out.putFloat(engine.getTimeToSleep());
+		out.putFloat(engine.getSweepThreshold());
+		out.putInt(engine.getMaxSweeps());
+		out.putInt(materials.size());
+		out.putInt(n);
+		out.putInt(pairs);
+
+		for (PhysicsProperties prop : materials) {
+			out.putFloat(prop.getMass());
+			out.putFloat(prop.getRestitution());
+			out.putFloat(prop.getVelocityDamping());
+			out.putFloat(prop.getStaticFriction());
+			out.putFloat(prop.getDynamicFriction());
+		}
+
+		for (int i = 0; i < n; i++) {
+			BasicPhysicsEntity e = bodies.getEntity(i);
+			Shape shape = e.getShape();
+			boolean sleeping = slotsKept && bodies.isSleeping(i);
+			int flags = (bodies.isFrozen(i) ? BodyStore.FROZEN : 0)
+					| (sleeping ? BodyStore.SLEEPING : 0)
+					| (bodies.isBullet(i) ? BodyStore.BULLET : 0)
+					| (e.isFixedRotation() ? FIXED_ROTATION : 0);
+
+			out.putInt(shape.getShapeType());
+			out.putInt(flags);
+			out.putInt(ids.get(e.getProperties()));
+			out.putInt(sleeping ? bodies.getSleepGroup(i) : 0);
+			out.putFloat(bodies.getPositionX(i));
+			out.putFloat(bodies.getPositionY(i));
+			out.putFloat(bodies.getAngle(i));
+			out.putFloat(bodies.getVelocityX(i));
+			out.putFloat(bodies.getVelocityY(i));
+			out.putFloat(bodies.getAngularVelocity(i));
+
+			if (shape.getShapeType() == RectShape.TYPE_ID) {
+				out.putFloat(((RectShape) shape).getWidth());
+				out.putFloat(((RectShape) shape).getHeight());
+			} else {
+				out.putFloat(((CircleShape) shape).getRadius());
+				out.putFloat(0f);
+			}
+			out.putFloat(slotsKept ? bodies.getRestTime(i) : 0f);
+		}
+
+		if (pairs > 0) {
+			cache.write(out);
+		}
+
+		out.flip();
+		return out;
+	}
+
+	/**
+	 * Decodes a world into the engine
+	 * @param engine
+	 * @param in
+	 * @throws IOException
+	 */
+	private static void read(PhysicsEngine engine, ByteBuffer in) throws IOException {
+		in.order(ByteOrder.LITTLE_ENDIAN);
+		if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+			throw new IOException("not a world file");
+		}
+
+		int version = in.getInt();
+		if (version != VERSION) {
+			throw new IOException("unsupported world file version " + version);
+		}
+
+		int engineFlags = in.getInt();
+		float timestep = in.getFloat();
+		float accumulator = in.getFloat();
+		int maxSubsteps = in.getInt();
+		int velocityIterations = in.getInt();
+		int positionIterations = in.getInt();
+		float sleepSpeed = in.getFloat();
+		float timeToSleep = in.getFloat();
+		float sweepThreshold = in.getFloat();
+		int maxSweeps = in.getInt();
+		int materialCount = in.getInt();
+		int n = in.getInt();
+		int pairs = in.getInt();
+
+		long expected = ((long) materialCount * MATERIAL_BYTES) + ((long) n * BODY_BYTES)
+				+ ((long) pairs * ContactCache.pairBytes());
+		if (materialCount < 0 || n < 0 || pairs < 0 || in.remaining() < expected) {
+			throw new IOException("truncated world file");
+		}
+
+		// check and read everything before touching the engine, so a bad file leaves it as it was
+		check(timestep > 0f && Float.isFinite(timestep), "timestep", timestep);
+		check(accumulator >= 0f && Float.isFinite(accumulator), "accumulator", accumulator);
+		check(maxSubsteps >= 1, "maxSubsteps", maxSubsteps);
+		check(velocityIterations >= 1, "velocityIterations", velocityIterations);
+		check(positionIterations >= 0, "positionIterations", positionIterations);
+		check(sleepSpeed >= 0f && Float.isFinite(sleepSpeed), "sleepSpeed", sleepSpeed);
+		check(timeToSleep >= 0f && Float.isFinite(timeToSleep), "timeToSleep", timeToSleep);
+		check(sweepThreshold > 0f && Float.isFinite(sweepThreshold), "sweepThreshold", sweepThreshold);
+		check(maxSweeps >= 1, "maxSweeps", maxSweeps);
+
+		PhysicsProperties[] materials = new PhysicsProperties[materialCount];
+		for (int m = 0; m < materialCount; m++) {
+			float mass = in.getFloat();
+			float restitution = in.getFloat();
+			float damping = in.getFloat();
+			float staticFriction = in.getFloat();
+			float dynamicFriction = in.getFloat();
+			if (!(mass >= 0f) || !Float.isFinite(mass) || !Float.isFinite(restitution) || !Float.isFinite(damping)
+					|| !(staticFriction >= 0f) || !Float.isFinite(staticFriction)
+					|| !(dynamicFriction >= 0f) || !Float.isFinite(dynamicFriction)) {
+				throw new IOException("material " + m + " has a bad value");
+			}
+
+			PhysicsProperties prop = new PhysicsProperties(mass, restitution);
+			prop.setVelocityDamping(damping);
+			prop.setStaticFriction(staticFriction);
+			prop.setDynamicFriction(dynamicFriction);
+			materials[m] = prop;
+		}
+
+		List<BasicPhysicsEntity> loaded = new ArrayList<>(n);
+		int[] sleepGroups = new int[n];
+		float[] restTimes = new float[n];
+		for (int i = 0; i < n; i++) {
+			int shapeType = in.getInt();
+			int flags = in.getInt();
+			int material = in.getInt();
+			sleepGroups[i] = in.getInt();
+			Vector2 pos = new Vector2(in.getFloat(), in.getFloat());
+			float angle = in.getFloat();
+			float velX = in.getFloat();
+			float velY = in.getFloat();
+			float angularVel = in.getFloat();
+			float sizeA = in.getFloat();
+			float sizeB = in.getFloat();
+			restTimes[i] = in.getFloat();
+
+			if (material < 0 || material >= materialCount) {
+				throw new IOException("body " + i + " has no material " + material);
+			}
+
+			if (!Float.isFinite(pos.getX()) || !Float.isFinite(pos.getY()) || !Float.isFinite(angle)
+					|| !Float.isFinite(velX) || !Float.isFinite(velY) || !Float.isFinite(angularVel)
+					|| !(sizeA > 0f) || !Float.isFinite(sizeA) || !(sizeB >= 0f) || !Float.isFinite(sizeB)
+					|| !(restTimes[i] >= 0f) || !Float.isFinite(restTimes[i])) {
+				throw new IOException("body " + i + " has a bad value");
+			}
+
+			Shape shape;
+			if (shapeType == RectShape.TYPE_ID) {
+				shape = new RectShape(pos, angle, sizeA, sizeB);
+			} else if (shapeType == CircleShape.TYPE_ID) {
+				shape = new CircleShape(pos, angle, sizeA);
+			} else {
+				throw new IOException("body " + i + " has unknown shape type " + shapeType);
+			}
+
+			BasicPhysicsEntity e = new BasicPhysicsEntity(pos, shape, materials[material]);
+			e.setVelocity(new Vector2(velX, velY));
+			e.setAngularVelocity(angularVel);
+			e.setFrozen((flags & BodyStore.FROZEN) != 0);
+			e.setBullet((flags & BodyStore.BULLET) != 0);
+			e.setFixedRotation((flags & FIXED_ROTATION) != 0);
+			if ((flags & BodyStore.SLEEPING) == 0) {
+				sleepGroups[i] = -1;
+			} else if (sleepGroups[i] < 0 || sleepGroups[i] >= n) {
+				throw new IOException("body " + i + " sleeps in no group " + sleepGroups[i]);
+			}
+			loaded.add(e);
+		}
+
+		engine.setTimestep(timestep);
+		engine.setMaxSubsteps(maxSubsteps);
+		engine.setVelocityIterations(velocityIterations);
+		engine.setPositionIterations(positionIterations);
+		engine.setSleepSpeed(sleepSpeed);
+		engine.setTimeToSleep(timeToSleep);
+		engine.setSweepThreshold(sweepThreshold);
+		engine.setMaxSweeps(maxSweeps);
+
+		engine.clearEngine();
+		engine.setSleepingAllowed((engineFlags & SLEEPING_ALLOWED) != 0);
+		engine.setSweepingAllowed((engineFlags & SWEEPING_ALLOWED) != 0);
+		engine.setAccumulator(accumulator);
+
+		engine.getEntities().addAll(loaded);
+		engine.syncBodies();
+
+		BodyStore bodies = engine.getBodies();
+		for (int i = 0; i < n; i++) {
+			if (sleepGroups[i] >= 0) {
+				bodies.sleep(i, sleepGroups[i]);
+			}
+			bodies.setRestTime(i, restTimes[i]);
+		}
+
+		engine.getContactCache().read(in, pairs);
+		engine.keepSlots();
+	}
+
+	/**
+	 * @param valid
+	 * @param setting
+	 * @param value
+	 * @throws IOException unless valid
+	 */
+	private static void check(boolean valid, String setting, Object value) throws IOException {
+		if (!valid) {
+			throw new IOException("bad setting in world file: " + setting + " " + value);
+		}
+	}
+}
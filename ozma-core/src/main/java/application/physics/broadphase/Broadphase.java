@@ -0,0 +1,89 @@
+package application.physics.broadphase;
+
+import java.util.concurrent.ForkJoinPool;
+
+import application.physics.BodyStore;
+
+/**
+ * Finds the pairs of entities that are close enough to possibly collide.
+ * 
+ * A pair is reported when the loose check circles of both shapes overlap, the
+ * same test the engine has always used. Every pair is reported once, with the
+ * body that comes first in the list first.
+ * 
+ * Bodies are read from the engine's BodyStore, slot i being the entity at index
+ * i of the engine's list.
+ */
+public interface Broadphase {
+
+	/**
+	 * Finds the potential collisions between the bodies and adds them to out
+	 * 
+	 * @param bodies
+	 * @param out
+	 */
+	void findPotentialCollisions(BodyStore bodies, PairBuffer out);
+
+	/**
+	 * Same as findPotentialCollisions, but may split the work across the pool.
+	 * The pairs have to come out in the same order as without the pool.
+	 * Broadphases that can't split their work just run on the calling thread.
+	 * 
+	 * @param bodies
+	 * @param out
+	 * @param pool
+	 */
+	default void findPotentialCollisions(BodyStore bodies, PairBuffer out, ForkJoinPool pool) {
+		findPotentialCollisions(bodies, out);
+	}
+
+	/**
+	 * Adds every body whose loose bounds may overlap a box to out, each once,
+	 * in no particular order. The loose bounds are the square around the loose
+	 * check circle, so they hold the body however it is turned. Broadphases
+	 * that keep an index answer from where the bodies were on the last
+	 * findPotentialCollisions, so the box has to be grown by how far they
+	 * moved since, see BodyStore.getDrift. The default checks every body
+	 * where it is now.
+	 * 
+	 * @param bodies the same bodies as the last findPotentialCollisions
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @param out
+	 */
+	default void query(BodyStore bodies, float minX, float minY, float maxX, float maxY, QueryBuffer out) {
+		for (int i = 0; i < bodies.size(); i++) {
+			float x = bodies.getPositionX(i);
+			float y = bodies.getPositionY(i);
+			float r = bodies.getRadius(i);
+			if (x + r >= minX && x - r <= maxX && y + r >= minY && y - r <= maxY) {
+				out.add(i);
+			}
+		}
+	}
+
+	/**
+	 * Adds every body whose loose bounds may be crossed by a segment to out,
+	 * each once, in no particular order. The default queries the box around
+	 * the segment.
+	 * 
+	 * @param bodies the same bodies as the last findPotentialCollisions
+	 * @param x0 start of the segment
+	 * @param y0
+	 * @param x1 end of the segment
+	 * @param y1
+	 * @param margin how far the bodies may have moved since the index was built
+	 * @param out
+	 */
+	default void queryRay(BodyStore bodies, float x0, float y0, float x1, float y1, float margin, QueryBuffer out) {
+		query(bodies, Math.min(x0, x1) - margin, Math.min(y0, y1) - margin, Math.max(x0, x1) + margin,
+				Math.max(y0, y1) + margin, out);
+	}
+
+	/**
+	 * Removes everything the broadphase remembers about previous entities
+	 */
+	void clear();
+}
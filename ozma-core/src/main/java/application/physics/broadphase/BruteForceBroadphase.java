@@ -0,0 +1,32 @@
+package application.physics.broadphase;
+
+import application.physics.BodyStore;
+
+/**
+ * Checks every entity against every other entity.
+ * Kept as a reference for the other broadphases, it is O(n^2).
+ */
+public class BruteForceBroadphase implements Broadphase {
+
+	@Override
+	public void findPotentialCollisions(BodyStore bodies, PairBuffer out) {
+		int n = bodies.size();
+		for (int a = 0; a < n; a++) {
+			for (int b = a + 1; b < n; b++) {
+				float dx = bodies.getPositionX(b) - bodies.getPositionX(a);
+				float dy = bodies.getPositionY(b) - bodies.getPositionY(a);
+				float rsq = bodies.getRadius(a) + bodies.getRadius(b);
+				rsq *= rsq;
+				if ((dx * dx) + (dy * dy) <= rsq) {
+					out.add(a, b);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		// nothing is kept between updates
+	}
+
+}
@@ -0,0 +1,719 @@
+package application.physics.broadphase;
+
+import java.util.Arrays;
+
+/**
+ * Bounding volume tree of axis aligned boxes that can change as it is used.
+ *
+ * Leaves hold fat boxes, a bit bigger than what they bound, so a leaf only has
+ * to be moved once what it bounds leaves the fat box. Inserting picks the
+ * sibling that grows the tree's perimeter the least, and the path back to the
+ * root is rebalanced with rotations so the tree stays shallow no matter the
+ * order things are added in.
+ *
+ * Nodes are kept in parallel arrays and referred to by index, NULL_NODE is the
+ * missing node.
+ */
+public class DynamicTree {
+
+	public static final int NULL_NODE = -1;
+
+	private float[] minX;
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+	private int[] parent;
+	private int[] child1;
+	private int[] child2;
+	private int[] height;
+	private int[] userData;
+
+	private int root;
+	private int nodeCount;
+	private int capacity;
+	private int freeList;
+
+	private int[] stack;
+	private int[] buildLeaves;
+	private float[] buildCenter;
+
+	public DynamicTree() {
+		super();
+		root = NULL_NODE;
+		capacity = 0;
+		freeList = NULL_NODE;
+		stack = new int[64];
+		buildLeaves = new int[16];
+		buildCenter = new float[16];
+
+		minX = new float[0];
+		minY = new float[0];
+		maxX = new float[0];
+		maxY = new float[0];
+		parent = new int[0];
+		child1 = new int[0];
+		child2 = new int[0];
+		height = new int[0];
+		userData = new int[0];
+		grow(16);
+	}
+
+	/**
+	 * Called for every leaf that overlaps a query box
+	 */
+	public interface QueryCallback {
+
+		/**
+		 * @param userData of the leaf
+		 */
+		void leafFound(int userData);
+	}
+
+	/**
+	 * Adds a leaf with the given fat box
+	 * @param x0
+	 * @param y0
+	 * @param x1
+	 * @param y1
+	 * @param data
+	 * @return the leaf node
+	 */
+	public int createProxy(float x0, float y0, float x1, float y1, int data) {
+		int leaf = allocateNode();
+		setBox(leaf, x0, y0, x1, y1);
+		userData[leaf] = data;
+		height[leaf] = 0;
+		insertLeaf(leaf);
+		return leaf;
+	}
+
+	/**
+	 * Removes a leaf made by createProxy
+	 * @param leaf
+	 */
+	public void destroyProxy(int leaf) {
+		removeLeaf(leaf);
+		freeNode(leaf);
+	}
+
+	/**
+	 * Moves a leaf if the tight box left its fat box. The new fat box is the
+	 * tight box grown by the margin and stretched along the displacement, so a
+	 * moving leaf stays put for a few updates.
+	 * @param leaf
+	 * @param x0 tight box
+	 * @param y0
+	 * @param x1
+	 * @param y1
+	 * @param margin
+	 * @param dx expected displacement before the next move
+	 * @param dy
+	 * @return true if the leaf was reinserted
+	 */
+	public boolean moveProxy(int leaf, float x0, float y0, float x1, float y1, float margin, float dx, float dy) {
+		if (minX[leaf] <= x0 && minY[leaf] <= y0 && x1 <= maxX[leaf] && y1 <= maxY[leaf]) {
+			return false;
+		}
+
+		removeLeaf(leaf);
+
+		x0 -= margin;
+		y0 -= margin;
+		x1 += margin;
+		y1 += margin;
+
+		if (dx < 0f) {
+			x0 += dx;
+		} else {
+			x1 += dx;
+		}
+
+		if (dy < 0f) {
+			y0 += dy;
+		} else {
+			y1 += dy;
+		}
+
+		setBox(leaf, x0, y0, x1, y1);
+		insertLeaf(leaf);
+		return true;
+	}
+
+	/**
+	 * Reports every leaf whose fat box overlaps the box
+	 * @param x0
+	 * @param y0
+	 * @param x1
+	 * @param y1
+	 * @param callback
+	 */
+	public void query(float x0, float y0, float x1, float y1, QueryCallback callback) {
+		if (root == NULL_NODE) {
+			return;
+		}
+
+		int top = 0;
+		stack[top++] = root;
+
+		while (top > 0) {
+			int node = stack[--top];
+
+			if (maxX[node] < x0 || x1 < minX[node] || maxY[node] < y0 || y1 < minY[node]) {
+				continue;
+			}
+
+			if (child1[node] == NULL_NODE) {
+				callback.leafFound(userData[node]);
+			} else {
+				if (top + 2 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				stack[top++] = child1[node];
+				stack[top++] = child2[node];
+			}
+		}
+	}
+
+	/**
+	 * Reports every leaf whose fat box, grown by a margin, is crossed by a
+	 * segment. Branches the segment misses are skipped, so a short ray only
+	 * visits the few nodes along it.
+	 * @param x0 start of the segment
+	 * @param y0
+	 * @param x1 end of the segment
+	 * @param y1
+	 * @param margin
+	 * @param callback
+	 */
+	public void raycast(float x0, float y0, float x1, float y1, float margin, QueryCallback callback) {
+		if (root == NULL_NODE) {
+			return;
+		}
+
+		float dx = x1 - x0;
+		float dy = y1 - y0;
+		int top = 0;
+		stack[top++] = root;
+
+		while (top > 0) {
+			int node = stack[--top];
+
+			if (!segmentCrosses(node, x0, y0, dx, dy, margin)) {
+				continue;
+			}
+
+			if (child1[node] == NULL_NODE) {
+				callback.leafFound(userData[node]);
+			} else {
+				if (top + 2 > stack.length) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				stack[top++] = child1[node];
+				stack[top++] = child2[node];
+			}
+		}
+	}
+
+	/**
+	 * Slab test of a segment against the box of a node
+	 * @param node
+	 * @param x0
+	 * @param y0
+	 * @param dx
+	 * @param dy
+	 * @param margin
+	 * @return true if the segment crosses the box grown by the margin
+	 */
+	private boolean segmentCrosses(int node, float x0, float y0, float dx, float dy, float margin) {
+		float enter = 0f;
+		float exit = 1f;
+		float lowX = minX[node] - margin;
+		float highX = maxX[node] + margin;
+		float lowY = minY[node] - margin;
+		float highY = maxY[node] + margin;
+
+		if (dx == 0f) {
+			if (x0 < lowX || x0 > highX) {
+				return false;
+			}
+		} else {
+			float a = (lowX - x0) / dx;
+			float b = (highX - x0) / dx;
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+
+		if (dy == 0f) {
+			if (y0 < lowY || y0 > highY) {
+				return false;
+			}
+		} else {
+			float a = (lowY - y0) / dy;
+			float b = (highY - y0) / dy;
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+
+		return enter <= exit;
+	}
+
+	/**
+	 * Replaces the whole tree with one built top down from the given leaves,
+	 * splitting at the median along the longest side each time. Much quicker
+	 * than inserting one by one when loading a scene.
+	 * @param x0 fat boxes of the leaves
+	 * @param y0
+	 * @param x1
+	 * @param y1
+	 * @param data
+	 * @param leavesOut gets the leaf node made for each entry
+	 * @param count
+	 */
+	public void build(float[] x0, float[] y0, float[] x1, float[] y1, int[] data, int[] leavesOut, int count) {
+		clear();
+
+		if (count == 0) {
+			return;
+		}
+
+		if (buildLeaves.length < count) {
+			buildLeaves = new int[count];
+			buildCenter = new float[count];
+		}
+
+		for (int i = 0; i < count; i++) {
+			int leaf = allocateNode();
+			setBox(leaf, x0[i], y0[i], x1[i], y1[i]);
+			userData[leaf] = data[i];
+			height[leaf] = 0;
+			leavesOut[i] = leaf;
+			buildLeaves[i] = leaf;
+		}
+
+		root = buildRange(0, count);
+		parent[root] = NULL_NODE;
+	}
+
+	/**
+	 * Removes every node
+	 */
+	public void clear() {
+		root = NULL_NODE;
+		nodeCount = 0;
+		freeList = NULL_NODE;
+		for (int i = capacity - 1; i >= 0; i--) {
+			parent[i] = freeList;
+			height[i] = -1;
+			freeList = i;
+		}
+	}
+
+	/**
+	 * @return the height of the tree, 0 for a single leaf and -1 when empty
+	 */
+	public int getHeight() {
+		return root == NULL_NODE ? -1 : height[root];
+	}
+
+	/**
+	 * @return the number of nodes in use
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @param leaf
+	 * @return the user data given to createProxy
+	 */
+	public int getUserData(int leaf) {
+		return userData[leaf];
+	}
+
+	/**
+	 * Builds the subtree of buildLeaves[start] up to buildLeaves[end]
+	 * @param start
+	 * @param end
+	 * @return the root of the subtree
+	 */
+	private int buildRange(int start, int end) {
+		if (end - start == 1) {
+			return buildLeaves[start];
+		}
+
+		float cx0 = Float.MAX_VALUE, cy0 = Float.MAX_VALUE;
+		float cx1 = -Float.MAX_VALUE, cy1 = -Float.MAX_VALUE;
+		for (int i = start; i < end; i++) {
+			int n = buildLeaves[i];
+			float cx = (minX[n] + maxX[n]) * 0.5f;
+			float cy = (minY[n] + maxY[n]) * 0.5f;
+			cx0 = Math.min(cx0, cx);
+			cx1 = Math.max(cx1, cx);
+			cy0 = Math.min(cy0, cy);
+			cy1 = Math.max(cy1, cy);
+		}
+
+		boolean splitX = (cx1 - cx0) >= (cy1 - cy0);
+		for (int i = start; i < end; i++) {
+			int n = buildLeaves[i];
+			buildCenter[i] = splitX ? (minX[n] + maxX[n]) : (minY[n] + maxY[n]);
+		}
+
+		int mid = (start + end) >>> 1;
+		selectNth(start, end - 1, mid);
+
+		int left = buildRange(start, mid);
+		int right = buildRange(mid, end);
+
+		int node = allocateNode();
+		child1[node] = left;
+		child2[node] = right;
+		parent[left] = node;
+		parent[right] = node;
+		height[node] = 1 + Math.max(height[left], height[right]);
+		setUnion(node, left, right);
+		return node;
+	}
+
+	/**
+	 * Partial quick sort of buildLeaves by buildCenter so the nth entry is in
+	 * place, with smaller ones before it and larger ones after
+	 * @param lo
+	 * @param hi inclusive
+	 * @param nth
+	 */
+	private void selectNth(int lo, int hi, int nth) {
+		while (lo < hi) {
+			float pivot = buildCenter[(lo + hi) >>> 1];
+			int i = lo;
+			int j = hi;
+
+			while (i <= j) {
+				while (buildCenter[i] < pivot) {
+					i++;
+				}
+				while (buildCenter[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swapBuild(i, j);
+					i++;
+					j--;
+				}
+			}
+
+			if (nth <= j) {
+				hi = j;
+			} else if (nth >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void swapBuild(int i, int j) {
+		int leaf = buildLeaves[i];
+		buildLeaves[i] = buildLeaves[j];
+		buildLeaves[j] = leaf;
+
+		float center = buildCenter[i];
+		buildCenter[i] = buildCenter[j];
+		buildCenter[j] = center;
+	}
+
+	/**
+	 * Adds a leaf next to the sibling that makes the tree grow the least
+	 * @param leaf
+	 */
+	private void insertLeaf(int leaf) {
+		if (root == NULL_NODE) {
+			root = leaf;
+			parent[root] = NULL_NODE;
+			return;
+		}
+
+		// find the best sibling
+		int index = root;
+		while (child1[index] != NULL_NODE) {
+			int c1 = child1[index];
+			int c2 = child2[index];
+
+			float area = perimeter(index);
+			float combined = unionPerimeter(index, leaf);
+
+			// cost of making a new parent for this node and the leaf
+			float cost = 2f * combined;
+
+			// smallest cost of pushing the leaf further down
+			float inheritance = 2f * (combined - area);
+
+			float cost1 = unionPerimeter(c1, leaf) + inheritance;
+			if (child1[c1] != NULL_NODE) {
+				cost1 -= perimeter(c1);
+			}
+
+			float cost2 = unionPerimeter(c2, leaf) + inheritance;
+			if (child1[c2] != NULL_NODE) {
+				cost2 -= perimeter(c2);
+			}
+
+			if (cost < cost1 && cost < cost2) {
+				break;
+			}
+
+			index = cost1 < cost2 ? c1 : c2;
+		}
+
+		int sibling = index;
+
+		// new parent for the leaf and sibling
+		int oldParent = parent[sibling];
+		int newParent = allocateNode();
+		parent[newParent] = oldParent;
+		userData[newParent] = -1;
+		setUnion(newParent, leaf, sibling);
+		height[newParent] = height[sibling] + 1;
+		child1[newParent] = sibling;
+		child2[newParent] = leaf;
+		parent[sibling] = newParent;
+		parent[leaf] = newParent;
+
+		if (oldParent == NULL_NODE) {
+			root = newParent;
+		} else if (child1[oldParent] == sibling) {
+			child1[oldParent] = newParent;
+		} else {
+			child2[oldParent] = newParent;
+		}
+
+		refitUp(parent[leaf]);
+	}
+
+	/**
+	 * Takes a leaf out of the tree, its parent goes with it
+	 * @param leaf
+	 */
+	private void removeLeaf(int leaf) {
+		if (leaf == root) {
+			root = NULL_NODE;
+			return;
+		}
+
+		int p = parent[leaf];
+		int grandParent = parent[p];
+		int sibling = child1[p] == leaf ? child2[p] : child1[p];
+
+		if (grandParent == NULL_NODE) {
+			root = sibling;
+			parent[sibling] = NULL_NODE;
+			freeNode(p);
+			return;
+		}
+
+		if (child1[grandParent] == p) {
+			child1[grandParent] = sibling;
+		} else {
+			child2[grandParent] = sibling;
+		}
+		parent[sibling] = grandParent;
+		freeNode(p);
+
+		refitUp(grandParent);
+	}
+
+	/**
+	 * Walks to the root rebalancing and fixing up boxes and heights
+	 * @param index
+	 */
+	private void refitUp(int index) {
+		while (index != NULL_NODE) {
+			index = balance(index);
+
+			int c1 = child1[index];
+			int c2 = child2[index];
+			height[index] = 1 + Math.max(height[c1], height[c2]);
+			setUnion(index, c1, c2);
+
+			index = parent[index];
+		}
+	}
+
+	/**
+	 * Rotates A's taller child up if the children's heights differ by more
+	 * than one
+	 *
+	 * <pre>
+	 *       A
+	 *     /   \
+	 *    B     C
+	 *   / \   / \
+	 *  D   E F   G
+	 * </pre>
+	 *
+	 * @param a
+	 * @return the node now in A's place
+	 */
+	private int balance(int a) {
+		if (child1[a] == NULL_NODE || height[a] < 2) {
+			return a;
+		}
+
+		int b = child1[a];
+		int c = child2[a];
+		int diff = height[c] - height[b];
+
+		// rotate C up
+		if (diff > 1) {
+			int f = child1[c];
+			int g = child2[c];
+
+			child1[c] = a;
+			parent[c] = parent[a];
+			parent[a] = c;
+			replaceChild(parent[c], a, c);
+
+			if (height[f] > height[g]) {
+				child2[c] = f;
+				child2[a] = g;
+				parent[g] = a;
+				setUnion(a, b, g);
+				setUnion(c, a, f);
+				height[a] = 1 + Math.max(height[b], height[g]);
+				height[c] = 1 + Math.max(height[a], height[f]);
+			} else {
+				child2[c] = g;
+				child2[a] = f;
+				parent[f] = a;
+				setUnion(a, b, f);
+				setUnion(c, a, g);
+				height[a] = 1 + Math.max(height[b], height[f]);
+				height[c] = 1 + Math.max(height[a], height[g]);
+			}
+
+			return c;
+		}
+
+		// rotate B up
+		if (diff < -1) {
+			int d = child1[b];
+			int e = child2[b];
+
+			child1[b] = a;
+			parent[b] = parent[a];
+			parent[a] = b;
+			replaceChild(parent[b], a, b);
+
+			if (height[d] > height[e]) {
+				child2[b] = d;
+				child1[a] = e;
+				parent[e] = a;
+				setUnion(a, c, e);
+				setUnion(b, a, d);
+				height[a] = 1 + Math.max(height[c], height[e]);
+				height[b] = 1 + Math.max(height[a], height[d]);
+			} else {
+				child2[b] = e;
+				child1[a] = d;
+				parent[d] = a;
+				setUnion(a, c, d);
+				setUnion(b, a, e);
+				height[a] = 1 + Math.max(height[c], height[d]);
+				height[b] = 1 + Math.max(height[a], height[e]);
+			}
+
+			return b;
+		}
+
+		return a;
+	}
+
+	/**
+	 * Points the parent (or the root) at the new child
+	 * @param p
+	 * @param oldChild
+	 * @param newChild
+	 */
+	private void replaceChild(int p, int oldChild, int newChild) {
+		if (p == NULL_NODE) {
+			root = newChild;
+		} else if (child1[p] == oldChild) {
+			child1[p] = newChild;
+		} else {
+			child2[p] = newChild;
+		}
+	}
+
+	private void setBox(int node, float x0, float y0, float x1, float y1) {
+		minX[node] = x0;
+		minY[node] = y0;
+		maxX[node] = x1;
+		maxY[node] = y1;
+	}
+
+	private void setUnion(int node, int a, int b) {
+		minX[node] = Math.min(minX[a], minX[b]);
+		minY[node] = Math.min(minY[a], minY[b]);
+		maxX[node] = Math.max(maxX[a], maxX[b]);
+		maxY[node] = Math.max(maxY[a], maxY[b]);
+	}
+
+	private float perimeter(int node) {
+		return 2f * ((maxX[node] - minX[node]) + (maxY[node] - minY[node]));
+	}
+
+	private float unionPerimeter(int a, int b) {
+		float w = Math.max(maxX[a], maxX[b]) - Math.min(minX[a], minX[b]);
+		float h = Math.max(maxY[a], maxY[b]) - Math.min(minY[a], minY[b]);
+		return 2f * (w + h);
+	}
+
+	private int allocateNode() {
+		if (freeList == NULL_NODE) {
+			grow(capacity * 2);
+		}
+
+		int node = freeList;
+		freeList = parent[node];
+		parent[node] = NULL_NODE;
+		child1[node] = NULL_NODE;
+		child2[node] = NULL_NODE;
+		height[node] = 0;
+		userData[node] = -1;
+		nodeCount++;
+		return node;
+	}
+
+	private void freeNode(int node) {
+		parent[node] = freeList;
+		height[node] = -1;
+		freeList = node;
+		nodeCount--;
+	}
+
+	/**
+	 * Grows the node arrays, the new nodes go on the free list
+	 * @param size
+	 */
+	private void grow(int size) {
+		int old = capacity;
+
+		minX = Arrays.copyOf(minX, size);
+		minY = Arrays.copyOf(minY, size);
+		maxX = Arrays.copyOf(maxX, size);
+		maxY = Arrays.copyOf(maxY, size);
+		parent = Arrays.copyOf(parent, size);
+		child1 = Arrays.copyOf(child1, size);
+		child2 = Arrays.copyOf(child2, size);
+		height = Arrays.copyOf(height, size);
+		userData = Arrays.copyOf(userData, size);
+		capacity = size;
+
+		for (int i = size - 1; i >= old; i--) {
+			parent[i] = freeList;
+			height[i] = -1;
+			freeList = i;
+		}
+	}
+
+}
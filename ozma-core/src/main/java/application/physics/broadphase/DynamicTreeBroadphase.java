@@ -0,0 +1,385 @@
+package application.physics.broadphase;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.BodyStore;
+
+/**
+ * Broadphase backed by a DynamicTree, made for worlds that mix very large and
+ * very small shapes where a grid can't pick a good cell size.
+ *
+ * Each entity gets a leaf with a fat box: its bounds grown by a margin and
+ * stretched along its velocity. The leaf is only reinserted once the entity
+ * leaves that box, so most updates don't touch the tree at all. When a lot of
+ * entities arrive at once, such as loading a scene, the tree is built in bulk
+ * instead.
+ *
+ * Queries walk the same tree, so they only visit the branches whose fat boxes
+ * reach the query.
+ */
+public class DynamicTreeBroadphase implements Broadphase {
+
+	/**
+	 * How much the fat box is grown around the bounds
+	 */
+	private static final float FAT_MARGIN = 4f;
+
+	/**
+	 * Seconds of velocity the fat box is stretched by
+	 */
+	private static final float DEFAULT_PREDICT_TIME = 1f / 30f;
+
+	/**
+	 * Added to the radius so the bounds never miss a pair the circle check
+	 * would keep because of rounding
+	 */
+	private static final float BOUNDS_MARGIN = 0.01f;
+
+	/**
+	 * Above this many new entities in one update the tree is rebuilt in bulk
+	 */
+	private static final int BULK_BUILD_THRESHOLD = 64;
+
+	private DynamicTree tree;
+	private IdentityHashMap<BasicPhysicsEntity, Proxy> proxyMap;
+	private Proxy[] proxies;
+	private int[] freeIds;
+	private int freeCount;
+	private int nextId;
+	private int stamp;
+	private float predictTime;
+	private int reinsertCount;
+
+	// scratch for bulk builds
+	private float[] buildX0;
+	private float[] buildY0;
+	private float[] buildX1;
+	private float[] buildY1;
+	private int[] buildData;
+	private int[] buildLeaves;
+
+	private final PairFinder pairFinder;
+	private final BodyFinder bodyFinder;
+
+	public DynamicTreeBroadphase() {
+		super();
+		tree = new DynamicTree();
+		proxyMap = new IdentityHashMap<>();
+		proxies = new Proxy[64];
+		freeIds = new int[64];
+		predictTime = DEFAULT_PREDICT_TIME;
+		pairFinder = new PairFinder();
+		bodyFinder = new BodyFinder();
+	}
+
+	@Override
+	public void findPotentialCollisions(BodyStore bodies, PairBuffer out) {
+		stamp++;
+		reinsertCount = 0;
+
+		int added = syncProxies(bodies);
+		removeStaleProxies();
+
+		if (added > BULK_BUILD_THRESHOLD) {
+			bulkBuild();
+		} else if (added > 0) {
+			for (int i = 0; i < nextId; i++) {
+				Proxy p = proxies[i];
+				if (p != null && p.leaf == DynamicTree.NULL_NODE) {
+					insertProxy(p);
+				}
+			}
+		}
+
+		pairFinder.out = out;
+		for (int i = 0; i < nextId; i++) {
+			Proxy p = proxies[i];
+			if (p == null) {
+				continue;
+			}
+
+			pairFinder.proxy = p;
+			tree.query(p.x0, p.y0, p.x1, p.y1, pairFinder);
+		}
+		pairFinder.out = null;
+		pairFinder.proxy = null;
+	}
+
+	@Override
+	public void query(BodyStore bodies, float minX, float minY, float maxX, float maxY, QueryBuffer out) {
+		// not built for these bodies yet
+		if (proxyMap.size() != bodies.size()) {
+			Broadphase.super.query(bodies, minX, minY, maxX, maxY, out);
+			return;
+		}
+
+		bodyFinder.out = out;
+		tree.query(minX, minY, maxX, maxY, bodyFinder);
+		bodyFinder.out = null;
+	}
+
+	@Override
+	public void queryRay(BodyStore bodies, float x0, float y0, float x1, float y1, float margin, QueryBuffer out) {
+		if (proxyMap.size() != bodies.size()) {
+			Broadphase.super.queryRay(bodies, x0, y0, x1, y1, margin, out);
+			return;
+		}
+
+		bodyFinder.out = out;
+		tree.raycast(x0, y0, x1, y1, margin, bodyFinder);
+		bodyFinder.out = null;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(proxies, null);
+		proxyMap.clear();
+		tree.clear();
+		freeCount = 0;
+		nextId = 0;
+	}
+
+	/**
+	 * Builds the tree from scratch from the given bodies, use when loading a
+	 * scene
+	 * @param bodies
+	 */
+	public void build(BodyStore bodies) {
+		clear();
+		stamp++;
+		syncProxies(bodies);
+		bulkBuild();
+	}
+
+	/**
+	 * @return the tree
+	 */
+	public DynamicTree getTree() {
+		return tree;
+	}
+
+	/**
+	 * @return the number of leaves that left their fat box on the last update
+	 */
+	public int getReinsertCount() {
+		return reinsertCount;
+	}
+
+	/**
+	 * @return the predictTime
+	 */
+	public float getPredictTime() {
+		return predictTime;
+	}
+
+	/**
+	 * @param predictTime seconds of velocity the fat boxes are stretched by
+	 */
+	public void setPredictTime(float predictTime) {
+		this.predictTime = predictTime;
+	}
+
+	/**
+	 * Finds the proxy of each entity, makes proxies for new ones and moves the
+	 * leaves of entities that left their fat box
+	 * @param bodies
+	 * @return the number of new proxies
+	 */
+	private int syncProxies(BodyStore bodies) {
+		int added = 0;
+
+		for (int i = 0; i < bodies.size(); i++) {
+			BasicPhysicsEntity e = bodies.getEntity(i);
+			Proxy p = proxyMap.get(e);
+
+			if (p == null) {
+				p = new Proxy(e, allocateId());
+				proxyMap.put(e, p);
+				proxies[p.id] = p;
+				added++;
+			}
+
+			p.index = i;
+			p.stamp = stamp;
+
+			p.x = bodies.getPositionX(i);
+			p.y = bodies.getPositionY(i);
+			p.radius = bodies.getRadius(i);
+			p.vx = bodies.getVelocityX(i);
+			p.vy = bodies.getVelocityY(i);
+
+			float r = p.radius + BOUNDS_MARGIN;
+			p.x0 = p.x - r;
+			p.y0 = p.y - r;
+			p.x1 = p.x + r;
+			p.y1 = p.y + r;
+
+			if (p.leaf != DynamicTree.NULL_NODE) {
+				if (tree.moveProxy(p.leaf, p.x0, p.y0, p.x1, p.y1, FAT_MARGIN, p.vx * predictTime, p.vy * predictTime)) {
+					reinsertCount++;
+				}
+			}
+		}
+
+		return added;
+	}
+
+	/**
+	 * Drops the proxies of entities that are no longer in the list
+	 */
+	private void removeStaleProxies() {
+		for (int i = 0; i < nextId; i++) {
+			Proxy p = proxies[i];
+			if (p == null || p.stamp == stamp) {
+				continue;
+			}
+
+			if (p.leaf != DynamicTree.NULL_NODE) {
+				tree.destroyProxy(p.leaf);
+			}
+			proxyMap.remove(p.entity);
+			proxies[i] = null;
+			freeIds[freeCount++] = i;
+		}
+	}
+
+	/**
+	 * Inserts a single new proxy into the tree
+	 * @param p
+	 */
+	private void insertProxy(Proxy p) {
+		float dx = p.vx * predictTime;
+		float dy = p.vy * predictTime;
+
+		p.leaf = tree.createProxy(
+				p.x0 - FAT_MARGIN + Math.min(dx, 0f), p.y0 - FAT_MARGIN + Math.min(dy, 0f),
+				p.x1 + FAT_MARGIN + Math.max(dx, 0f), p.y1 + FAT_MARGIN + Math.max(dy, 0f),
+				p.id);
+	}
+
+	/**
+	 * Rebuilds the whole tree from every proxy
+	 */
+	private void bulkBuild() {
+		int count = 0;
+		for (int i = 0; i < nextId; i++) {
+			if (proxies[i] != null) {
+				count++;
+			}
+		}
+
+		if (buildData == null || buildData.length < count) {
+			buildX0 = new float[count];
+			buildY0 = new float[count];
+			buildX1 = new float[count];
+			buildY1 = new float[count];
+			buildData = new int[count];
+			buildLeaves = new int[count];
+		}
+
+		int k = 0;
+		for (int i = 0; i < nextId; i++) {
+			Proxy p = proxies[i];
+			if (p == null) {
+				continue;
+			}
+
+			float dx = p.vx * predictTime;
+			float dy = p.vy * predictTime;
+
+			buildX0[k] = p.x0 - FAT_MARGIN + Math.min(dx, 0f);
+			buildY0[k] = p.y0 - FAT_MARGIN + Math.min(dy, 0f);
+			buildX1[k] = p.x1 + FAT_MARGIN + Math.max(dx, 0f);
+			buildY1[k] = p.y1 + FAT_MARGIN + Math.max(dy, 0f);
+			buildData[k] = p.id;
+			k++;
+		}
+
+		tree.build(buildX0, buildY0, buildX1, buildY1, buildData, buildLeaves, count);
+
+		for (int i = 0; i < count; i++) {
+			proxies[buildData[i]].leaf = buildLeaves[i];
+		}
+	}
+
+	private int allocateId() {
+		if (freeCount > 0) {
+			return freeIds[--freeCount];
+		}
+
+		int id = nextId++;
+		if (id >= proxies.length) {
+			proxies = Arrays.copyOf(proxies, proxies.length * 2);
+			freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+		}
+		return id;
+	}
+
+	/**
+	 * What the broadphase keeps for each entity
+	 */
+	private static class Proxy {
+		final BasicPhysicsEntity entity;
+		final int id;
+		int index;
+		int stamp;
+		int leaf = DynamicTree.NULL_NODE;
+
+		// centre, radius and velocity this update
+		float x, y, radius, vx, vy;
+
+		// tight bounds this update
+		float x0, y0, x1, y1;
+
+		/**
+		 * @param entity
+		 * @param id
+		 */
+		Proxy(BasicPhysicsEntity entity, int id) {
+			this.entity = entity;
+			this.id = id;
+		}
+	}
+
+	/**
+	 * Tree callback that turns the leaves found for one proxy into pairs.
+	 * Each pair is found from both sides, only the side with the lower list
+	 * index reports it.
+	 */
+	private class PairFinder implements DynamicTree.QueryCallback {
+		Proxy proxy;
+		PairBuffer out;
+
+		@Override
+		public void leafFound(int id) {
+			Proxy other = proxies[id];
+			if (other.index <= proxy.index) {
+				return;
+			}
+
+			float dx = other.x - proxy.x;
+			float dy = other.y - proxy.y;
+			float rsq = proxy.radius + other.radius;
+			rsq *= rsq;
+
+			if ((dx * dx) + (dy * dy) <= rsq) {
+				out.add(proxy.index, other.index);
+			}
+		}
+	}
+
+	/**
+	 * Tree callback that adds the body of every leaf found by a query
+	 */
+	private class BodyFinder implements DynamicTree.QueryCallback {
+		QueryBuffer out;
+
+		@Override
+		public void leafFound(int id) {
+			out.add(proxies[id].index);
+		}
+	}
+
+}
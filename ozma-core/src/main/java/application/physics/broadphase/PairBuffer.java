@@ -0,0 +1,169 @@
+package application.physics.broadphase;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of pairs of body slots, packed into longs the same way as
+ * PairSet keys. The engine keeps one buffer and clears it every update, so
+ * finding pairs doesn't create an object per pair.
+ *
+ * Sorting puts the pairs in order of their first body, then their second, which
+ * is also the order of the bodies in memory.
+ */
+public class PairBuffer {
+
+	/**
+	 * At or below this many pairs, sort in place instead of counting
+	 */
+	private static final int SMALL_SORT = 64;
+
+	private long[] pairs;
+	private int size;
+
+	// scratch for sorting
+	private long[] sorted;
+	private int[] counts;
+
+	public PairBuffer() {
+		this(64);
+	}
+
+	/**
+	 * @param capacity expected number of pairs
+	 */
+	public PairBuffer(int capacity) {
+		super();
+		pairs = new long[Math.max(capacity, 8)];
+		sorted = new long[0];
+		counts = new int[0];
+	}
+
+	/**
+	 * Adds a pair
+	 * @param a slot of the first body, lower than b
+	 * @param b slot of the second body
+	 */
+	public void add(int a, int b) {
+		if (size == pairs.length) {
+			pairs = Arrays.copyOf(pairs, size * 2);
+		}
+		pairs[size++] = PairSet.key(a, b);
+	}
+
+	/**
+	 * Adds every pair of the other buffer, in order
+	 * @param other
+	 */
+	public void addAll(PairBuffer other) {
+		if (size + other.size > pairs.length) {
+			pairs = Arrays.copyOf(pairs, Math.max(size + other.size, pairs.length * 2));
+		}
+		System.arraycopy(other.pairs, 0, pairs, size, other.size);
+		size += other.size;
+	}
+
+	/**
+	 * Removes every pair, keeping the space for the next update
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Keeps the first pairs and drops the rest
+	 * @param size number of pairs to keep
+	 */
+	public void truncate(int size) {
+		this.size = Math.min(this.size, size);
+	}
+
+	/**
+	 * @return the number of pairs
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i
+	 * @return the packed pair, see PairSet.first and PairSet.second
+	 */
+	public long get(int i) {
+		return pairs[i];
+	}
+
+	/**
+	 * Replaces a pair
+	 * @param i
+	 * @param pair packed pair, see PairSet.key
+	 */
+	public void set(int i, long pair) {
+		pairs[i] = pair;
+	}
+
+	/**
+	 * @param i
+	 * @return the slot of the first body of the pair
+	 */
+	public int first(int i) {
+		return PairSet.first(pairs[i]);
+	}
+
+	/**
+	 * @param i
+	 * @return the slot of the second body of the pair
+	 */
+	public int second(int i) {
+		return PairSet.second(pairs[i]);
+	}
+
+	/**
+	 * Sorts the pairs by first body, then second body. Uses two counting sort
+	 * passes, so it is linear and reuses its scratch space between updates.
+	 * @param bodyCount one more than the highest slot in any pair
+	 */
+	public void sort(int bodyCount) {
+		if (size <= SMALL_SORT) {
+			Arrays.sort(pairs, 0, size);
+			return;
+		}
+
+		if (sorted.length < pairs.length) {
+			sorted = new long[pairs.length];
+		}
+
+		if (counts.length < bodyCount + 1) {
+			counts = new int[Math.max(bodyCount + 1, counts.length * 2)];
+		}
+
+		countingSort(pairs, sorted, false, bodyCount);
+		countingSort(sorted, pairs, true, bodyCount);
+	}
+
+	/**
+	 * Stable counting sort by one of the two slots
+	 * @param from
+	 * @param to
+	 * @param byFirst sort by the first slot instead of the second
+	 * @param bodyCount
+	 */
+	private void countingSort(long[] from, long[] to, boolean byFirst, int bodyCount) {
+		Arrays.fill(counts, 0, bodyCount + 1, 0);
+
+		for (int i = 0; i < size; i++) {
+			counts[slot(from[i], byFirst) + 1]++;
+		}
+
+		for (int s = 0; s < bodyCount; s++) {
+			counts[s + 1] += counts[s];
+		}
+
+		for (int i = 0; i < size; i++) {
+			to[counts[slot(from[i], byFirst)]++] = from[i];
+		}
+	}
+
+	private static int slot(long pair, boolean first) {
+		return first ? PairSet.first(pair) : PairSet.second(pair);
+	}
+}
@@ -0,0 +1,27 @@
+package application.physics.broadphase;
+
+import application.entity.BasicPhysicsEntity;
+
+/**
+ * Told when a pair starts or stops being a potential collision, for the
+ * broadphases that keep their pairs between updates
+ */
+public interface PairListener {
+
+	/**
+	 * The loose check circles of the pair started overlapping
+	 * 
+	 * @param a
+	 * @param b
+	 */
+	void pairAdded(BasicPhysicsEntity a, BasicPhysicsEntity b);
+
+	/**
+	 * The loose check circles of the pair stopped overlapping, or one of them
+	 * left the engine
+	 * 
+	 * @param a
+	 * @param b
+	 */
+	void pairRemoved(BasicPhysicsEntity a, BasicPhysicsEntity b);
+}
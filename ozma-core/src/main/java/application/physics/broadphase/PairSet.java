@@ -0,0 +1,183 @@
+package application.physics.broadphase;
+
+/**
+ * Open addressing hash set of packed pair keys, so pairs can be kept between
+ * updates without boxing. Removal shifts the following entries back instead of
+ * leaving tombstones, which keeps lookups short on sets that churn every update.
+ */
+public class PairSet {
+
+	/**
+	 * Marks an empty slot, pair keys are never negative
+	 */
+	public static final long EMPTY = -1L;
+
+	private long[] keys;
+	private int mask;
+	private int size;
+
+	public PairSet() {
+		this(64);
+	}
+
+	/**
+	 * @param capacity expected number of pairs
+	 */
+	public PairSet(int capacity) {
+		super();
+		int slots = Integer.highestOneBit(Math.max(capacity * 2 - 1, 8)) << 1;
+		keys = new long[slots];
+		mask = slots - 1;
+		clear();
+	}
+
+	/**
+	 * Packs two ids into a key, the order of a and b does not matter
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public static long key(int a, int b) {
+		int lo = a < b ? a : b;
+		int hi = a < b ? b : a;
+		return ((long) lo << 32) | (hi & 0xffffffffL);
+	}
+
+	/**
+	 * @param key
+	 * @return the smaller id of the pair
+	 */
+	public static int first(long key) {
+		return (int) (key >>> 32);
+	}
+
+	/**
+	 * @param key
+	 * @return the larger id of the pair
+	 */
+	public static int second(long key) {
+		return (int) key;
+	}
+
+	/**
+	 * Adds the key
+	 * @param key
+	 * @return true if it was not already in the set
+	 */
+	public boolean add(long key) {
+		int slot = indexOf(key);
+		if (keys[slot] == key) {
+			return false;
+		}
+
+		keys[slot] = key;
+		size++;
+
+		if (size * 2 > keys.length) {
+			grow();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Removes the key
+	 * @param key
+	 * @return true if it was in the set
+	 */
+	public boolean remove(long key) {
+		int slot = indexOf(key);
+		if (keys[slot] != key) {
+			return false;
+		}
+
+		// shift back entries that probed past the freed slot
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while (keys[next] != EMPTY) {
+			int home = hash(keys[next]);
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+
+		keys[hole] = EMPTY;
+		size--;
+		return true;
+	}
+
+	/**
+	 * @param key
+	 * @return true if the key is in the set
+	 */
+	public boolean contains(long key) {
+		return keys[indexOf(key)] == key;
+	}
+
+	/**
+	 * Removes every key
+	 */
+	public void clear() {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = EMPTY;
+		}
+		size = 0;
+	}
+
+	/**
+	 * @return the number of keys
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of slots, use with slot(int) to walk the set
+	 */
+	public int slots() {
+		return keys.length;
+	}
+
+	/**
+	 * @param i
+	 * @return the key in the slot or EMPTY
+	 */
+	public long slot(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * Finds the slot holding the key, or the empty slot where it would go
+	 * @param key
+	 * @return
+	 */
+	private int indexOf(long key) {
+		int slot = hash(key);
+		while (keys[slot] != EMPTY && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & mask;
+	}
+
+	private void grow() {
+		long[] old = keys;
+		keys = new long[old.length * 2];
+		mask = keys.length - 1;
+		clear();
+
+		for (int i = 0; i < old.length; i++) {
+			if (old[i] != EMPTY) {
+				keys[indexOf(old[i])] = old[i];
+				size++;
+			}
+		}
+	}
+
+}
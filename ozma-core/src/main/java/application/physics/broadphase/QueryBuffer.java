@@ -0,0 +1,74 @@
+package application.physics.broadphase;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of body slots found by a query. The caller keeps the buffer
+ * and hands it to every query, so querying doesn't create objects once it
+ * has grown. Use BodyStore.getEntity to get the entity of a slot.
+ */
+public class QueryBuffer {
+
+	private int[] bodies;
+	private int size;
+
+	public QueryBuffer() {
+		this(16);
+	}
+
+	/**
+	 * @param capacity expected number of bodies
+	 */
+	public QueryBuffer(int capacity) {
+		super();
+		bodies = new int[Math.max(capacity, 8)];
+	}
+
+	/**
+	 * Adds a body
+	 * @param i slot of the body
+	 */
+	public void add(int i) {
+		if (size == bodies.length) {
+			bodies = Arrays.copyOf(bodies, size * 2);
+		}
+		bodies[size++] = i;
+	}
+
+	/**
+	 * @param k
+	 * @return the slot of the k-th body found
+	 */
+	public int get(int k) {
+		return bodies[k];
+	}
+
+	/**
+	 * Puts the bodies in slot order
+	 */
+	public void sort() {
+		Arrays.sort(bodies, 0, size);
+	}
+
+	/**
+	 * Keeps the first bodies and drops the rest
+	 * @param size
+	 */
+	public void truncate(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * @return the number of bodies
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes every body
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
@@ -0,0 +1,494 @@
+package application.physics.broadphase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import application.physics.BodyStore;
+import application.physics.ParallelChunks;
+
+/**
+ * Uniform grid broadphase keyed by hashed cell coordinates.
+ *
+ * Entities are put into the cell that holds their center. An entity whose loose
+ * check circle fits in a cell can only touch entities of the same size in the
+ * 3x3 cells around it, so only half of that neighbourhood has to be visited.
+ * Entities too big for the cells (floors, walls) go up a level, where the cells
+ * are twice as big, until they fit. Those then look down into the smaller
+ * levels over the area they cover.
+ *
+ * The cell size is picked from the sizes seen on each update, so nothing has to
+ * be tuned by hand. The grid is rebuilt every update with a counting sort, which
+ * keeps the whole thing linear in the number of entities. Once built, the grid
+ * is only read, so the pair search can be split across threads.
+ *
+ * The grid is kept until the next update for queries, which only visit the
+ * cells of each level the query box reaches.
+ */
+public class SpatialHashBroadphase implements Broadphase {
+
+	/**
+	 * Number of grid levels, each level has cells twice the size of the one below
+	 */
+	private static final int MAX_LEVELS = 24;
+
+	/**
+	 * Cell size of the lowest level as a multiple of the typical loose check radius
+	 */
+	private static final float CELL_RADIUS_RATIO = 4f;
+
+	/**
+	 * Radii over this multiple of the mean are left out when picking the cell size
+	 */
+	private static final float OUTLIER_RATIO = 4f;
+
+	/**
+	 * Part of a cell an entity may fill, the rest is slack for rounding at cell edges
+	 */
+	private static final float FIT_RATIO = 0.99f;
+
+	/**
+	 * Fewest entities worth searching on another thread
+	 */
+	private static final int MIN_PARALLEL_CHUNK = 512;
+
+	private float cellSize;
+	private float[] levelCellSize;
+	private int[] levelStart;
+
+	// per entity, same index as the entity list
+	private float[] posX;
+	private float[] posY;
+	private float[] radius;
+	private int[] level;
+	private int[] cellX;
+	private int[] cellY;
+	private int[] bucket;
+
+	// entity indices sorted by bucket and by level
+	private int[] sorted;
+	private int[] byLevel;
+	private int[] bucketStart;
+	private int tableMask;
+
+	// bodies in the grid, 0 if it wasn't built on the last update
+	private int gridSize;
+
+	private BodyStore bodies;
+	private List<PairBuffer> chunkPairs;
+
+	public SpatialHashBroadphase() {
+		super();
+		levelCellSize = new float[MAX_LEVELS];
+		levelStart = new int[MAX_LEVELS + 1];
+		chunkPairs = new ArrayList<>();
+		ensureCapacity(64);
+	}
+
+	@Override
+	public void findPotentialCollisions(BodyStore bodies, PairBuffer out) {
+		if (!build(bodies)) {
+			return;
+		}
+
+		findPairs(0, bodies.size(), out);
+		this.bodies = null;
+	}
+
+	@Override
+	public void findPotentialCollisions(BodyStore bodies, PairBuffer out, ForkJoinPool pool) {
+		if (!build(bodies)) {
+			return;
+		}
+
+		int n = bodies.size();
+		int chunks = ParallelChunks.chunkCount(pool, n, MIN_PARALLEL_CHUNK);
+		while (chunkPairs.size() < chunks) {
+			chunkPairs.add(new PairBuffer());
+		}
+
+		ParallelChunks.run(pool, n, chunks, (chunk, start, end) -> findPairs(start, end, chunkPairs.get(chunk)));
+
+		// merge in chunk order so the pairs come out as they would on one thread
+		for (int c = 0; c < chunks; c++) {
+			PairBuffer pairs = chunkPairs.get(c);
+			out.addAll(pairs);
+			pairs.clear();
+		}
+
+		this.bodies = null;
+	}
+
+	@Override
+	public void query(BodyStore bodies, float minX, float minY, float maxX, float maxY, QueryBuffer out) {
+		int n = bodies.size();
+		if (gridSize != n) {
+			Broadphase.super.query(bodies, minX, minY, maxX, maxY, out);
+			return;
+		}
+
+		for (int l = 0; l < MAX_LEVELS; l++) {
+			int count = levelStart[l + 1] - levelStart[l];
+			if (count == 0) {
+				continue;
+			}
+
+			// a body of this level reaches at most half a cell out of its own
+			float size = levelCellSize[l];
+			float reach = size / 2f;
+			int x0 = cellOf(minX - reach, size);
+			int x1 = cellOf(maxX + reach, size);
+			int y0 = cellOf(minY - reach, size);
+			int y1 = cellOf(maxY + reach, size);
+
+			long cells = ((long) x1 - x0 + 1) * ((long) y1 - y0 + 1);
+			if (cells > count || l == MAX_LEVELS - 1) {
+				for (int k = levelStart[l]; k < levelStart[l + 1]; k++) {
+					queryBody(byLevel[k], minX, minY, maxX, maxY, out);
+				}
+				continue;
+			}
+
+			for (int y = y0; y <= y1; y++) {
+				for (int x = x0; x <= x1; x++) {
+					int b = hash(l, x, y);
+					for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) {
+						int j = sorted[k];
+						if (level[j] == l && cellX[j] == x && cellY[j] == y) {
+							queryBody(j, minX, minY, maxX, maxY, out);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		// the grid is rebuilt on every update
+		gridSize = 0;
+	}
+
+	/**
+	 * @return the cell size of the lowest level picked on the last update
+	 */
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Builds the grid for the bodies
+	 * @param bodies
+	 * @return false if there are too few bodies for any pairs
+	 */
+	private boolean build(BodyStore bodies) {
+		int n = bodies.size();
+		gridSize = 0;
+		if (n < 2) {
+			return false;
+		}
+
+		this.bodies = bodies;
+
+		ensureCapacity(n);
+		gather(n);
+		tuneCellSize(n);
+		assignCells(n);
+		sortByBucket(n);
+		sortByLevel(n);
+		gridSize = n;
+		return true;
+	}
+
+	/**
+	 * Finds the pairs of the entities from start to end, only reads the grid
+	 * @param start
+	 * @param end
+	 * @param out
+	 */
+	private void findPairs(int start, int end, PairBuffer out) {
+		for (int i = start; i < end; i++) {
+			findSameLevel(i, out);
+
+			for (int l = 0; l < level[i]; l++) {
+				findLowerLevel(i, l, out);
+			}
+		}
+	}
+
+	/**
+	 * Copies the position and radius of each body into the arrays
+	 * @param n
+	 */
+	private void gather(int n) {
+		for (int i = 0; i < n; i++) {
+			posX[i] = bodies.getPositionX(i);
+			posY[i] = bodies.getPositionY(i);
+			radius[i] = bodies.getRadius(i);
+		}
+	}
+
+	/**
+	 * Picks the cell size from the mean radius, ignoring the few very large
+	 * shapes so a floor does not blow up the cells for everything else
+	 * @param n
+	 */
+	private void tuneCellSize(int n) {
+		float sum = 0f;
+		for (int i = 0; i < n; i++) {
+			sum += radius[i];
+		}
+
+		float limit = (sum / n) * OUTLIER_RATIO;
+		float typicalSum = 0f;
+		int typicalCount = 0;
+		for (int i = 0; i < n; i++) {
+			if (radius[i] <= limit) {
+				typicalSum += radius[i];
+				typicalCount++;
+			}
+		}
+
+		float typical = typicalCount > 0 ? typicalSum / typicalCount : 0f;
+		cellSize = typical > 0f ? typical * CELL_RADIUS_RATIO : 1f;
+
+		float size = cellSize;
+		for (int l = 0; l < MAX_LEVELS; l++) {
+			levelCellSize[l] = size;
+			size *= 2f;
+		}
+	}
+
+	/**
+	 * Works out the level, cell and bucket of each entity
+	 * @param n
+	 */
+	private void assignCells(int n) {
+		int tableSize = Integer.highestOneBit(n * 2 - 1) << 1;
+		if (bucketStart.length < tableSize + 1) {
+			bucketStart = new int[tableSize + 1];
+		}
+		tableMask = tableSize - 1;
+
+		for (int i = 0; i < n; i++) {
+			float diameter = radius[i] * 2f;
+
+			int l = 0;
+			while (l < MAX_LEVELS - 1 && diameter > levelCellSize[l] * FIT_RATIO) {
+				l++;
+			}
+			level[i] = l;
+
+			// nothing fits the top level, keep all of it in one cell so it is all compared
+			if (diameter > levelCellSize[l] * FIT_RATIO) {
+				cellX[i] = 0;
+				cellY[i] = 0;
+			} else {
+				cellX[i] = cellOf(posX[i], levelCellSize[l]);
+				cellY[i] = cellOf(posY[i], levelCellSize[l]);
+			}
+
+			bucket[i] = hash(l, cellX[i], cellY[i]);
+		}
+	}
+
+	/**
+	 * Counting sort of the entity indices by bucket, afterwards bucket b
+	 * holds sorted[bucketStart[b]] up to sorted[bucketStart[b + 1]]
+	 * @param n
+	 */
+	private void sortByBucket(int n) {
+		int tableSize = tableMask + 1;
+		for (int b = 0; b < tableSize; b++) {
+			bucketStart[b] = 0;
+		}
+
+		for (int i = 0; i < n; i++) {
+			bucketStart[bucket[i]]++;
+		}
+
+		for (int b = 1; b < tableSize; b++) {
+			bucketStart[b] += bucketStart[b - 1];
+		}
+		bucketStart[tableSize] = n;
+
+		// fill from the back so indices stay in ascending order in each bucket
+		for (int i = n - 1; i >= 0; i--) {
+			sorted[--bucketStart[bucket[i]]] = i;
+		}
+	}
+
+	/**
+	 * Counting sort of the entity indices by level, the same way as the buckets
+	 * @param n
+	 */
+	private void sortByLevel(int n) {
+		for (int l = 0; l < MAX_LEVELS; l++) {
+			levelStart[l] = 0;
+		}
+
+		for (int i = 0; i < n; i++) {
+			levelStart[level[i]]++;
+		}
+
+		for (int l = 1; l < MAX_LEVELS; l++) {
+			levelStart[l] += levelStart[l - 1];
+		}
+		levelStart[MAX_LEVELS] = n;
+
+		for (int i = n - 1; i >= 0; i--) {
+			byLevel[--levelStart[level[i]]] = i;
+		}
+	}
+
+	/**
+	 * Finds pairs with entities of the same level in the forward half of the
+	 * 3x3 neighbourhood, so every pair is visited once
+	 * @param i
+	 * @param out
+	 */
+	private void findSameLevel(int i, PairBuffer out) {
+		int l = level[i];
+		int cx = cellX[i];
+		int cy = cellY[i];
+
+		visitCell(i, l, cx, cy, true, out);
+		visitCell(i, l, cx + 1, cy, false, out);
+		visitCell(i, l, cx - 1, cy + 1, false, out);
+		visitCell(i, l, cx, cy + 1, false, out);
+		visitCell(i, l, cx + 1, cy + 1, false, out);
+	}
+
+	/**
+	 * Finds pairs with the smaller entities of a lower level. Only the cells in
+	 * reach of the entity are visited, unless there are fewer entities on that
+	 * level than cells to visit.
+	 * @param i
+	 * @param l
+	 * @param out
+	 */
+	private void findLowerLevel(int i, int l, PairBuffer out) {
+		int count = levelStart[l + 1] - levelStart[l];
+		if (count == 0) {
+			return;
+		}
+
+		float size = levelCellSize[l];
+		float reach = radius[i] + (size / 2f);
+		int x0 = cellOf(posX[i] - reach, size);
+		int x1 = cellOf(posX[i] + reach, size);
+		int y0 = cellOf(posY[i] - reach, size);
+		int y1 = cellOf(posY[i] + reach, size);
+
+		long cells = ((long) x1 - x0 + 1) * ((long) y1 - y0 + 1);
+		if (cells > count) {
+			for (int k = levelStart[l]; k < levelStart[l + 1]; k++) {
+				report(i, byLevel[k], out);
+			}
+			return;
+		}
+
+		for (int y = y0; y <= y1; y++) {
+			for (int x = x0; x <= x1; x++) {
+				visitCell(i, l, x, y, false, out);
+			}
+		}
+	}
+
+	/**
+	 * Reports every entity in the given cell against entity i. Buckets can hold
+	 * other cells that hash the same, those are skipped.
+	 * @param i
+	 * @param l
+	 * @param cx
+	 * @param cy
+	 * @param ownCell only take entities after i, they share a cell
+	 * @param out
+	 */
+	private void visitCell(int i, int l, int cx, int cy, boolean ownCell, PairBuffer out) {
+		int b = hash(l, cx, cy);
+		for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) {
+			int j = sorted[k];
+
+			if (level[j] != l || cellX[j] != cx || cellY[j] != cy) {
+				continue;
+			}
+
+			if (ownCell && j <= i) {
+				continue;
+			}
+
+			report(i, j, out);
+		}
+	}
+
+	/**
+	 * Adds the pair if the loose check circles overlap
+	 * @param i
+	 * @param j
+	 * @param out
+	 */
+	private void report(int i, int j, PairBuffer out) {
+		int a = i < j ? i : j;
+		int b = i < j ? j : i;
+
+		float dx = posX[b] - posX[a];
+		float dy = posY[b] - posY[a];
+		float rsq = radius[a] + radius[b];
+		rsq *= rsq;
+
+		if ((dx * dx) + (dy * dy) <= rsq) {
+			out.add(a, b);
+		}
+	}
+
+	/**
+	 * Adds the body if its loose bounds overlap the box, as of when the grid
+	 * was built
+	 * @param i
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @param out
+	 */
+	private void queryBody(int i, float minX, float minY, float maxX, float maxY, QueryBuffer out) {
+		float r = radius[i];
+		if (posX[i] + r >= minX && posX[i] - r <= maxX && posY[i] + r >= minY && posY[i] - r <= maxY) {
+			out.add(i);
+		}
+	}
+
+	/**
+	 * Grows the per entity arrays
+	 * @param n
+	 */
+	private void ensureCapacity(int n) {
+		if (posX != null && posX.length >= n) {
+			return;
+		}
+
+		int size = Math.max(n, MAX_LEVELS);
+		size = Math.max(size, posX == null ? 0 : posX.length * 2);
+
+		posX = new float[size];
+		posY = new float[size];
+		radius = new float[size];
+		level = new int[size];
+		cellX = new int[size];
+		cellY = new int[size];
+		bucket = new int[size];
+		sorted = new int[size];
+		byLevel = new int[size];
+		bucketStart = new int[1];
+	}
+
+	private static int cellOf(float v, float size) {
+		return (int) Math.floor(v / size);
+	}
+
+	private int hash(int l, int cx, int cy) {
+		return ((cx * 73856093) ^ (cy * 19349663) ^ (l * 83492791)) & tableMask;
+	}
+
+}
@@ -0,0 +1,680 @@
+package application.physics.broadphase;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.BodyStore;
+
+/**
+ * Sweep and prune broadphase that keeps its state between updates.
+ *
+ * The start and end of every entity's bounds along one axis are kept in a
+ * sorted list. Entities only move a little each update, so the list is fixed
+ * up with an insertion sort, and every swap of a start past an end (or the
+ * other way around) is exactly a pair starting or stopping to overlap on that
+ * axis. The work then follows how far things moved instead of how many there
+ * are.
+ *
+ * The axis the entities are most spread out along is used, and the list is
+ * rebuilt if the other axis becomes clearly better. Pairs that overlap on the
+ * axis are then checked on the other axis and with the loose check circles,
+ * and the listener is only told about pairs that changed since the last update.
+ *
+ * Queries binary search the sorted list. A body overlapping the box along the
+ * axis starts no further before it than the widest bounds, so only the starts
+ * from there to the far side of the box are checked. Bodies much wider than
+ * the rest, like floors and walls, are kept aside and checked one by one, so
+ * they don't widen every query.
+ */
+public class SweepAndPruneBroadphase implements Broadphase {
+
+	private static final int AXIS_X = 0;
+	private static final int AXIS_Y = 1;
+
+	/**
+	 * How much more spread out the other axis has to be before switching to it
+	 */
+	private static final double AXIS_SWITCH_RATIO = 1.5;
+
+	/**
+	 * Above this many new entities in one update the list is rebuilt instead
+	 * of insertion sorting them in one by one
+	 */
+	private static final int MAX_INSERTS = 32;
+
+	/**
+	 * Added to the radius so the bounds never miss a pair the circle check
+	 * would keep because of rounding
+	 */
+	private static final float BOUNDS_MARGIN = 0.01f;
+
+	/**
+	 * Bounds this many times wider than the average are checked apart from
+	 * the sorted list by queries
+	 */
+	private static final float WIDE_SPAN = 4f;
+
+	private IdentityHashMap<BasicPhysicsEntity, Proxy> proxyMap;
+	private Proxy[] proxies;
+	private int[] freeIds;
+	private int freeCount;
+	private int nextId;
+	private int stamp;
+
+	// bounds of each proxy by id
+	private float[] minX;
+	private float[] maxX;
+	private float[] minY;
+	private float[] maxY;
+
+	// centre and loose check radius of each proxy by id, for the exact test
+	private float[] centreX;
+	private float[] centreY;
+	private float[] looseRadius;
+
+	// sorted endpoints along the current axis, data is id << 1 with the low bit set for an end
+	private float[] endValue;
+	private int[] endData;
+	private int endCount;
+	private int axis;
+	private boolean built;
+
+	// as of the last update: the widest bounds that aren't wide, the ids of
+	// those that are, and the body count
+	private float maxSpan;
+	private float wideSpan;
+	private int[] wide;
+	private int wideCount;
+	private int builtSize;
+
+	// pairs overlapping along the axis, and the pairs reported from those
+	private PairSet axisPairs;
+	private PairSet reported;
+
+	private long[] scratch;
+	private int[] active;
+	private int[] activeSlot;
+
+	private PairListener listener;
+
+	public SweepAndPruneBroadphase() {
+		super();
+		proxyMap = new IdentityHashMap<>();
+		proxies = new Proxy[64];
+		freeIds = new int[64];
+		minX = new float[64];
+		maxX = new float[64];
+		minY = new float[64];
+		maxY = new float[64];
+		centreX = new float[64];
+		centreY = new float[64];
+		looseRadius = new float[64];
+		endValue = new float[128];
+		endData = new int[128];
+		axisPairs = new PairSet();
+		reported = new PairSet();
+		scratch = new long[128];
+		active = new int[64];
+		activeSlot = new int[64];
+		wide = new int[8];
+	}
+
+	@Override
+	public void findPotentialCollisions(BodyStore bodies, PairBuffer out) {
+		stamp++;
+
+		int added = syncProxies(bodies);
+		removeStaleProxies();
+
+		int bestAxis = pickAxis(bodies.size());
+		if (!built || bestAxis != axis || added > MAX_INSERTS) {
+			axis = bestAxis;
+			rebuild();
+		} else {
+			updateEndpoints();
+			insertionSort();
+		}
+
+		reportPairs(out);
+		updateSpans();
+		builtSize = bodies.size();
+	}
+
+	@Override
+	public void query(BodyStore bodies, float minX, float minY, float maxX, float maxY, QueryBuffer out) {
+		if (!built || builtSize != bodies.size()) {
+			Broadphase.super.query(bodies, minX, minY, maxX, maxY, out);
+			return;
+		}
+
+		float lo = axis == AXIS_X ? minX : minY;
+		float hi = axis == AXIS_X ? maxX : maxY;
+
+		// first endpoint a start overlapping the box can be at
+		float from = lo - maxSpan;
+		int low = 0;
+		int high = endCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (endValue[mid] < from) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		for (int k = low; k < endCount && endValue[k] <= hi; k++) {
+			int id = endData[k] >> 1;
+			if ((endData[k] & 1) == 0 && this.maxX[id] - this.minX[id] <= wideSpan) {
+				queryProxy(id, minX, minY, maxX, maxY, out);
+			}
+		}
+
+		for (int w = 0; w < wideCount; w++) {
+			queryProxy(wide[w], minX, minY, maxX, maxY, out);
+		}
+	}
+
+	/**
+	 * Adds the proxy's body to out if its bounds overlap the box
+	 * @param id
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @param out
+	 */
+	private void queryProxy(int id, float minX, float minY, float maxX, float maxY, QueryBuffer out) {
+		if (this.maxX[id] >= minX && this.minX[id] <= maxX && this.maxY[id] >= minY && this.minY[id] <= maxY) {
+			out.add(proxies[id].index);
+		}
+	}
+
+	/**
+	 * Sorts the proxies into wide ones and the rest, and finds the widest of
+	 * the rest, for queries
+	 */
+	private void updateSpans() {
+		float sum = 0f;
+		int count = 0;
+		for (int i = 0; i < nextId; i++) {
+			if (proxies[i] != null) {
+				sum += maxX[i] - minX[i];
+				count++;
+			}
+		}
+
+		wideSpan = count == 0 ? 0f : (sum / count) * WIDE_SPAN;
+		maxSpan = 0f;
+		wideCount = 0;
+		for (int i = 0; i < nextId; i++) {
+			if (proxies[i] == null) {
+				continue;
+			}
+
+			float span = maxX[i] - minX[i];
+			if (span > wideSpan) {
+				wide = ensure(wide, wideCount + 1);
+				wide[wideCount++] = i;
+			} else {
+				maxSpan = Math.max(maxSpan, span);
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		if (listener != null) {
+			for (int s = 0; s < reported.slots(); s++) {
+				long key = reported.slot(s);
+				if (key != PairSet.EMPTY) {
+					listener.pairRemoved(proxies[PairSet.first(key)].entity, proxies[PairSet.second(key)].entity);
+				}
+			}
+		}
+
+		Arrays.fill(proxies, null);
+		proxyMap.clear();
+		axisPairs.clear();
+		reported.clear();
+		freeCount = 0;
+		nextId = 0;
+		endCount = 0;
+		built = false;
+	}
+
+	/**
+	 * @return the number of pairs overlapping along the sorted axis
+	 */
+	public int getAxisPairCount() {
+		return axisPairs.size();
+	}
+
+	/**
+	 * @return the listener
+	 */
+	public PairListener getPairListener() {
+		return listener;
+	}
+
+	/**
+	 * @param listener told when a pair starts or stops overlapping
+	 */
+	public void setPairListener(PairListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Finds the proxy of each entity, makes proxies for new ones and updates
+	 * their bounds
+	 * @param bodies
+	 * @return the number of new proxies
+	 */
+	private int syncProxies(BodyStore bodies) {
+		int added = 0;
+
+		for (int i = 0; i < bodies.size(); i++) {
+			BasicPhysicsEntity e = bodies.getEntity(i);
+			Proxy p = proxyMap.get(e);
+
+			if (p == null) {
+				p = new Proxy(e, allocateId());
+				proxyMap.put(e, p);
+				proxies[p.id] = p;
+				added++;
+
+				if (built) {
+					appendEndpoints(p.id);
+				}
+			}
+
+			p.index = i;
+			p.stamp = stamp;
+
+			float x = bodies.getPositionX(i);
+			float y = bodies.getPositionY(i);
+			float radius = bodies.getRadius(i);
+			centreX[p.id] = x;
+			centreY[p.id] = y;
+			looseRadius[p.id] = radius;
+
+			float r = radius + BOUNDS_MARGIN;
+			minX[p.id] = x - r;
+			maxX[p.id] = x + r;
+			minY[p.id] = y - r;
+			maxY[p.id] = y + r;
+		}
+
+		return added;
+	}
+
+	/**
+	 * Drops the proxies of entities that are no longer in the list
+	 */
+	private void removeStaleProxies() {
+		boolean anyStale = false;
+		for (int i = 0; i < nextId && !anyStale; i++) {
+			anyStale = proxies[i] != null && proxies[i].stamp != stamp;
+		}
+
+		if (!anyStale) {
+			return;
+		}
+
+		// one pass over the pairs for all of the removed proxies
+		int count = 0;
+		for (int s = 0; s < axisPairs.slots(); s++) {
+			long key = axisPairs.slot(s);
+			if (key != PairSet.EMPTY && (isStale(PairSet.first(key)) || isStale(PairSet.second(key)))) {
+				scratch = ensure(scratch, count + 1);
+				scratch[count++] = key;
+			}
+		}
+
+		for (int k = 0; k < count; k++) {
+			axisPairs.remove(scratch[k]);
+			dropReported(scratch[k]);
+		}
+
+		for (int i = 0; i < nextId; i++) {
+			if (isStale(i)) {
+				proxyMap.remove(proxies[i].entity);
+				proxies[i] = null;
+				freeIds[freeCount++] = i;
+			}
+		}
+
+		// removing endpoints keeps the order of the rest, so the pairs stay valid
+		int kept = 0;
+		for (int k = 0; k < endCount; k++) {
+			if (proxies[endData[k] >> 1] != null) {
+				endValue[kept] = endValue[k];
+				endData[kept] = endData[k];
+				kept++;
+			}
+		}
+		endCount = kept;
+	}
+
+	/**
+	 * @param id
+	 * @return true if the proxy's entity was not in the list this update
+	 */
+	private boolean isStale(int id) {
+		return proxies[id] != null && proxies[id].stamp != stamp;
+	}
+
+	/**
+	 * Picks the axis the entity centers are most spread out along
+	 * @param n
+	 * @return
+	 */
+	private int pickAxis(int n) {
+		if (n < 2) {
+			return axis;
+		}
+
+		double sumX = 0, sumY = 0, sqX = 0, sqY = 0;
+		for (int i = 0; i < nextId; i++) {
+			if (proxies[i] == null) {
+				continue;
+			}
+			double x = (minX[i] + maxX[i]) * 0.5;
+			double y = (minY[i] + maxY[i]) * 0.5;
+			sumX += x;
+			sumY += y;
+			sqX += x * x;
+			sqY += y * y;
+		}
+
+		double varX = (sqX / n) - ((sumX / n) * (sumX / n));
+		double varY = (sqY / n) - ((sumY / n) * (sumY / n));
+
+		if (!built) {
+			return varX >= varY ? AXIS_X : AXIS_Y;
+		}
+
+		if (axis == AXIS_X && varY > varX * AXIS_SWITCH_RATIO) {
+			return AXIS_Y;
+		}
+
+		if (axis == AXIS_Y && varX > varY * AXIS_SWITCH_RATIO) {
+			return AXIS_X;
+		}
+
+		return axis;
+	}
+
+	/**
+	 * Sorts the endpoints from scratch and sweeps them to find the pairs
+	 */
+	private void rebuild() {
+		endCount = 0;
+		for (int i = 0; i < nextId; i++) {
+			if (proxies[i] != null) {
+				appendEndpoints(i);
+			}
+		}
+
+		// sort on the value with the data packed under it
+		scratch = ensure(scratch, endCount);
+		for (int k = 0; k < endCount; k++) {
+			scratch[k] = ((long) sortableBits(endValue[k]) << 32) | (endData[k] & 0xffffffffL);
+		}
+		Arrays.sort(scratch, 0, endCount);
+		for (int k = 0; k < endCount; k++) {
+			endData[k] = (int) scratch[k];
+			endValue[k] = valueOf(endData[k]);
+		}
+
+		axisPairs.clear();
+		active = ensure(active, nextId);
+		activeSlot = ensure(activeSlot, nextId);
+		int activeCount = 0;
+
+		for (int k = 0; k < endCount; k++) {
+			int id = endData[k] >> 1;
+
+			if ((endData[k] & 1) == 0) {
+				for (int a = 0; a < activeCount; a++) {
+					axisPairs.add(PairSet.key(id, active[a]));
+				}
+				activeSlot[id] = activeCount;
+				active[activeCount++] = id;
+			} else {
+				int slot = activeSlot[id];
+				int last = active[--activeCount];
+				active[slot] = last;
+				activeSlot[last] = slot;
+			}
+		}
+
+		// reported pairs that are no longer on the axis have ended
+		int count = 0;
+		for (int s = 0; s < reported.slots(); s++) {
+			long key = reported.slot(s);
+			if (key != PairSet.EMPTY && !axisPairs.contains(key)) {
+				scratch = ensure(scratch, count + 1);
+				scratch[count++] = key;
+			}
+		}
+		for (int k = 0; k < count; k++) {
+			dropReported(scratch[k]);
+		}
+
+		built = true;
+	}
+
+	/**
+	 * Copies the new bounds into the endpoints
+	 */
+	private void updateEndpoints() {
+		for (int k = 0; k < endCount; k++) {
+			endValue[k] = valueOf(endData[k]);
+		}
+	}
+
+	/**
+	 * Insertion sort of the endpoints. Each swap of a start and an end is a
+	 * pair starting or stopping to overlap along the axis.
+	 */
+	private void insertionSort() {
+		for (int k = 1; k < endCount; k++) {
+			float v = endValue[k];
+			int d = endData[k];
+			int j = k - 1;
+
+			while (j >= 0 && endValue[j] > v) {
+				int other = endData[j];
+
+				if ((d & 1) == 0 && (other & 1) == 1) {
+					// start moved before an end
+					axisPairs.add(PairSet.key(d >> 1, other >> 1));
+				} else if ((d & 1) == 1 && (other & 1) == 0) {
+					// end moved before a start
+					long key = PairSet.key(d >> 1, other >> 1);
+					if (axisPairs.remove(key)) {
+						dropReported(key);
+					}
+				}
+
+				endValue[j + 1] = endValue[j];
+				endData[j + 1] = other;
+				j--;
+			}
+
+			endValue[j + 1] = v;
+			endData[j + 1] = d;
+		}
+	}
+
+	/**
+	 * Checks the pairs along the axis against the other axis and the loose
+	 * check circles, then adds the ones that pass to out
+	 * @param out
+	 */
+	private void reportPairs(PairBuffer out) {
+		for (int s = 0; s < axisPairs.slots(); s++) {
+			long key = axisPairs.slot(s);
+			if (key == PairSet.EMPTY) {
+				continue;
+			}
+
+			Proxy a = proxies[PairSet.first(key)];
+			Proxy b = proxies[PairSet.second(key)];
+			if (b.index < a.index) {
+				Proxy t = a;
+				a = b;
+				b = t;
+			}
+
+			boolean overlap = overlaps(a, b);
+			if (overlap) {
+				if (reported.add(key) && listener != null) {
+					listener.pairAdded(a.entity, b.entity);
+				}
+				out.add(a.index, b.index);
+			} else {
+				dropReported(key);
+			}
+		}
+	}
+
+	/**
+	 * Checks the other axis, then the same loose check as the other broadphases
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	private boolean overlaps(Proxy a, Proxy b) {
+		int ia = a.id;
+		int ib = b.id;
+
+		if (axis == AXIS_X) {
+			if (maxY[ia] < minY[ib] || maxY[ib] < minY[ia]) {
+				return false;
+			}
+		} else {
+			if (maxX[ia] < minX[ib] || maxX[ib] < minX[ia]) {
+				return false;
+			}
+		}
+
+		float dx = centreX[ib] - centreX[ia];
+		float dy = centreY[ib] - centreY[ia];
+		float rsq = looseRadius[ia] + looseRadius[ib];
+		rsq *= rsq;
+
+		return (dx * dx) + (dy * dy) <= rsq;
+	}
+
+	/**
+	 * Removes a reported pair and tells the listener
+	 * @param key
+	 */
+	private void dropReported(long key) {
+		if (!reported.remove(key) || listener == null) {
+			return;
+		}
+
+		Proxy a = proxies[PairSet.first(key)];
+		Proxy b = proxies[PairSet.second(key)];
+		if (b.index < a.index) {
+			listener.pairRemoved(b.entity, a.entity);
+		} else {
+			listener.pairRemoved(a.entity, b.entity);
+		}
+	}
+
+	/**
+	 * Adds the start and end of a proxy at the back of the list
+	 * @param id
+	 */
+	private void appendEndpoints(int id) {
+		if (endCount + 2 > endValue.length) {
+			endValue = Arrays.copyOf(endValue, endValue.length * 2);
+			endData = Arrays.copyOf(endData, endData.length * 2);
+		}
+
+		endData[endCount] = id << 1;
+		endValue[endCount] = valueOf(id << 1);
+		endCount++;
+		endData[endCount] = (id << 1) | 1;
+		endValue[endCount] = valueOf((id << 1) | 1);
+		endCount++;
+	}
+
+	/**
+	 * @param data
+	 * @return the value of the endpoint along the current axis
+	 */
+	private float valueOf(int data) {
+		int id = data >> 1;
+		boolean end = (data & 1) == 1;
+
+		if (axis == AXIS_X) {
+			return end ? maxX[id] : minX[id];
+		}
+		return end ? maxY[id] : minY[id];
+	}
+
+	private int allocateId() {
+		if (freeCount > 0) {
+			return freeIds[--freeCount];
+		}
+
+		int id = nextId++;
+		if (id >= proxies.length) {
+			int size = proxies.length * 2;
+			proxies = Arrays.copyOf(proxies, size);
+			freeIds = Arrays.copyOf(freeIds, size);
+			minX = Arrays.copyOf(minX, size);
+			maxX = Arrays.copyOf(maxX, size);
+			minY = Arrays.copyOf(minY, size);
+			maxY = Arrays.copyOf(maxY, size);
+			centreX = Arrays.copyOf(centreX, size);
+			centreY = Arrays.copyOf(centreY, size);
+			looseRadius = Arrays.copyOf(looseRadius, size);
+		}
+		return id;
+	}
+
+	/**
+	 * Maps a float to an int that sorts the same way
+	 * @param v
+	 * @return
+	 */
+	private static int sortableBits(float v) {
+		int bits = Float.floatToIntBits(v);
+		return bits ^ ((bits >> 31) & 0x7fffffff);
+	}
+
+	private static long[] ensure(long[] array, int size) {
+		return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+	}
+
+	private static int[] ensure(int[] array, int size) {
+		return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+	}
+
+	/**
+	 * What the broadphase keeps for each entity
+	 */
+	private static class Proxy {
+		final BasicPhysicsEntity entity;
+		final int id;
+		int index;
+		int stamp;
+
+		/**
+		 * @param entity
+		 * @param id
+		 */
+		Proxy(BasicPhysicsEntity entity, int id) {
+			this.entity = entity;
+			this.id = id;
+		}
+	}
+
+}
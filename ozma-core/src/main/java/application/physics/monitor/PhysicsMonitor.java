@@ -0,0 +1,223 @@
+package application.physics.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import application.physics.StepStats;
+
+/**
+ * Keeps rolling counters and step times of an engine for JMX.
+ *
+ * The engine records into it after every integration, JMX reads from another
+ * thread, so both sides lock the monitor. Recording is a handful of array
+ * writes under an uncontended lock; sorting for percentiles only happens when
+ * someone reads them.
+ */
+public class PhysicsMonitor implements PhysicsMonitorMBean {
+
+	/**
+	 * Number of most recent steps percentiles and averages are taken over
+	 */
+	public static final int WINDOW = 1024;
+
+	private static final String DOMAIN = "ozma";
+
+	private final long[] stepNanos;
+	private final long[] broadphaseNanos;
+	private final long[] narrowphaseNanos;
+	private final long[] solveNanos;
+	private final long[] integrateNanos;
+	private int next;
+	private int filled;
+
+	private long steps;
+	private long totalContacts;
+	private int bodies;
+	private int sleepingBodies;
+	private int candidatePairs;
+	private int contacts;
+
+	private ObjectName name;
+
+	public PhysicsMonitor() {
+		super();
+		stepNanos = new long[WINDOW];
+		broadphaseNanos = new long[WINDOW];
+		narrowphaseNanos = new long[WINDOW];
+		solveNanos = new long[WINDOW];
+		integrateNanos = new long[WINDOW];
+	}
+
+	/**
+	 * Creates a monitor and registers it with the platform MBean server as
+	 * ozma:type=PhysicsEngine,name=name
+	 * @param engineName
+	 * @return the monitor, give it to PhysicsEngine.setMonitor
+	 */
+	public static PhysicsMonitor register(String engineName) {
+		PhysicsMonitor monitor = new PhysicsMonitor();
+		try {
+			monitor.name = ObjectName.getInstance(DOMAIN + ":type=PhysicsEngine,name=" + ObjectName.quote(engineName));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, monitor.name);
+		} catch (JMException e) {
+			throw new IllegalStateException("can't register monitor " + engineName, e);
+		}
+		return monitor;
+	}
+
+	/**
+	 * Removes the monitor from the platform MBean server, if it was registered
+	 */
+	public void unregister() {
+		if (name == null) {
+			return;
+		}
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("can't unregister monitor " + name, e);
+		}
+		name = null;
+	}
+
+	/**
+	 * Records a step, called by the engine
+	 * @param stats
+	 */
+	public synchronized void record(StepStats stats) {
+		stepNanos[next] = stats.getStepNanos();
+		broadphaseNanos[next] = stats.getBroadphaseNanos();
+		narrowphaseNanos[next] = stats.getNarrowphaseNanos();
+		solveNanos[next] = stats.getSolveNanos();
+		integrateNanos[next] = stats.getIntegrateNanos();
+		next = (next + 1) % WINDOW;
+		filled = Math.min(filled + 1, WINDOW);
+
+		steps++;
+		totalContacts += stats.getContacts();
+		bodies = stats.getBodies();
+		sleepingBodies = stats.getSleepingBodies();
+		candidatePairs = stats.getCandidatePairs();
+		contacts = stats.getContacts();
+	}
+
+	@Override
+	public synchronized long getSteps() {
+		return steps;
+	}
+
+	@Override
+	public synchronized long getTotalContacts() {
+		return totalContacts;
+	}
+
+	@Override
+	public synchronized int getBodies() {
+		return bodies;
+	}
+
+	@Override
+	public synchronized int getSleepingBodies() {
+		return sleepingBodies;
+	}
+
+	@Override
+	public synchronized int getCandidatePairs() {
+		return candidatePairs;
+	}
+
+	@Override
+	public synchronized int getContacts() {
+		return contacts;
+	}
+
+	@Override
+	public double getStepMicrosP50() {
+		return stepPercentile(0.5);
+	}
+
+	@Override
+	public double getStepMicrosP90() {
+		return stepPercentile(0.9);
+	}
+
+	@Override
+	public double getStepMicrosP99() {
+		return stepPercentile(0.99);
+	}
+
+	@Override
+	public double getStepMicrosMax() {
+		return stepPercentile(1.0);
+	}
+
+	@Override
+	public synchronized double getBroadphaseMicros() {
+		return average(broadphaseNanos);
+	}
+
+	@Override
+	public synchronized double getNarrowphaseMicros() {
+		return average(narrowphaseNanos);
+	}
+
+	@Override
+	public synchronized double getSolveMicros() {
+		return average(solveNanos);
+	}
+
+	@Override
+	public synchronized double getIntegrateMicros() {
+		return average(integrateNanos);
+	}
+
+	@Override
+	public synchronized void reset() {
+		next = 0;
+		filled = 0;
+		steps = 0;
+		totalContacts = 0;
+	}
+
+	/**
+	 * @param p from 0 to 1
+	 * @return the step time at the percentile over the window, in microseconds
+	 */
+	private double stepPercentile(double p) {
+		long[] sorted;
+		synchronized (this) {
+			if (filled == 0) {
+				return 0;
+			}
+			sorted = Arrays.copyOf(stepNanos, filled);
+		}
+
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(index, 0)] / 1000.0;
+	}
+
+	/**
+	 * @param nanos
+	 * @return the average over the window, in microseconds
+	 */
+	private double average(long[] nanos) {
+		if (filled == 0) {
+			return 0;
+		}
+
+		long sum = 0;
+		for (int i = 0; i < filled; i++) {
+			sum += nanos[i];
+		}
+		return sum / (filled * 1000.0);
+	}
+}
@@ -0,0 +1,83 @@
+package application.physics.monitor;
+
+/**
+ * Counters and step times of a physics engine, read over JMX. Percentiles and
+ * averages are over the last steps, see PhysicsMonitor.WINDOW.
+ */
+public interface PhysicsMonitorMBean {
+
+	/**
+	 * @return steps recorded since the monitor was created or reset
+	 */
+	long getSteps();
+
+	/**
+	 * @return contacts summed over every recorded step
+	 */
+	long getTotalContacts();
+
+	/**
+	 * @return bodies in the last step
+	 */
+	int getBodies();
+
+	/**
+	 * @return sleeping bodies after the last step
+	 */
+	int getSleepingBodies();
+
+	/**
+	 * @return pairs found by the broadphase in the last step
+	 */
+	int getCandidatePairs();
+
+	/**
+	 * @return contacts solved in the last step
+	 */
+	int getContacts();
+
+	/**
+	 * @return median step time in microseconds
+	 */
+	double getStepMicrosP50();
+
+	/**
+	 * @return 90th percentile step time in microseconds
+	 */
+	double getStepMicrosP90();
+
+	/**
+	 * @return 99th percentile step time in microseconds
+	 */
+	double getStepMicrosP99();
+
+	/**
+	 * @return longest step time in microseconds
+	 */
+	double getStepMicrosMax();
+
+	/**
+	 * @return average broadphase time in microseconds
+	 */
+	double getBroadphaseMicros();
+
+	/**
+	 * @return average narrowphase time in microseconds
+	 */
+	double getNarrowphaseMicros();
+
+	/**
+	 * @return average solver time in microseconds
+	 */
+	double getSolveMicros();
+
+	/**
+	 * @return average integration time in microseconds
+	 */
+	double getIntegrateMicros();
+
+	/**
+	 * Forgets every recorded step
+	 */
+	void reset();
+}
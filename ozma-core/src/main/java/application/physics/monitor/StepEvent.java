@@ -0,0 +1,87 @@
+package application.physics.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import application.physics.StepStats;
+
+/**
+ * Flight recorder event spanning every update and the integration after it
+ * while a recording has it enabled. The engine only keeps one when a
+ * recording wants it, so it can stay in production code.
+ */
+@Name("ozma.PhysicsStep")
+@Label("Physics Step")
+@Category({ "ozma", "Physics" })
+@Description("One update and integration of a physics engine")
+@StackTrace(false)
+public class StepEvent extends Event {
+
+	@Label("Broadphase")
+	@Timespan(Timespan.NANOSECONDS)
+	long broadphase;
+
+	@Label("Narrowphase")
+	@Timespan(Timespan.NANOSECONDS)
+	long narrowphase;
+
+	@Label("Solve")
+	@Timespan(Timespan.NANOSECONDS)
+	long solve;
+
+	@Label("Integrate")
+	@Timespan(Timespan.NANOSECONDS)
+	long integrate;
+
+	@Label("Bodies")
+	int bodies;
+
+	@Label("Candidate Pairs")
+	int candidatePairs;
+
+	@Label("Contacts")
+	int contacts;
+
+	@Label("Sleeping Bodies")
+	int sleepingBodies;
+
+	@Label("Swept Bodies")
+	int sweptBodies;
+
+	/**
+	 * Begins an event for a step, call when the update starts
+	 * @return the event, or null if no recording wants step events
+	 */
+	public static StepEvent start() {
+		StepEvent event = new StepEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Commits the event with the step's figures, call when the integration
+	 * is done
+	 * @param stats
+	 */
+	public void end(StepStats stats) {
+		broadphase = stats.getBroadphaseNanos();
+		narrowphase = stats.getNarrowphaseNanos();
+		solve = stats.getSolveNanos();
+		integrate = stats.getIntegrateNanos();
+		bodies = stats.getBodies();
+		candidatePairs = stats.getCandidatePairs();
+		contacts = stats.getContacts();
+		sleepingBodies = stats.getSleepingBodies();
+		sweptBodies = stats.getSweptBodies();
+		commit();
+	}
+}
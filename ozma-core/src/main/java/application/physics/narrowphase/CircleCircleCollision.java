@@ -0,0 +1,42 @@
+package application.physics.narrowphase;
+
+import application.math.Vector2;
+import application.physics.CollisionManifold;
+import application.physics.shape.CircleShape;
+import application.physics.shape.Shape;
+
+/**
+ * Two circles touch along the line between their centres, half way through
+ * their overlap
+ */
+public class CircleCircleCollision implements CollisionRoutine {
+
+	@Override
+	public boolean collide(Shape shapeA, Shape shapeB, CollisionManifold out) {
+		CircleShape a = (CircleShape) shapeA;
+		CircleShape b = (CircleShape) shapeB;
+		float dx = b.getPosition().getX() - a.getPosition().getX();
+		float dy = b.getPosition().getY() - a.getPosition().getY();
+		float sum = a.getRadius() + b.getRadius();
+		float distSq = Vector2.lengthSquared(dx, dy);
+
+		if (distSq >= sum * sum) {
+			return false;
+		}
+
+		float dist = (float) Math.sqrt(distSq);
+		float nx = 0f;
+		float ny = 1f;
+		if (dist > 0f) {
+			nx = dx / dist;
+			ny = dy / dist;
+		}
+
+		float depth = sum - dist;
+		float reach = a.getRadius() - (depth / 2f);
+		out.setNormal(nx, ny);
+		out.setPenDepth(depth);
+		out.addContact(a.getPosition().getX() + (nx * reach), a.getPosition().getY() + (ny * reach));
+		return true;
+	}
+}
@@ -0,0 +1,25 @@
+package application.physics.narrowphase;
+
+import application.physics.CollisionManifold;
+import application.physics.shape.Shape;
+
+/**
+ * Checks one kind of shape pair and works out its manifold in the same pass.
+ *
+ * A routine is registered with the Narrowphase for the type ids of its two
+ * shapes, so it can cast them without checking and the engine reaches it with
+ * a single table lookup.
+ */
+public interface CollisionRoutine {
+
+	/**
+	 * Writes the normal pointing from a to b, the depth and the contact points
+	 * into out, if the shapes overlap
+	 * 
+	 * @param a
+	 * @param b
+	 * @param out already reset, left half written when the shapes don't overlap
+	 * @return true if the shapes overlap
+	 */
+	boolean collide(Shape a, Shape b, CollisionManifold out);
+}
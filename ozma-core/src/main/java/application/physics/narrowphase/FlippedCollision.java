@@ -0,0 +1,31 @@
+package application.physics.narrowphase;
+
+import application.physics.CollisionManifold;
+import application.physics.shape.Shape;
+
+/**
+ * Runs a routine with the shapes the other way round, for pairs whose types
+ * come in the opposite order to the one the routine was written for
+ */
+public class FlippedCollision implements CollisionRoutine {
+
+	private final CollisionRoutine routine;
+
+	/**
+	 * @param routine checks the pair as (b, a)
+	 */
+	public FlippedCollision(CollisionRoutine routine) {
+		this.routine = routine;
+	}
+
+	@Override
+	public boolean collide(Shape a, Shape b, CollisionManifold out) {
+		if (!routine.collide(b, a, out)) {
+			return false;
+		}
+
+		// the routine's normal points from b to a
+		out.setNormal(-out.getNormal().getX(), -out.getNormal().getY());
+		return true;
+	}
+}
@@ -0,0 +1,65 @@
+package application.physics.narrowphase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import application.physics.CollisionManifold;
+
+/**
+ * Manifolds reused from one update to the next, so checking pairs doesn't
+ * allocate once the pool has grown to the number of contacts.
+ *
+ * next hands out the first free manifold and keep marks it as used, so a
+ * manifold that turned out not to touch is handed out again for the next pair.
+ * Manifolds kept are only valid until the pool is cleared.
+ */
+public class ManifoldPool {
+
+	private final List<CollisionManifold> manifolds;
+	private int size;
+
+	public ManifoldPool() {
+		manifolds = new ArrayList<>();
+	}
+
+	/**
+	 * @return the first manifold not kept, created if the pool is out of them
+	 */
+	public CollisionManifold next() {
+		if (size == manifolds.size()) {
+			manifolds.add(new CollisionManifold());
+		}
+
+		return manifolds.get(size);
+	}
+
+	/**
+	 * Marks the manifold last handed out by next as used
+	 * @return the manifold
+	 */
+	public CollisionManifold keep() {
+		return manifolds.get(size++);
+	}
+
+	/**
+	 * @param i
+	 * @return a kept manifold
+	 */
+	public CollisionManifold get(int i) {
+		return manifolds.get(i);
+	}
+
+	/**
+	 * @return the number of manifolds kept
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Frees every manifold for the next update
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
@@ -0,0 +1,94 @@
+package application.physics.narrowphase;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.CollisionManifold;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * Finds the routine for a pair of shapes by their type ids and runs it.
+ *
+ * The routines are kept in a table indexed by the type ids of both shapes, so
+ * a pair costs one lookup instead of a chain of type checks. Registering a
+ * routine for (a, b) also registers it flipped for (b, a), so each kind of
+ * pair is only written once.
+ */
+public class Narrowphase {
+
+	private CollisionRoutine[][] routines;
+
+	/**
+	 * Creates a narrowphase knowing circles and rects
+	 */
+	public Narrowphase() {
+		routines = new CollisionRoutine[0][0];
+		register(CircleShape.TYPE_ID, CircleShape.TYPE_ID, new CircleCircleCollision());
+		register(RectShape.TYPE_ID, RectShape.TYPE_ID, new RectRectCollision());
+		register(RectShape.TYPE_ID, CircleShape.TYPE_ID, new RectCircleCollision());
+	}
+
+	/**
+	 * Registers a routine for shapes of two types, replacing the one there was
+	 * @param typeA type id of the shape the routine takes first
+	 * @param typeB type id of the shape the routine takes second
+	 * @param routine
+	 */
+	public void register(int typeA, int typeB, CollisionRoutine routine) {
+		if (typeA < 0 || typeB < 0) {
+			throw new IllegalArgumentException("Shape type ids can't be negative: " + typeA + ", " + typeB);
+		}
+
+		int size = Math.max(routines.length, Math.max(typeA, typeB) + 1);
+		if (size > routines.length) {
+			CollisionRoutine[][] grown = new CollisionRoutine[size][size];
+			for (int i = 0; i < routines.length; i++) {
+				System.arraycopy(routines[i], 0, grown[i], 0, routines.length);
+			}
+			routines = grown;
+		}
+
+		routines[typeA][typeB] = routine;
+		if (typeA != typeB) {
+			routines[typeB][typeA] = new FlippedCollision(routine);
+		}
+	}
+
+	/**
+	 * @param typeA
+	 * @param typeB
+	 * @return the routine for shapes of two types, null if there is none
+	 */
+	public CollisionRoutine getRoutine(int typeA, int typeB) {
+		if (typeA < 0 || typeB < 0 || typeA >= routines.length || typeB >= routines.length) {
+			return null;
+		}
+
+		return routines[typeA][typeB];
+	}
+
+	/**
+	 * Checks two bodies and writes their manifold into a reused one
+	 * @param a
+	 * @param b
+	 * @param out reset to the pair first
+	 * @return true if the bodies overlap, pairs of shapes without a routine never do
+	 */
+	public boolean collide(BasicPhysicsEntity a, BasicPhysicsEntity b, CollisionManifold out) {
+		out.reset(a, b);
+		return collide(a.getShape(), b.getShape(), out);
+	}
+
+	/**
+	 * Checks two shapes and writes the normal, depth and contacts into out,
+	 * which should already be reset
+	 * @param a
+	 * @param b
+	 * @param out
+	 * @return true if the shapes overlap, pairs of shapes without a routine never do
+	 */
+	public boolean collide(Shape a, Shape b, CollisionManifold out) {
+		CollisionRoutine routine = getRoutine(a.getShapeType(), b.getShapeType());
+		return routine != null && routine.collide(a, b, out);
+	}
+}
@@ -0,0 +1,78 @@
+package application.physics.narrowphase;
+
+import application.physics.CollisionManifold;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * A rect and a circle touch at the point of the rect closest to the centre of
+ * the circle. The circle is turned into the rect's own axes, where the rect is
+ * a box around the origin, so faces and corners are found the same way.
+ */
+public class RectCircleCollision implements CollisionRoutine {
+
+	@Override
+	public boolean collide(Shape shapeA, Shape shapeB, CollisionManifold out) {
+		RectShape a = (RectShape) shapeA;
+		CircleShape b = (CircleShape) shapeB;
+		float cos = a.getCos();
+		float sin = a.getSin();
+		float dx = b.getPosition().getX() - a.getPosition().getX();
+		float dy = b.getPosition().getY() - a.getPosition().getY();
+		float cx = (cos * dx) + (sin * dy);
+		float cy = (cos * dy) - (sin * dx);
+		float maxX = a.getWidth() / 2f;
+		float maxY = a.getHeight() / 2f;
+		float radius = b.getRadius();
+
+		// closest point of the rect to the centre of the circle
+		float px = Math.min(Math.max(cx, -maxX), maxX);
+		float py = Math.min(Math.max(cy, -maxY), maxY);
+
+		float nx = cx - px;
+		float ny = cy - py;
+		float distSq = (nx * nx) + (ny * ny);
+		float depth;
+
+		if (distSq > 0f) {
+			if (distSq >= radius * radius) {
+				return false;
+			}
+
+			float dist = (float) Math.sqrt(distSq);
+			nx /= dist;
+			ny /= dist;
+			depth = radius - dist;
+		} else {
+			// the centre is inside the rect, push out through the closest face
+			float left = cx + maxX;
+			float right = maxX - cx;
+			float top = cy + maxY;
+			float bottom = maxY - cy;
+			float closest = Math.min(Math.min(left, right), Math.min(top, bottom));
+
+			if (closest == left) {
+				nx = -1f;
+				px = -maxX;
+			} else if (closest == right) {
+				nx = 1f;
+				px = maxX;
+			} else if (closest == top) {
+				ny = -1f;
+				py = -maxY;
+			} else {
+				ny = 1f;
+				py = maxY;
+			}
+
+			depth = radius + closest;
+		}
+
+		// back out of the rect's axes
+		out.setNormal((cos * nx) - (sin * ny), (sin * nx) + (cos * ny));
+		out.setPenDepth(depth);
+		out.addContact(a.getPosition().getX() + (cos * px) - (sin * py), a.getPosition().getY() + (sin * px) + (cos * py));
+		return true;
+	}
+}
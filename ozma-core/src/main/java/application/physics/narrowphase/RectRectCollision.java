@@ -0,0 +1,185 @@
+package application.physics.narrowphase;
+
+import application.math.Vector2;
+import application.physics.CollisionManifold;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * Two rects are separated along one of their four axes if they overlap at all.
+ * The axis they overlap the least on gives the normal and depth, and the
+ * contacts come from clipping the touching faces against each other.
+ */
+public class RectRectCollision implements CollisionRoutine {
+
+	/**
+	 * A face of rect B only becomes the reference face if it overlaps this
+	 * much less than the best face of rect A
+	 */
+	private static final float AXIS_PREFERENCE = 0.95f;
+	private static final float AXIS_TOLERANCE = 0.01f;
+
+	@Override
+	public boolean collide(Shape shapeA, Shape shapeB, CollisionManifold out) {
+		RectShape a = (RectShape) shapeA;
+		RectShape b = (RectShape) shapeB;
+		float dx = b.getPosition().getX() - a.getPosition().getX();
+		float dy = b.getPosition().getY() - a.getPosition().getY();
+		float best = Float.MAX_VALUE;
+		int bestAxis = 0;
+		float bestX = 0f;
+		float bestY = 0f;
+
+		// the width then height axes of A, then of B
+		for (int k = 0; k < 4; k++) {
+			RectShape owner = k < 2 ? a : b;
+			float ux = (k & 1) == 0 ? owner.getCos() : -owner.getSin();
+			float uy = (k & 1) == 0 ? owner.getSin() : owner.getCos();
+			float overlap = reach(a, ux, uy) + reach(b, ux, uy) - Math.abs(Vector2.dot(dx, dy, ux, uy));
+
+			// separated along this axis, nothing else to work out
+			if (overlap <= 0f) {
+				return false;
+			}
+
+			// axes of B have to be clearly better, so the pair doesn't flip between them
+			if (k < 2 ? overlap < best : overlap < (best * AXIS_PREFERENCE) - AXIS_TOLERANCE) {
+				best = overlap;
+				bestAxis = k;
+				bestX = ux;
+				bestY = uy;
+			}
+		}
+
+		float side = Vector2.dot(dx, dy, bestX, bestY) < 0f ? -1f : 1f;
+		float nx = bestX * side;
+		float ny = bestY * side;
+		out.setNormal(nx, ny);
+		out.setPenDepth(best);
+
+		if (bestAxis < 2) {
+			clipContact(a, b, bestAxis, nx, ny, out);
+		} else {
+			clipContact(b, a, bestAxis - 2, -nx, -ny, out);
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param rect
+	 * @param ux
+	 * @param uy
+	 * @return how far the rect reaches from its centre along the axis
+	 */
+	private static float reach(RectShape rect, float ux, float uy) {
+		return ((rect.getWidth() / 2f) * Math.abs(Vector2.dot(ux, uy, rect.getCos(), rect.getSin())))
+				+ ((rect.getHeight() / 2f) * Math.abs(Vector2.dot(ux, uy, -rect.getSin(), rect.getCos())));
+	}
+
+	/**
+	 * Works out the contact of two rects from the face of the reference one
+	 * the normal leaves through, and the face of the incident one that faces
+	 * it most. The incident face is cut down to the sides of the reference
+	 * face, and each end left inside the reference rect is a contact. Two
+	 * contacts hold a rect flat on another, one would let it rock.
+	 * @param ref
+	 * @param inc
+	 * @param refAxis 0 if the normal is along the width of ref, 1 along the height
+	 * @param nx normal pointing from ref to inc
+	 * @param ny
+	 * @param out
+	 */
+	private static void clipContact(RectShape ref, RectShape inc, int refAxis, float nx, float ny,
+			CollisionManifold out) {
+		float refX = ref.getPosition().getX();
+		float refY = ref.getPosition().getY();
+		float refDepth = refAxis == 0 ? ref.getWidth() / 2f : ref.getHeight() / 2f;
+		float refSide = refAxis == 0 ? ref.getHeight() / 2f : ref.getWidth() / 2f;
+
+		// along the reference face
+		float tx = -ny;
+		float ty = nx;
+
+		// the incident face is the one whose outward normal points most against n
+		float incCos = inc.getCos();
+		float incSin = inc.getSin();
+		float alongWidth = Vector2.dot(nx, ny, incCos, incSin);
+		float alongHeight = Vector2.dot(nx, ny, -incSin, incCos);
+		float fx, fy, ex, ey;
+
+		if (Math.abs(alongWidth) > Math.abs(alongHeight)) {
+			float s = alongWidth > 0f ? -1f : 1f;
+			fx = incCos * s * (inc.getWidth() / 2f);
+			fy = incSin * s * (inc.getWidth() / 2f);
+			ex = -incSin * (inc.getHeight() / 2f);
+			ey = incCos * (inc.getHeight() / 2f);
+		} else {
+			float s = alongHeight > 0f ? -1f : 1f;
+			fx = -incSin * s * (inc.getHeight() / 2f);
+			fy = incCos * s * (inc.getHeight() / 2f);
+			ex = incCos * (inc.getWidth() / 2f);
+			ey = incSin * (inc.getWidth() / 2f);
+		}
+
+		// ends of the incident face relative to ref, as distance along the
+		// reference face and out of it
+		float cx = inc.getPosition().getX() + fx - refX;
+		float cy = inc.getPosition().getY() + fy - refY;
+		float t1 = Vector2.dot(cx - ex, cy - ey, tx, ty);
+		float t2 = Vector2.dot(cx + ex, cy + ey, tx, ty);
+		float s1 = Vector2.dot(cx - ex, cy - ey, nx, ny) - refDepth;
+		float s2 = Vector2.dot(cx + ex, cy + ey, nx, ny) - refDepth;
+
+		// cut the face to the sides of the reference face
+		if (t1 > t2) {
+			float swap = t1;
+			t1 = t2;
+			t2 = swap;
+			swap = s1;
+			s1 = s2;
+			s2 = swap;
+		}
+
+		float lowT = Math.max(t1, -refSide);
+		float highT = Math.min(t2, refSide);
+		float span = t2 - t1;
+		float lowS = s1;
+		float highS = s2;
+
+		if (span > 0f) {
+			lowS = s1 + ((s2 - s1) * ((lowT - t1) / span));
+			highS = s1 + ((s2 - s1) * ((highT - t1) / span));
+		}
+
+		// keep the ends below the reference face, moved half way out of it
+		if (lowS <= 0f) {
+			addContact(out, refX, refY, tx, ty, nx, ny, lowT, refDepth + (lowS / 2f));
+		}
+
+		if (highS <= 0f) {
+			addContact(out, refX, refY, tx, ty, nx, ny, highT, refDepth + (highS / 2f));
+		}
+
+		if (out.getPointCount() == 0) {
+			addContact(out, refX, refY, tx, ty, nx, ny, (lowT + highT) / 2f, refDepth);
+		}
+	}
+
+	/**
+	 * Adds a contact given along and out of a reference face
+	 * @param out
+	 * @param refX centre of the reference rect
+	 * @param refY
+	 * @param tx along the face
+	 * @param ty
+	 * @param nx out of the face
+	 * @param ny
+	 * @param t how far along
+	 * @param s how far out
+	 */
+	private static void addContact(CollisionManifold out, float refX, float refY, float tx, float ty, float nx,
+			float ny, float t, float s) {
+		out.addContact(refX + (tx * t) + (nx * s), refY + (ty * t) + (ny * s));
+	}
+}
@@ -1,8 +1,6 @@
 package application.physics.shape;
 
 import application.math.Vector2;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
 
 public class CircleShape extends Shape {
 
@@ -10,8 +8,21 @@ public class CircleShape extends Shape {
 	
 	private static final int DEGREE = 4;
 	
+	/**
+	 * Vertices of a circle of radius 1 at angle 0, shared by every circle
+	 */
+	private static final float[] UNIT_X = new float[DEGREE];
+	private static final float[] UNIT_Y = new float[DEGREE];
+	
+	static {
+		for (int i = 0; i < DEGREE; i++) {
+			double rad = (Math.PI * 2.0 * i) / DEGREE;
+			UNIT_X[i] = (float) Math.cos(rad);
+			UNIT_Y[i] = (float) Math.sin(rad);
+		}
+	}
+	
 	private float radius;
-	private float boxRadius;
 
 	/**
 	 * @param position
@@ -21,27 +32,19 @@ public class CircleShape extends Shape {
 	public CircleShape(Vector2 position, float angle, float radius) {
 		super(position, angle, TYPE_ID);
 		this.radius = radius;
-		boxRadius = radius * 2;
 		
-		calculateVertices();
-		calulateNormals();
+		initVertices(DEGREE);
 	}
 	
-	/**
-	 * Calculates the vertices based on center position and radius
+	/* (non-Javadoc)
+	 * @see application.physics.shape.Shape#turnVertices()
 	 */
-	private void calculateVertices()  {
-		vertices = new Vector2[DEGREE];
-
-		double radInc = (Math.PI * 2.0) / DEGREE;
-
-		double rad = 0;
-		for (int i = 0 ; i < vertices.length; i++) {
-
-			vertices[i] = new Vector2((float)Math.cos(rad), (float)Math.sin(rad)).linearMutliply(radius).add(position);
-
-			rad += radInc;
-
+	@Override
+	protected void turnVertices() {
+		for (int i = 0; i < DEGREE; i++) {
+			offsets[i].set(
+					((cos * UNIT_X[i]) - (sin * UNIT_Y[i])) * radius,
+					((sin * UNIT_X[i]) + (cos * UNIT_Y[i])) * radius);
 		}
 	}
 	
@@ -52,20 +55,6 @@ public class CircleShape extends Shape {
 	public float getLooseCheckRadius() {
 		return radius;
 	}
-
-	@Override
-	public void render(GraphicsContext gc, float delta) {
-		gc.setStroke(colour);
-		gc.strokeOval(position.getX() - radius, position.getY() - radius, boxRadius, boxRadius);
-		
-		for (int i = 0; i < faceNormals.length; i++) {
-			Vector2 v = position.clone().add(faceNormals[i].clone().linearMutliply(5f));
-			gc.strokeLine(position.getX(), position.getY(), v.getX(), v.getY());
-			gc.fillOval(vertices[i].getX() - 2f, vertices[i].getY() - 2f, 4f, 4f);
-		}
-		
-		colour = Color.BLACK;
-	}
 	
 	@Override
 	public boolean pointWithin(Vector2 point) {
@@ -78,10 +67,12 @@ public class CircleShape extends Shape {
 		return r > distX + distY;
 	}
 
+	/* (non-Javadoc)
+	 * @see application.physics.shape.Shape#getInertia(float)
+	 */
 	@Override
-	public void moveTo(Vector2 dest) {
-		position = dest;
-		calculateVertices();
+	public float getInertia(float mass) {
+		return mass * radius * radius / 2f;
 	}
 	
 	/* (non-Javadoc)
@@ -96,8 +87,10 @@ public class CircleShape extends Shape {
 	 * @see application.physics.shape.Shape#getVertice(application.physics.shape.Shape)
 	 */
 	@Override
-	public Vector2 getVertice(Shape pos) {
-		return getVertice(pos.getPosition().clone().minus(position).Normalize());
+	public Vector2 getVertice(Shape pos, Vector2 out) {
+		Vector2.normalize(pos.getPosition().getX() - position.getX(), pos.getPosition().getY() - position.getY(), out);
+		Vector2.normalize(out.getX(), out.getY(), out);
+		return out.set((out.getX() * radius) + position.getX(), (out.getY() * radius) + position.getY());
 	}
 	
 	/* (non-Javadoc)
@@ -108,6 +101,14 @@ public class CircleShape extends Shape {
 		return dir.clone().Normalize();
 	}
 	
+	/* (non-Javadoc)
+	 * @see application.physics.shape.Shape#getFaceNormalTowards(float, float, application.math.Vector2)
+	 */
+	@Override
+	public Vector2 getFaceNormalTowards(float dirX, float dirY, Vector2 out) {
+		return Vector2.normalize(dirX, dirY, out);
+	}
+	
 	/**
 	 * @return the radius
 	 */
@@ -121,6 +122,7 @@ public class CircleShape extends Shape {
 	 */
 	public void setRadius(float radius) {
 		this.radius = radius;
+		sizeChanged();
 	}
 
 }
@@ -0,0 +1,164 @@
+package application.physics.shape;
+
+import application.math.Vector2;
+
+public class RectShape extends Shape {
+
+	public static final int TYPE_ID = 2;
+	
+	private float width;
+	private float height;
+	private float looseCheckRadius;
+	
+	/**
+	 * @param position
+	 * @param angle
+	 * @param width
+	 * @param height
+	 */
+	public RectShape(Vector2 position, float angle, float width, float height) {
+		super(position, angle, TYPE_ID);
+		this.width = width;
+		this.height = height;
+		looseCheckRadius = (float)Math.sqrt((width * width) + (height * height)) / 2f;
+		
+		initVertices(4);
+	}
+	
+	@Override
+	public boolean pointWithin(Vector2 point) {
+		float dx = point.getX() - position.getX();
+		float dy = point.getY() - position.getY();
+		
+		// the point turned back into the rect's own axes
+		float localX = (cos * dx) + (sin * dy);
+		float localY = (cos * dy) - (sin * dx);
+		
+		return Math.abs(localX) <= width / 2f && Math.abs(localY) <= height / 2f;
+	}
+	
+	/* (non-Javadoc)
+	 * @see application.physics.shape.Shape#turnVertices()
+	 */
+	@Override
+	protected void turnVertices() {
+		// half of the width and height along the rect's own axes
+		float wx = cos * (width / 2f);
+		float wy = sin * (width / 2f);
+		float hx = -sin * (height / 2f);
+		float hy = cos * (height / 2f);
+		
+		offsets[0].set(-wx - hx, -wy - hy);
+		offsets[1].set(wx - hx, wy - hy);
+		offsets[2].set(wx + hx, wy + hy);
+		offsets[3].set(-wx + hx, -wy + hy);
+	}
+	
+	/* (non-Javadoc)
+	 * @see application.physics.shape.Shape#getInertia(float)
+	 */
+	@Override
+	public float getInertia(float mass) {
+		return mass * ((width * width) + (height * height)) / 12f;
+	}
+	
+	/* (non-Javadoc)
+	 * @see application.physics.shape.Shape#getVertice(application.math.Vector2)
+	 */
+	@Override
+	public Vector2 getVertice(Vector2 direction) {
+		updateTransform();
+		return vertices[vertexTowards(direction.getX(), direction.getY())];
+	}
+	
+	/* (non-Javadoc)
+	 * @see application.physics.shape.Shape#getVertice(application.physics.shape.Shape, application.math.Vector2)
+	 */
+	@Override
+	public Vector2 getVertice(Shape pos, Vector2 out) {
+		updateTransform();
+		Vector2.normalize(pos.getPosition().getX() - position.getX(), pos.getPosition().getY() - position.getY(), out);
+		return out.set(vertices[vertexTowards(out.getX(), out.getY())]);
+	}
+	
+	/**
+	 * Finds the vertex closest to a point far along the direction
+	 * @param dirX
+	 * @param dirY
+	 * @return index into the vertices
+	 */
+	private int vertexTowards(float dirX, float dirY) {
+		int best = 0;
+		float min = Float.MAX_VALUE;
+		float targetX = (dirX * (width + height)) + position.getX();
+		float targetY = (dirY * (width + height)) + position.getY();
+		
+		for (int i = 0; i < vertices.length; i++) {
+			float dist = Vector2.lengthSquared(targetX - vertices[i].getX(), targetY - vertices[i].getY());
+			
+			if (dist < min) {
+				best = i;
+				min = dist;
+			}
+		}
+		
+		return best;
+	}
+	
+	/* (non-Javadoc)
+	 * @see application.physics.shape.Shape#getLooseCheckRadius()
+	 */
+	@Override
+	public float getLooseCheckRadius() {
+		return looseCheckRadius;
+	}
+
+	/**
+	 * @return the width
+	 */
+	public float getWidth() {
+		return width;
+	}
+
+	/**
+	 * @param width
+	 *            the width to set
+	 */
+	public void setWidth(float width) {
+		this.width = width;
+		sizeChanged();
+	}
+
+	/**
+	 * @return the height
+	 */
+	public float getHeight() {
+		return height;
+	}
+
+	/**
+	 * @param height
+	 *            the height to set
+	 */
+	public void setHeight(float height) {
+		this.height = height;
+		sizeChanged();
+	}
+
+	/**
+	 * @return the first corner, the top left one while the angle is 0
+	 */
+	public Vector2 getPointA() {
+		return getVertices()[0];
+	}
+
+	/**
+	 * @return the corner opposite the first, the bottom right one while the
+	 * angle is 0
+	 */
+	public Vector2 getPointB() {
+		return getVertices()[2];
+	}
+
+	
+}
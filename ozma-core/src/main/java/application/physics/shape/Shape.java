@@ -0,0 +1,455 @@
+package application.physics.shape;
+
+import application.math.Projection;
+import application.math.Vector2;
+import application.physics.BodyStore;
+
+/**
+ * Geometry is kept in the shape's own space. Moving or turning a shape only
+ * marks what changed, the world vertices and face normals are worked out the
+ * first time something reads them. A move keeps the turned vertices and only
+ * adds the new position, turning them again is left for when the angle
+ * changes. A shape that is moved every update but never read costs nothing
+ * beyond its position.
+ */
+public abstract class Shape {
+	
+	/**
+	 * Collision states, set by the engine each update and read when drawing
+	 */
+	public static final int NOT_CHECKED = 0;
+	public static final int NOT_COLLIDING = 1;
+	public static final int COLLIDING = 2;
+	
+	/**
+	 * The xy representing the center of the shape
+	 */
+	protected Vector2 position;
+
+	/**
+	 * The angle or rotation of the shape in radians
+	 */
+	protected float angle;
+
+	/**
+	 * Cosine and sine of the angle, worked out once whenever it changes
+	 */
+	protected float cos;
+	protected float sin;
+
+	/**
+	 * List of vertices, read through getVertices so they are up to date
+	 */
+	protected Vector2[] vertices;
+
+	/**
+	 * The vertices relative to the position, turned by the angle
+	 */
+	protected Vector2[] offsets;
+
+	/**
+	 * Set when the angle changed since the offsets and face normals were
+	 * turned, or when the size changed
+	 */
+	protected boolean angleDirty;
+
+	/**
+	 * Set when the shape moved since the vertices were worked out
+	 */
+	protected boolean positionDirty;
+
+	// the store holding a copy of the size and the slot it is in, told when it changes
+	private BodyStore store;
+	private int slot;
+
+	/**
+	 * Normals to each face
+	 */
+	protected Vector2[] faceNormals;
+
+	/**
+	 * Normals to each face before turning by the angle
+	 */
+	protected Vector2[] localNormals;
+	
+	/**
+	 * Type id used for fast type checking
+	 */
+	protected final int shapeType;
+	
+	/**
+	 * Whether the shape collided the last time the engine checked it
+	 */
+	protected int collisionState = NOT_CHECKED;
+
+	/**
+	 * @param position
+	 * @param angle
+	 */
+	public Shape(Vector2 position, float angle, int shapeType) {
+		super();
+		this.position = position;
+		this.angle = angle;
+		this.shapeType = shapeType;
+		cos = (float) Math.cos(angle);
+		sin = (float) Math.sin(angle);
+	}
+
+	/**
+	 * Checks if a point is within shape
+	 * 
+	 * @param point
+	 * @return
+	 */
+	public abstract boolean pointWithin(Vector2 point);
+
+	/**
+	 * Move to the spot, keeping the angle
+	 * 
+	 * @param dest
+	 */
+	public void moveTo(Vector2 dest) {
+		position = dest;
+		positionDirty = true;
+	}
+
+	/**
+	 * Moves and turns the shape with the cosine and sine of the angle already
+	 * worked out, so a shape moved every update never calls Math.cos or sin
+	 * itself
+	 * 
+	 * @param dest
+	 * @param angle
+	 * @param cos cosine of the angle
+	 * @param sin sine of the angle
+	 */
+	public void setTransform(Vector2 dest, float angle, float cos, float sin) {
+		position = dest;
+		positionDirty = true;
+		
+		if (angle != this.angle) {
+			this.angle = angle;
+			this.cos = cos;
+			this.sin = sin;
+			angleDirty = true;
+		}
+	}
+
+	/**
+	 * Brings the vertices and face normals up to date with the last move and
+	 * turn. Reading them calls this, so they are worked out lazily the first
+	 * time they're read after a change. It isn't safe to call from several
+	 * threads at once. The narrowphase routines don't need it, they work from
+	 * the position, angle and size alone.
+	 */
+	public void updateTransform() {
+		if (angleDirty) {
+			turnVertices();
+			rotateNormals();
+			angleDirty = false;
+			positionDirty = true;
+		}
+		
+		if (positionDirty) {
+			float x = position.getX();
+			float y = position.getY();
+			for (int i = 0; i < vertices.length; i++) {
+				vertices[i].set(x + offsets[i].getX(), y + offsets[i].getY());
+			}
+			positionDirty = false;
+		}
+	}
+
+	/**
+	 * Works out the offsets from the size of the shape and the cached cosine
+	 * and sine
+	 */
+	protected abstract void turnVertices();
+
+	/**
+	 * Creates the vertices, then works them and the face normals out for the
+	 * first time, for constructors
+	 * @param count
+	 */
+	protected void initVertices(int count) {
+		vertices = new Vector2[count];
+		offsets = new Vector2[count];
+		for (int i = 0; i < count; i++) {
+			vertices[i] = new Vector2();
+			offsets[i] = new Vector2();
+		}
+		
+		turnVertices();
+		positionDirty = true;
+		updateTransform();
+		calulateNormals();
+	}
+
+	/**
+	 * Turns the local normals by the angle into the face normals
+	 */
+	protected void rotateNormals() {
+		for (int i = 0; i < faceNormals.length; i++) {
+			Vector2 n = localNormals[i];
+			faceNormals[i].set((cos * n.getX()) - (sin * n.getY()), (sin * n.getX()) + (cos * n.getY()));
+		}
+	}
+
+	/**
+	 * @param mass
+	 * @return the moment of inertia about the position of a body of that mass
+	 */
+	public abstract float getInertia(float mass);
+
+	/**
+	 * Gets the point that is mostly aligned with the direction
+	 * 
+	 * @param direction
+	 *            a vector representing direction
+	 */
+	public abstract Vector2 getVertice(Vector2 direction);
+	
+	/**
+	 * Gets the vertex that is towards the shape's position
+	 * 
+	 * @param position towards this shape's position
+	 */
+	public Vector2 getVertice(Shape pos) {
+		return getVertice(pos, new Vector2());
+	}
+	
+	/**
+	 * Writes the vertex that is towards the shape's position into out
+	 * 
+	 * @param pos towards this shape's position
+	 * @param out
+	 * @return out
+	 */
+	public abstract Vector2 getVertice(Shape pos, Vector2 out);
+
+	/**
+	 * the radius used for a quick check for potential collisions
+	 * 
+	 * @return
+	 */
+	public abstract float getLooseCheckRadius();
+
+	/**
+	 * Calulates all of the face normals, and the local normals they are
+	 * turned from afterwards
+	 */
+	protected void calulateNormals() {
+		faceNormals = new Vector2[vertices.length];
+		localNormals = new Vector2[vertices.length];
+
+		for (int i = 0; i < faceNormals.length; i++) {
+
+			Vector2 v = vertices[(i + 1) % vertices.length].clone();
+
+			v.minus(vertices[i]);
+
+			faceNormals[i] = v.getNormal();
+
+			faceNormals[i].Normalize();
+			
+			localNormals[i] = new Vector2(
+					(cos * faceNormals[i].getX()) + (sin * faceNormals[i].getY()),
+					(cos * faceNormals[i].getY()) - (sin * faceNormals[i].getX()));
+		}
+	}
+	
+	/**
+	 * Finds the face normal closest to the direction
+	 * @param dir
+	 * @return
+	 */
+	public Vector2 getFaceNormalTowards(Vector2 dir) {
+		updateTransform();
+		return faceNormals[faceTowards(dir.getX(), dir.getY())];
+	}
+	
+	/**
+	 * Writes the face normal closest to the direction into out
+	 * @param dirX
+	 * @param dirY
+	 * @param out
+	 * @return out
+	 */
+	public Vector2 getFaceNormalTowards(float dirX, float dirY, Vector2 out) {
+		updateTransform();
+		return out.set(faceNormals[faceTowards(dirX, dirY)]);
+	}
+	
+	/**
+	 * Finds the face whose normal is closest to the direction
+	 * @param dirX
+	 * @param dirY
+	 * @return index into the face normals
+	 */
+	protected int faceTowards(float dirX, float dirY) {
+		float len = Vector2.length(dirX, dirY);
+		float posDirX = dirX / len;
+		float posDirY = dirY / len;
+		int best = 0;
+		float max = -Float.MAX_VALUE;
+		
+		for (int i = 0; i < faceNormals.length; i++) { 
+			float scalar = Vector2.dot(posDirX, posDirY, faceNormals[i].getX(), faceNormals[i].getY());
+			if (scalar > max) {
+				best = i;
+				max = scalar; 
+			}
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Gets the face normal closest to the 
+	 * @param shape
+	 * @return
+	 */
+	public Vector2 getFaceNormalTowards(Shape shape) {
+		return getFaceNormalTowards(shape.getPosition().clone().minus(position));
+	}
+	
+	/**
+	 * Projects onto axis
+	 * @param axis
+	 * @return
+	 */
+	public Projection projectOnAxis(Vector2 axis) {
+		return projectOnAxis(axis, new Projection(0f, 0f));
+	}
+	
+	/**
+	 * Projects onto axis, writing into out
+	 * @param axis
+	 * @param out
+	 * @return out
+	 */
+	public Projection projectOnAxis(Vector2 axis, Projection out) {
+		updateTransform();
+		float min = axis.dot(vertices[0]);
+		float max = min;
+		
+		for (int i = 0; i < vertices.length; i++) {
+			float p = axis.dot(vertices[i]);
+			
+			if (p < min) {
+				min = p;
+			} else if (p > max) {
+				max = p;
+			}
+		}
+		
+		return out.set(min, max);
+	}
+
+	/**
+	 * @return the position
+	 */
+	public Vector2 getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return the angle
+	 */
+	public float getAngle() {
+		return angle;
+	}
+
+	/**
+	 * @param angle
+	 *            the angle to set
+	 */
+	public void setAngle(float angle) {
+		this.angle = angle;
+		cos = (float) Math.cos(angle);
+		sin = (float) Math.sin(angle);
+		angleDirty = true;
+	}
+
+	/**
+	 * @return the cosine of the angle
+	 */
+	public float getCos() {
+		return cos;
+	}
+
+	/**
+	 * @return the sine of the angle
+	 */
+	public float getSin() {
+		return sin;
+	}
+
+	/**
+	 * @return the vertices
+	 */
+	public Vector2[] getVertices() {
+		updateTransform();
+		return vertices;
+	}
+
+	/**
+	 * @return the faceNormals
+	 */
+	public Vector2[] getFaceNormals() {
+		updateTransform();
+		return faceNormals;
+	}
+
+	/**
+	 * @return the shapeType
+	 */
+	public int getShapeType() {
+		return shapeType;
+	}
+
+	/**
+	 * @param position the position to set
+	 */
+	public void setPosition(Vector2 position) {
+		this.position = position;
+	}
+
+	/**
+	 * @return NOT_CHECKED, NOT_COLLIDING or COLLIDING
+	 */
+	public int getCollisionState() {
+		return collisionState;
+	}
+
+	/**
+	 * @param collisionState the collisionState to set
+	 */
+	public void setCollisionState(int collisionState) {
+		this.collisionState = collisionState;
+	}
+
+	/**
+	 * Sets the store that copied the size of the shape, which is copied
+	 * again whenever it changes, called by the store
+	 * @param store null once the shape left it
+	 * @param slot
+	 */
+	public void setStore(BodyStore store, int slot) {
+		this.store = store;
+		this.slot = slot;
+	}
+
+	/**
+	 * To be called by every setter of the size
+	 */
+	protected void sizeChanged() {
+		angleDirty = true;
+		if (store != null) {
+			store.refresh(slot);
+		}
+	}
+	
+	
+
+}
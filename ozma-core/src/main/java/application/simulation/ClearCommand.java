@@ -0,0 +1,17 @@
+package application.simulation;
+
+/**
+ * Removes every entity from the world
+ */
+public class ClearCommand implements SimulationCommand {
+
+	@Override
+	public void apply(Simulation simulation) {
+		InputRecorder recorder = simulation.getRecorder();
+		if (recorder != null) {
+			recorder.clear(simulation.getSteps());
+		}
+
+		simulation.clearEntities();
+	}
+}
@@ -0,0 +1,49 @@
+package application.simulation;
+
+import application.entity.BasicPhysicsEntity;
+import application.math.Vector2;
+
+/**
+ * Moves an entity to where it is being dragged, with the speed it is dragged
+ * at so it carries on when let go
+ */
+public class DragCommand implements SimulationCommand {
+
+	private final BasicPhysicsEntity entity;
+	private final float x;
+	private final float y;
+	private final float velocityX;
+	private final float velocityY;
+
+	/**
+	 * @param entity
+	 * @param x where the entity is dragged to
+	 * @param y
+	 * @param velocityX
+	 * @param velocityY
+	 */
+	public DragCommand(BasicPhysicsEntity entity, float x, float y, float velocityX, float velocityY) {
+		this.entity = entity;
+		this.x = x;
+		this.y = y;
+		this.velocityX = velocityX;
+		this.velocityY = velocityY;
+	}
+
+	@Override
+	public void apply(Simulation simulation) {
+		// the entity may have been cleared while the command was queued
+		int slot = simulation.getEntities().indexOf(entity);
+		if (slot < 0) {
+			return;
+		}
+
+		InputRecorder recorder = simulation.getRecorder();
+		if (recorder != null) {
+			recorder.drag(simulation.getSteps(), slot, x, y, velocityX, velocityY);
+		}
+
+		entity.setPosition(new Vector2(x, y));
+		entity.setVelocity(new Vector2(velocityX, velocityY));
+	}
+}
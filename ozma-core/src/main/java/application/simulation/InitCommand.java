@@ -0,0 +1,68 @@
+package application.simulation;
+
+import java.util.Random;
+
+import application.entity.BasicPhysicsEntity;
+import application.math.Vector2;
+import application.physics.PhysicsProperties;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * Scatters a few circles and rectangles over an area, at spots drawn from the
+ * simulation's Random, and puts a frozen block near the bottom for them to
+ * land on
+ */
+public class InitCommand implements SimulationCommand {
+
+	private static final int BODIES = 6;
+	private static final float SIZE = 50f;
+
+	private final float width;
+	private final float height;
+
+	/**
+	 * @param width of the area
+	 * @param height
+	 */
+	public InitCommand(float width, float height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	@Override
+	public void apply(Simulation simulation) {
+		InputRecorder recorder = simulation.getRecorder();
+		if (recorder != null) {
+			recorder.init(simulation.getSteps(), width, height);
+		}
+
+		Random rand = simulation.getRandom();
+		for (int i = 0; i < BODIES; i++) {
+			Vector2 pos = new Vector2(rand.nextFloat() * width, rand.nextFloat() * height);
+
+			Shape shape;
+			if (i % 2 == 0) {
+				shape = new CircleShape(pos, 0f, SIZE);
+			} else {
+				shape = new RectShape(pos, (float) Math.PI / rand.nextFloat(), SIZE, SIZE);
+			}
+
+			PhysicsProperties prop = new PhysicsProperties(5f, 0.1f);
+			prop.setDynamicFriction(0.2f);
+			prop.setStaticFriction(0.4f);
+
+			simulation.addEntity(new BasicPhysicsEntity(pos, shape, prop));
+		}
+
+		Vector2 floorPos = new Vector2(width / 2f, height - SIZE);
+		Shape floorShape = new RectShape(floorPos, 0f, SIZE, SIZE);
+		PhysicsProperties floorProp = new PhysicsProperties(0, 0f);
+		floorProp.setDynamicFriction(0f);
+		floorProp.setStaticFriction(0f);
+		BasicPhysicsEntity floor = new BasicPhysicsEntity(floorPos, floorShape, floorProp);
+		floor.setFrozen(true);
+		simulation.addEntity(floor);
+	}
+}
@@ -0,0 +1,198 @@
+package application.simulation;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.PhysicsEngine;
+
+/**
+ * Replays a log written by InputRecorder without a window, stepping as fast
+ * as the CPU allows instead of in real time.
+ *
+ * The replay gets a new engine with the logged timestep and a simulation with
+ * the logged seed, then runs each command after the same number of steps it
+ * ran after when recorded. The world it ends with is the one the recorded
+ * session ended with, which the state hash printed by main shows. A log cut
+ * short by a crash replays up to its last whole record.
+ *
+ * Options: --log file (required), --parallel true|false
+ */
+public class InputPlayer {
+
+	private final ByteBuffer log;
+	private final long seed;
+	private final float timestep;
+
+	/**
+	 * Reads a log
+	 * @param path
+	 * @throws IOException if it can't be read or isn't an input log
+	 */
+	public InputPlayer(Path path) throws IOException {
+		log = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+		if (log.remaining() < InputRecorder.HEADER_BYTES || log.getInt() != InputRecorder.MAGIC) {
+			throw new IOException("not an input log");
+		}
+
+		int version = log.getInt();
+		if (version != InputRecorder.VERSION) {
+			throw new IOException("unsupported input log version " + version);
+		}
+
+		seed = log.getLong();
+		timestep = log.getFloat();
+	}
+
+	/**
+	 * Entry point
+	 * @param args see the class comment
+	 */
+	public static void main(String[] args) throws IOException {
+		String file = null;
+		boolean parallel = false;
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("missing value for " + args[i]);
+			}
+
+			switch (args[i]) {
+			case "--log":
+				file = args[i + 1];
+				break;
+			case "--parallel":
+				parallel = Boolean.parseBoolean(args[i + 1]);
+				break;
+			default:
+				throw new IllegalArgumentException("unknown option " + args[i]);
+			}
+		}
+
+		if (file == null) {
+			throw new IllegalArgumentException("--log is required");
+		}
+
+		InputPlayer player = new InputPlayer(Paths.get(file));
+		long start = System.nanoTime();
+		Simulation simulation = player.play(parallel);
+		double wall = (System.nanoTime() - start) / 1e9;
+		double simulated = simulation.getSteps() * (double) player.getTimestep();
+
+		System.out.printf(Locale.ROOT, "steps %d, %.1f s simulated in %.3f s (%.0fx real time), %d bodies, state hash %016x%n",
+				simulation.getSteps(), simulated, wall, simulated / wall, simulation.getEngine().getBodies().size(),
+				simulation.getEngine().getBodies().stateHash());
+	}
+
+	/**
+	 * Replays the whole log on this thread
+	 * @param parallel see PhysicsEngine.update, the result is the same either way
+	 * @return the simulation, stopped where the log ends
+	 * @throws IOException if the log has a record it doesn't know
+	 */
+	public Simulation play(boolean parallel) throws IOException {
+		List<BasicPhysicsEntity> entities = new ArrayList<>();
+		PhysicsEngine engine = new PhysicsEngine(entities);
+		engine.setTimestep(timestep);
+
+		Simulation simulation = new Simulation(engine, entities, seed);
+		simulation.setParallel(parallel);
+
+		ByteBuffer in = log.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		long step = 0;
+		try {
+			while (in.hasRemaining()) {
+				step += getVarint(in);
+				byte op = in.get();
+				SimulationCommand command = read(op, in, simulation);
+
+				while (simulation.getSteps() < step) {
+					simulation.stepOnce();
+				}
+
+				if (command == null) {
+					break;
+				}
+				command.apply(simulation);
+			}
+		} catch (BufferUnderflowException e) {
+			// the session crashed part way through writing a record
+		}
+
+		return simulation;
+	}
+
+	/**
+	 * @return the seed the recorded simulation's Random had
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return the timestep the recorded engine had
+	 */
+	public float getTimestep() {
+		return timestep;
+	}
+
+	/**
+	 * Reads the arguments of a record
+	 * @param op
+	 * @param in
+	 * @param simulation to look the dragged entity up in, with every earlier
+	 * command run
+	 * @return the command to run, null for the end of the session
+	 * @throws IOException
+	 */
+	private static SimulationCommand read(byte op, ByteBuffer in, Simulation simulation) throws IOException {
+		switch (op) {
+		case InputRecorder.END:
+			return null;
+		case InputRecorder.SPAWN_CIRCLE:
+			return new SpawnCommand(SpawnCommand.CIRCLE, in.getFloat(), in.getFloat());
+		case InputRecorder.SPAWN_RECT:
+			return new SpawnCommand(SpawnCommand.RECT, in.getFloat(), in.getFloat());
+		case InputRecorder.DRAG:
+			int slot = (int) getVarint(in);
+			float x = in.getFloat();
+			float y = in.getFloat();
+			float velocityX = in.getFloat();
+			float velocityY = in.getFloat();
+			if (slot >= simulation.getEntities().size()) {
+				throw new IOException("drag of missing slot " + slot);
+			}
+			return new DragCommand(simulation.getEntities().get(slot), x, y, velocityX, velocityY);
+		case InputRecorder.CLEAR:
+			return new ClearCommand();
+		case InputRecorder.INIT:
+			return new InitCommand(in.getFloat(), in.getFloat());
+		default:
+			throw new IOException("unknown input log record " + op);
+		}
+	}
+
+	/**
+	 * Reads a number written by InputRecorder.putVarint
+	 * @param in
+	 * @return the number
+	 */
+	private static long getVarint(ByteBuffer in) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
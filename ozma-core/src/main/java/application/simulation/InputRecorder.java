@@ -0,0 +1,189 @@
+package application.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends every command a simulation runs to a log, so the session can be
+ * replayed step for step by InputPlayer.
+ *
+ * A simulation is deterministic given its seed and the steps its commands ran
+ * before, so that is all the log holds. It starts with a header of the seed and
+ * the timestep, then one record per command: the steps since the last record
+ * as a varint, an op code and the command's arguments. Most records are a few
+ * bytes. Commands that draw random numbers draw them from the simulation's
+ * seeded Random when they run, so they don't need logging.
+ *
+ * Records are kept in a buffer and appended to the file after each round of
+ * commands, so a crash loses at most the round it happened in. A failed write
+ * stops the recording instead of the simulation, and is thrown by close.
+ */
+public class InputRecorder implements Closeable {
+
+	/**
+	 * "OZMI", the first four bytes of every input log
+	 */
+	static final int MAGIC = 0x4F5A4D49;
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+	// op codes
+	static final byte END = 0;
+	static final byte SPAWN_CIRCLE = 1;
+	static final byte SPAWN_RECT = 2;
+	static final byte DRAG = 3;
+	static final byte CLEAR = 4;
+	static final byte INIT = 5;
+
+	// longest record, a step and slot varint each with a drag's four floats
+	private static final int MAX_RECORD_BYTES = 10 + 1 + 5 + 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private long lastStep;
+	private IOException failure;
+
+	/**
+	 * Creates the log, replacing any file at the path
+	 * @param path
+	 * @param seed of the simulation's Random
+	 * @param timestep of the simulation's engine
+	 * @throws IOException
+	 */
+	public InputRecorder(Path path, long seed, float timestep) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(seed);
+		buffer.putFloat(timestep);
+		flush();
+	}
+
+	/**
+	 * @param step
+	 * @param shape SpawnCommand.CIRCLE or RECT
+	 * @param x
+	 * @param y
+	 */
+	void spawn(long step, int shape, float x, float y) {
+		begin(step, shape == SpawnCommand.CIRCLE ? SPAWN_CIRCLE : SPAWN_RECT);
+		buffer.putFloat(x);
+		buffer.putFloat(y);
+	}
+
+	/**
+	 * @param step
+	 * @param slot index of the dragged entity in the simulation's list
+	 * @param x
+	 * @param y
+	 * @param velocityX
+	 * @param velocityY
+	 */
+	void drag(long step, int slot, float x, float y, float velocityX, float velocityY) {
+		begin(step, DRAG);
+		putVarint(slot);
+		buffer.putFloat(x);
+		buffer.putFloat(y);
+		buffer.putFloat(velocityX);
+		buffer.putFloat(velocityY);
+	}
+
+	/**
+	 * @param step
+	 */
+	void clear(long step) {
+		begin(step, CLEAR);
+	}
+
+	/**
+	 * @param step
+	 * @param width of the area filled
+	 * @param height
+	 */
+	void init(long step, float width, float height) {
+		begin(step, INIT);
+		buffer.putFloat(width);
+		buffer.putFloat(height);
+	}
+
+	/**
+	 * Marks where the session stopped, so a replay steps as far
+	 * @param step
+	 */
+	void end(long step) {
+		begin(step, END);
+		flush();
+	}
+
+	/**
+	 * Appends the buffered records to the file, or drops them once a write
+	 * has failed
+	 */
+	void flush() {
+		if (failure != null) {
+			buffer.clear();
+			return;
+		}
+
+		if (buffer.position() == 0) {
+			return;
+		}
+
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			failure = e;
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Flushes and closes the log
+	 * @throws IOException the first write that failed, if any
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		channel.close();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Starts a record, making room for the longest one first
+	 * @param step
+	 * @param op
+	 */
+	private void begin(long step, byte op) {
+		if (buffer.remaining() < MAX_RECORD_BYTES) {
+			flush();
+		}
+
+		putVarint(step - lastStep);
+		buffer.put(op);
+		lastStep = step;
+	}
+
+	/**
+	 * Writes an unsigned number seven bits a byte, low bits first
+	 * @param value
+	 */
+	private void putVarint(long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+}
@@ -0,0 +1,249 @@
+package application.simulation;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.PhysicsEngine;
+
+/**
+ * Runs a physics engine on its own thread in fixed timesteps, so slow drawing
+ * doesn't hold up the physics and a slow step doesn't hold up drawing.
+ *
+ * Nothing outside the simulation thread touches the engine or its entities
+ * once started. Other threads change the world by posting commands, which are
+ * queued without locks and run before the next step, and see the world through
+ * the snapshot published after each round of steps.
+ *
+ * Commands that need random numbers draw them from the simulation's own
+ * Random, seeded when it is made, so the same seed and the same commands at
+ * the same steps always give the same world. An InputRecorder set before
+ * starting logs them for InputPlayer to replay.
+ */
+public class Simulation implements Runnable {
+
+	private final PhysicsEngine engine;
+	private final List<BasicPhysicsEntity> entities;
+	private final ConcurrentLinkedQueue<SimulationCommand> commands;
+	private final SnapshotBuffer snapshots;
+	private volatile boolean parallel;
+	private volatile boolean running;
+	private Thread thread;
+	private volatile long steps;
+	private final long seed;
+	private final Random random;
+	private InputRecorder recorder;
+
+	/**
+	 * @param engine
+	 * @param entities the list the engine was made with
+	 */
+	public Simulation(PhysicsEngine engine, List<BasicPhysicsEntity> entities) {
+		this(engine, entities, new Random().nextLong());
+	}
+
+	/**
+	 * @param engine
+	 * @param entities the list the engine was made with
+	 * @param seed of the Random commands draw from
+	 */
+	public Simulation(PhysicsEngine engine, List<BasicPhysicsEntity> entities, long seed) {
+		this.engine = engine;
+		this.entities = entities;
+		this.seed = seed;
+		random = new Random(seed);
+		commands = new ConcurrentLinkedQueue<>();
+		snapshots = new SnapshotBuffer();
+	}
+
+	/**
+	 * Starts stepping on a new daemon thread
+	 * @param name of the thread
+	 */
+	public synchronized void start(String name) {
+		if (thread != null) {
+			throw new IllegalStateException("Simulation already started");
+		}
+
+		running = true;
+		thread = new Thread(this, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops stepping and waits for the thread to finish its step. The
+	 * recorder, if any, is told where the session stopped but left open.
+	 * @throws InterruptedException
+	 */
+	public synchronized void stop() throws InterruptedException {
+		if (thread == null) {
+			return;
+		}
+
+		running = false;
+		LockSupport.unpark(thread);
+		thread.join();
+		thread = null;
+
+		if (recorder != null) {
+			recorder.end(steps);
+		}
+	}
+
+	@Override
+	public void run() {
+		long next = System.nanoTime();
+		publish(0);
+
+		while (running) {
+			long stepNanos = (long) (engine.getTimestep() * 1000000000.0);
+			long now = System.nanoTime();
+
+			if (now < next) {
+				LockSupport.parkNanos(next - now);
+				continue;
+			}
+
+			runCommands();
+			if (recorder != null) {
+				recorder.flush();
+			}
+
+			int substeps = 0;
+			while (now >= next && substeps < engine.getMaxSubsteps()) {
+				stepOnce();
+				next += stepNanos;
+				substeps++;
+			}
+
+			// too far behind, drop the time the way PhysicsEngine.step does
+			if (now >= next) {
+				next = now + stepNanos;
+			}
+
+			publish(substeps);
+		}
+	}
+
+	/**
+	 * Takes one fixed timestep
+	 */
+	void stepOnce() {
+		engine.update(parallel);
+		engine.integrate(engine.getTimestep());
+		steps++;
+	}
+
+	/**
+	 * Runs the queued commands, in the order they were posted
+	 */
+	private void runCommands() {
+		SimulationCommand command;
+		while ((command = commands.poll()) != null) {
+			command.apply(this);
+		}
+	}
+
+	private void publish(int substeps) {
+		snapshots.getBack().capture(engine.getBodies(), steps, engine.getTimestep(), substeps);
+		snapshots.publish();
+	}
+
+	/**
+	 * Queues a command to run on the simulation thread before the next step,
+	 * safe to call from any thread
+	 * @param command
+	 */
+	public void post(SimulationCommand command) {
+		commands.offer(command);
+	}
+
+	/**
+	 * Takes the newest snapshot, only from the one thread drawing the world
+	 * @return the newest snapshot, valid until the next call
+	 */
+	public Snapshot getSnapshot() {
+		return snapshots.acquire();
+	}
+
+	/**
+	 * Adds an entity to the world, only from a command
+	 * @param entity
+	 */
+	public void addEntity(BasicPhysicsEntity entity) {
+		entities.add(entity);
+	}
+
+	/**
+	 * Removes every entity from the world, only from a command
+	 */
+	public void clearEntities() {
+		engine.clearEngine();
+	}
+
+	/**
+	 * @return the engine, only for use from a command
+	 */
+	public PhysicsEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * @return the entities of the world, only for use from a command
+	 */
+	public List<BasicPhysicsEntity> getEntities() {
+		return entities;
+	}
+
+	/**
+	 * @return the seed of the Random commands draw from
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return the Random commands draw from, only for use from a command
+	 */
+	public Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * @return the recorder logging the commands, null when not recording
+	 */
+	public InputRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * @param recorder logs every command run from now on, set before starting
+	 */
+	public void setRecorder(InputRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * @return the number of steps taken
+	 */
+	public long getSteps() {
+		return steps;
+	}
+
+	/**
+	 * @return true if the steps are split across the engine's pool
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * @param parallel see PhysicsEngine.update
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+}
@@ -0,0 +1,13 @@
+package application.simulation;
+
+/**
+ * A change to the world asked for by another thread, run by the simulation
+ * thread between steps
+ */
+public interface SimulationCommand {
+
+	/**
+	 * @param simulation the simulation to change, on its own thread
+	 */
+	void apply(Simulation simulation);
+}
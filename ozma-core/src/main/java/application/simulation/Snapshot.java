@@ -0,0 +1,264 @@
+package application.simulation;
+
+import java.util.Arrays;
+
+import application.entity.BasicPhysicsEntity;
+import application.physics.BodyStore;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * The transforms of every body after one step of a Simulation, for drawing on
+ * another thread.
+ *
+ * Each body keeps its transform before and after the step so it can be drawn
+ * anywhere in between. A snapshot is only written by the simulation thread
+ * while nobody else can see it, and isn't touched again until the reader has
+ * moved on to a newer one, see SnapshotBuffer.
+ */
+public class Snapshot {
+
+	private int size;
+	private long step;
+	private long publishedNanos;
+	private float timestep;
+	private int substeps;
+
+	private BasicPhysicsEntity[] entities;
+	private int[] shapeType;
+	private int[] collisionState;
+	private float[] prevX;
+	private float[] prevY;
+	private float[] prevAngle;
+	private float[] posX;
+	private float[] posY;
+	private float[] angle;
+	private float[] width;
+	private float[] height;
+
+	public Snapshot() {
+		entities = new BasicPhysicsEntity[0];
+		shapeType = new int[0];
+		collisionState = new int[0];
+		prevX = new float[0];
+		prevY = new float[0];
+		prevAngle = new float[0];
+		posX = new float[0];
+		posY = new float[0];
+		angle = new float[0];
+		width = new float[0];
+		height = new float[0];
+	}
+
+	/**
+	 * Copies the bodies of a store after a step. The collision state of each
+	 * shape is taken and cleared, so the next snapshot only shows new checks.
+	 * @param bodies
+	 * @param step number of steps taken so far
+	 * @param timestep seconds of a step
+	 * @param substeps steps taken since the last snapshot
+	 */
+	void capture(BodyStore bodies, long step, float timestep, int substeps) {
+		int n = bodies.size();
+		ensureCapacity(n);
+
+		for (int i = 0; i < n; i++) {
+			BasicPhysicsEntity e = bodies.getEntity(i);
+			Shape shape = e.getShape();
+			entities[i] = e;
+			shapeType[i] = shape.getShapeType();
+			collisionState[i] = shape.getCollisionState();
+			shape.setCollisionState(Shape.NOT_CHECKED);
+			prevX[i] = bodies.getInterpolatedX(i, 0f);
+			prevY[i] = bodies.getInterpolatedY(i, 0f);
+			prevAngle[i] = bodies.getInterpolatedAngle(i, 0f);
+			posX[i] = bodies.getPositionX(i);
+			posY[i] = bodies.getPositionY(i);
+			angle[i] = bodies.getAngle(i);
+
+			if (shapeType[i] == RectShape.TYPE_ID) {
+				width[i] = ((RectShape) shape).getWidth();
+				height[i] = ((RectShape) shape).getHeight();
+			} else if (shapeType[i] == CircleShape.TYPE_ID) {
+				width[i] = ((CircleShape) shape).getRadius() * 2f;
+				height[i] = width[i];
+			}
+		}
+
+		// don't hold on to entities that left the engine
+		for (int i = n; i < size; i++) {
+			entities[i] = null;
+		}
+
+		size = n;
+		this.step = step;
+		this.timestep = timestep;
+		this.substeps = substeps;
+		publishedNanos = System.nanoTime();
+	}
+
+	private void ensureCapacity(int n) {
+		if (n <= entities.length) {
+			return;
+		}
+
+		int cap = Math.max(n, entities.length * 2);
+		entities = Arrays.copyOf(entities, cap);
+		shapeType = Arrays.copyOf(shapeType, cap);
+		collisionState = Arrays.copyOf(collisionState, cap);
+		prevX = Arrays.copyOf(prevX, cap);
+		prevY = Arrays.copyOf(prevY, cap);
+		prevAngle = Arrays.copyOf(prevAngle, cap);
+		posX = Arrays.copyOf(posX, cap);
+		posY = Arrays.copyOf(posY, cap);
+		angle = Arrays.copyOf(angle, cap);
+		width = Arrays.copyOf(width, cap);
+		height = Arrays.copyOf(height, cap);
+	}
+
+	/**
+	 * How far the simulation has probably got into the step after this one,
+	 * for drawing between the two transforms of each body
+	 * @param now from System.nanoTime
+	 * @return 0 for the transforms before the step, 1 for after, in between
+	 * for the time passed since the snapshot was published
+	 */
+	public float getAlpha(long now) {
+		float alpha = (now - publishedNanos) / (timestep * 1000000000f);
+		return Math.max(0f, Math.min(1f, alpha));
+	}
+
+	/**
+	 * Finds the body under a point, as of after the step
+	 * @param x
+	 * @param y
+	 * @return the entity of the first body containing the point, null if none does
+	 */
+	public BasicPhysicsEntity pick(float x, float y) {
+		for (int i = 0; i < size; i++) {
+			float dx = x - posX[i];
+			float dy = y - posY[i];
+
+			if (shapeType[i] == CircleShape.TYPE_ID) {
+				float r = width[i] / 2f;
+				if ((dx * dx) + (dy * dy) <= r * r) {
+					return entities[i];
+				}
+			} else {
+				// into the body's own axes
+				float cos = (float) Math.cos(angle[i]);
+				float sin = (float) Math.sin(angle[i]);
+				float lx = (cos * dx) + (sin * dy);
+				float ly = (cos * dy) - (sin * dx);
+				if (Math.abs(lx) <= width[i] / 2f && Math.abs(ly) <= height[i] / 2f) {
+					return entities[i];
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return the number of bodies
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of steps the simulation had taken
+	 */
+	public long getStep() {
+		return step;
+	}
+
+	/**
+	 * @return System.nanoTime when the snapshot was published
+	 */
+	public long getPublishedNanos() {
+		return publishedNanos;
+	}
+
+	/**
+	 * @return seconds of a step
+	 */
+	public float getTimestep() {
+		return timestep;
+	}
+
+	/**
+	 * @return the number of steps taken since the snapshot before
+	 */
+	public int getSubsteps() {
+		return substeps;
+	}
+
+	/**
+	 * @param i
+	 * @return the entity of the body, only to hand back to the simulation
+	 */
+	public BasicPhysicsEntity getEntity(int i) {
+		return entities[i];
+	}
+
+	/**
+	 * @param i
+	 * @return the shape type id of the body
+	 */
+	public int getShapeType(int i) {
+		return shapeType[i];
+	}
+
+	/**
+	 * @param i
+	 * @return NOT_CHECKED, NOT_COLLIDING or COLLIDING, see Shape
+	 */
+	public int getCollisionState(int i) {
+		return collisionState[i];
+	}
+
+	/**
+	 * @param i
+	 * @param alpha 0 for before the step, 1 for after
+	 * @return the position x of the body between its two transforms
+	 */
+	public float getX(int i, float alpha) {
+		return prevX[i] + ((posX[i] - prevX[i]) * alpha);
+	}
+
+	/**
+	 * @param i
+	 * @param alpha 0 for before the step, 1 for after
+	 * @return the position y of the body between its two transforms
+	 */
+	public float getY(int i, float alpha) {
+		return prevY[i] + ((posY[i] - prevY[i]) * alpha);
+	}
+
+	/**
+	 * @param i
+	 * @param alpha 0 for before the step, 1 for after
+	 * @return the angle of the body between its two transforms
+	 */
+	public float getAngle(int i, float alpha) {
+		return prevAngle[i] + ((angle[i] - prevAngle[i]) * alpha);
+	}
+
+	/**
+	 * @param i
+	 * @return the width of the body before turning, the diameter of a circle
+	 */
+	public float getWidth(int i) {
+		return width[i];
+	}
+
+	/**
+	 * @param i
+	 * @return the height of the body before turning, the diameter of a circle
+	 */
+	public float getHeight(int i) {
+		return height[i];
+	}
+}
@@ -0,0 +1,63 @@
+package application.simulation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Three snapshots handed between one writing and one reading thread without
+ * locks.
+ *
+ * The writer fills the back snapshot and publishes it by swapping it with the
+ * middle one, the reader takes the middle one by swapping it with the front
+ * one it was reading. Each swap is one atomic exchange, so neither thread ever
+ * waits for the other, the writer never touches the snapshot being read, and
+ * the reader always gets the newest snapshot published. Snapshots the reader
+ * was too slow to see are simply written over.
+ */
+class SnapshotBuffer {
+
+	/**
+	 * Set on the middle index when it was published after the reader last took it
+	 */
+	private static final int FRESH = 4;
+	private static final int INDEX = 3;
+
+	private final Snapshot[] snapshots;
+	private final AtomicInteger middle;
+
+	// only touched by the writer and the reader respectively
+	private int back;
+	private int front;
+
+	SnapshotBuffer() {
+		snapshots = new Snapshot[] { new Snapshot(), new Snapshot(), new Snapshot() };
+		back = 0;
+		middle = new AtomicInteger(1);
+		front = 2;
+	}
+
+	/**
+	 * @return the snapshot the writer fills next, writer only
+	 */
+	Snapshot getBack() {
+		return snapshots[back];
+	}
+
+	/**
+	 * Makes the back snapshot the newest one, writer only
+	 */
+	void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+
+	/**
+	 * Takes the newest snapshot if one was published since the last call,
+	 * reader only
+	 * @return the newest snapshot, valid until the next call
+	 */
+	Snapshot acquire() {
+		if ((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & INDEX;
+		}
+		return snapshots[front];
+	}
+}
@@ -0,0 +1,69 @@
+package application.simulation;
+
+import java.util.Random;
+
+import application.entity.BasicPhysicsEntity;
+import application.math.Vector2;
+import application.physics.PhysicsProperties;
+import application.physics.shape.CircleShape;
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+
+/**
+ * Adds a circle or rectangle thrown in a random direction. The direction and
+ * the rectangle's angle are drawn from the simulation's Random when the
+ * command runs, so a replay draws the same ones.
+ */
+public class SpawnCommand implements SimulationCommand {
+
+	/**
+	 * Shapes that can be spawned
+	 */
+	public static final int CIRCLE = 0;
+	public static final int RECT = 1;
+
+	private static final float SIZE = 50f;
+	private static final float MAX_SPEED = 50f;
+
+	private final int shape;
+	private final float x;
+	private final float y;
+
+	/**
+	 * @param shape CIRCLE or RECT
+	 * @param x where the center is spawned
+	 * @param y
+	 */
+	public SpawnCommand(int shape, float x, float y) {
+		if (shape != CIRCLE && shape != RECT) {
+			throw new IllegalArgumentException("unknown shape " + shape);
+		}
+		this.shape = shape;
+		this.x = x;
+		this.y = y;
+	}
+
+	@Override
+	public void apply(Simulation simulation) {
+		InputRecorder recorder = simulation.getRecorder();
+		if (recorder != null) {
+			recorder.spawn(simulation.getSteps(), shape, x, y);
+		}
+
+		Random rand = simulation.getRandom();
+		Vector2 position = new Vector2(x, y);
+		Shape s;
+		if (shape == CIRCLE) {
+			s = new CircleShape(position, 0f, SIZE);
+		} else {
+			s = new RectShape(position, (float) Math.PI / rand.nextFloat(), SIZE, SIZE);
+		}
+
+		PhysicsProperties prop = new PhysicsProperties(5f, 0.5f);
+		prop.setVelocityDamping(1.0f);
+
+		BasicPhysicsEntity entity = new BasicPhysicsEntity(position, s, prop);
+		entity.setVelocity(new Vector2(rand.nextFloat() * MAX_SPEED, rand.nextFloat() * MAX_SPEED));
+		simulation.addEntity(entity);
+	}
+}
@@ -1,17 +1,23 @@
 package application;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import application.entity.BasicPhysicsEntity;
 import application.entity.Entity;
 import application.math.Vector2;
 import application.physics.PhysicsEngine;
-import application.physics.PhysicsProperties;
-import application.physics.shape.CircleShape;
-import application.physics.shape.RectShape;
-import application.physics.shape.Shape;
+import application.physics.monitor.PhysicsMonitor;
+import application.render.ShapeRenderer;
+import application.simulation.ClearCommand;
+import application.simulation.DragCommand;
+import application.simulation.InitCommand;
+import application.simulation.InputRecorder;
+import application.simulation.Simulation;
+import application.simulation.Snapshot;
+import application.simulation.SpawnCommand;
 import application.ui.EntityButton;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -36,37 +42,52 @@ public class Main extends Application {
 	public static final double FRAME_DISPLAY_RATE = 10;
 	public static final String APP_NAME = "ozma engine";
 
-	private float updateDelta, frameDelta;
-	private long lastFrame, lastUpdate;
+	private float frameDelta;
+	private long lastFrame;
 	
+	// entities that aren't physics ones, physics ones belong to the simulation thread
 	private List<Entity> entities;
-	private List<BasicPhysicsEntity> phyEntities;
-	private PhysicsEngine phyEngine;
+	private Simulation simulation;
+	private Snapshot snapshot;
+	private InputRecorder recorder;
 	
-	private Entity selected;
+	private BasicPhysicsEntity selected;
+	private Vector2 dragFrom;
 	private boolean mouseDown;
 
 	/**
 	 * Program entry point
 	 * 
-	 * @param args
+	 * @param args --record=file logs the session for InputPlayer to replay
 	 */
 	public static void main(String[] args) {
 		launch(args);
 	}
 
 	@Override
-	public void start(Stage primaryStage) {
+	public void start(Stage primaryStage) throws IOException {
 		primaryStage.setTitle(APP_NAME);
 
 		lastFrame = System.nanoTime();
-		lastUpdate = System.nanoTime();
+		dragFrom = new Vector2();
 
 		entities = new ArrayList<>();
-		phyEntities = new ArrayList<>();
+		List<BasicPhysicsEntity> phyEntities = new ArrayList<>();
+		PhysicsEngine phyEngine = new PhysicsEngine(phyEntities);
+		phyEngine.setTimestep((float) (1.0 / UPDATE_RATE));
+		phyEngine.setMonitor(PhysicsMonitor.register(APP_NAME));
+
+		// physics steps on its own thread, this one only draws its snapshots
+		simulation = new Simulation(phyEngine, phyEntities, System.nanoTime());
+		simulation.setParallel(true);
+		String record = getParameters().getNamed().get("record");
+		if (record != null) {
+			recorder = new InputRecorder(Paths.get(record), simulation.getSeed(), phyEngine.getTimestep());
+			simulation.setRecorder(recorder);
+		}
 		initEntities();
-
-		phyEngine = new PhysicsEngine(phyEntities);
+		simulation.start(APP_NAME + " physics");
+		snapshot = simulation.getSnapshot();
 
 		// javafx node stuff
 		primaryStage.setResizable(false);
@@ -82,42 +103,29 @@ public class Main extends Application {
 		// use this to draw
 		GraphicsContext gc = canvas.getGraphicsContext2D();
 
-		// timeline loop
-		Timeline renderLoop = new Timeline();
-		renderLoop.setCycleCount(Timeline.INDEFINITE);
-
-		Timeline updateLoop = new Timeline();
-		updateLoop.setCycleCount(Timeline.INDEFINITE);
+		// timeline loop, only draws, physics runs on its own
+		Timeline gameLoop = new Timeline();
+		gameLoop.setCycleCount(Timeline.INDEFINITE);
 
-		// render keyframe loop
-		KeyFrame kfRender = new KeyFrame(Duration.seconds(1.0 / TARGET_FPS), // target FPS
+		// game keyframe loop
+		KeyFrame kfFrame = new KeyFrame(Duration.seconds(1.0 / TARGET_FPS), // target FPS
 				new EventHandler<ActionEvent>() {
 					public void handle(ActionEvent ae) {
-						frameDelta = (System.nanoTime() - lastFrame) / NANO_SEC;
-						render(gc, frameDelta);
-						lastFrame = System.nanoTime();
-					}
-				});
+						long now = System.nanoTime();
+						frameDelta = (now - lastFrame) / NANO_SEC;
+						lastFrame = now;
 
-		// update keyframe loop
-		KeyFrame kfUpdate = new KeyFrame(Duration.seconds(1.0 / UPDATE_RATE), // game loop update rate
-				new EventHandler<ActionEvent>() {
-					public void handle(ActionEvent ae) {
-						updateDelta = (System.nanoTime() - lastUpdate) / NANO_SEC;
-						update(updateDelta);
-						lastUpdate = System.nanoTime();
+						update(frameDelta);
+						render(gc, frameDelta);
 
 						primaryStage
-								.setTitle(String.format("%s %f (%f)", APP_NAME, (1f / frameDelta), (1f / updateDelta)));
+								.setTitle(String.format("%s %f (%d steps)", APP_NAME, (1f / frameDelta), snapshot.getSubsteps()));
 					}
 				});
 
 		// start game loop
-		updateLoop.getKeyFrames().add(kfUpdate);
-		renderLoop.getKeyFrames().add(kfRender);
-
-		renderLoop.play();
-		updateLoop.play();
+		gameLoop.getKeyFrames().add(kfFrame);
+		gameLoop.play();
 
 		// mouse input handler
 		initDragListener(theScene);
@@ -126,6 +134,14 @@ public class Main extends Application {
 		primaryStage.show();
 	}
 
+	@Override
+	public void stop() throws InterruptedException, IOException {
+		simulation.stop();
+		if (recorder != null) {
+			recorder.close();
+		}
+	}
+
 	/**
 	 * Initializes the game's user interface.
 	 * @param group the parent root to add the buttons to
@@ -144,51 +160,17 @@ public class Main extends Application {
 		EntityButton clearButton = new EntityButton(clearButtonLocation, "Clear entities");
 		EntityButton initializeButton = new EntityButton(initializeButtonLocation, "Initialize entities");
 
-		// Physics properties
-		PhysicsProperties prop = new PhysicsProperties(5f, 0.5f);
-		prop.setVelocityDamping(1.0f);
-
-		// Onclick listener for the circle spawner button
+		// Onclick listener for the circle spawner button, the simulation picks the direction it is thrown in
 		circleSpawner.setOnAction(new EventHandler<ActionEvent>() {
 			@Override public void handle(ActionEvent e) {
-				Random rand = new Random();
-
-				// Shape position (center)
-				Vector2 shapePosition = new Vector2(START_WIDTH / 2, START_HEIGHT / 2);
-
-				//Shape type
-				Shape circleShape = new CircleShape(shapePosition, 0f, 50f);
-
-				// Entity for spawning
-				BasicPhysicsEntity circle = new BasicPhysicsEntity(shapePosition, circleShape, prop);
-
-				// Apply some random force to offset its position
-				circle.setVelocity(new Vector2(rand.nextFloat() * 50, rand.nextFloat() * 50));
-
-				// Add the new entity to the game
-				addEntity(circle);
+				simulation.post(new SpawnCommand(SpawnCommand.CIRCLE, START_WIDTH / 2, START_HEIGHT / 2));
 			}
 		});
 
 		// Onclick listener for the rectangle spawner button
 		rectangleSpawner.setOnAction(new EventHandler<ActionEvent>() {
 			@Override public void handle(ActionEvent e) {
-				Random rand = new Random();
-
-				// Shape position (center)
-				Vector2 shapePosition = new Vector2(START_WIDTH / 2, START_HEIGHT / 2);
-
-				// Shape type
-				Shape rectangleShape = new RectShape(shapePosition, (float)Math.PI / rand.nextFloat(), 50f, 50f);
-
-				// Entities for spawning
-				BasicPhysicsEntity rectangle = new BasicPhysicsEntity(shapePosition, rectangleShape, prop);
-
-				// Apply some random force to offset its position
-				rectangle.setVelocity(new Vector2(rand.nextFloat() * 50, rand.nextFloat() * 50));
-
-				// Add the new entity to the game
-				addEntity(rectangle);
+				simulation.post(new SpawnCommand(SpawnCommand.RECT, START_WIDTH / 2, START_HEIGHT / 2));
 			}
 		});
 
@@ -226,17 +208,10 @@ public class Main extends Application {
 				
 				mouseDown = true;
 				
-				Vector2 mouseVector = new Vector2((float) e.getX(), (float) e.getY());
-
-				for (Entity ent : entities) {
-					
-					if (ent.pointWithin(mouseVector)) {
-						selected = ent;
-						return;
-					}
-				}
-
-				selected = null;
+				// pick from what is on screen, the entities themselves belong to the simulation thread
+				snapshot = simulation.getSnapshot();
+				selected = snapshot.pick((float) e.getX(), (float) e.getY());
+				dragFrom.set((float) e.getX(), (float) e.getY());
 			}
 		});
 		
@@ -255,13 +230,10 @@ public class Main extends Application {
 			@Override
 			public void handle(MouseEvent e) {
 				if (selected != null) {
-					Vector2 mouseVector = new Vector2((float) e.getX(), (float) e.getY());
-					Vector2 mouseVelocity = mouseVector.clone();
-					mouseVelocity.minus(selected.getPosition());
-					mouseVelocity.linearMutliply(10f);
-					selected.setPosition(mouseVector);
-					selected.setVelocity(mouseVelocity);
-//					selected.setVelocity(new Vector2(0f, 0f));
+					float x = (float) e.getX();
+					float y = (float) e.getY();
+					simulation.post(new DragCommand(selected, x, y, (x - dragFrom.getX()) * 10f, (y - dragFrom.getY()) * 10f));
+					dragFrom.set(x, y);
 				}
 				
 			}
@@ -269,36 +241,11 @@ public class Main extends Application {
 		});
 	}
 
+	/**
+	 * Scatters a few entities over the window
+	 */
 	private void initEntities() {
-		Random rand = new Random();
-		 
-		 for (int i = 0; i < 6; i++) {
-			 Vector2 pos = new Vector2(rand.nextFloat() * START_WIDTH, rand.nextFloat() * START_HEIGHT);
-			 
-			 Shape shape = null;
-			 
-			 if (i % 2 == 0) {
-				 shape = new CircleShape(pos, 0f, 50f);
-			 } else {
-				 shape = new RectShape(pos, (float)Math.PI / rand.nextFloat(), 50f, 50f);
-//				 continue;
-			 }
-			 
-			 PhysicsProperties prop = new PhysicsProperties(5f, 0.1f);
-			 prop.setDynamicFriction(0.2f);
-			 prop.setStaticFriction(0.4f);
-			 
-			 addEntity(new BasicPhysicsEntity(pos, shape, prop));
-		 }
-		 
-		 Vector2 floorPos = new Vector2(START_WIDTH/2f, START_HEIGHT - 50f);
-		 Shape floorShape = new RectShape(floorPos, 0f, 50f, 50f);
-		 PhysicsProperties floorProp = new PhysicsProperties(0, 0f);
-		 floorProp.setDynamicFriction(0f);
-		 floorProp.setStaticFriction(0f);
-		 BasicPhysicsEntity floorEnt = new BasicPhysicsEntity(floorPos, floorShape, floorProp);
-		 floorEnt.setFrozen(true);
-		 addEntity(floorEnt);
+		simulation.post(new InitCommand(START_WIDTH, START_HEIGHT));
 	}
 
 	/**
@@ -306,31 +253,31 @@ public class Main extends Application {
 	 */
 	public void clearEntities() {
 		entities.clear();
-		phyEntities.clear();
-		phyEngine.clearEngine();
+		selected = null;
+		simulation.post(new ClearCommand());
 	}
 	
 	/**
-	 * Adds an entity to the correct list
+	 * Adds an entity to the correct list, physics entities are handed to the
+	 * simulation thread
 	 * @param e
 	 */
 	public void addEntity(Entity e) {
-		entities.add(e);
-		
 		if (e instanceof BasicPhysicsEntity) {
-			phyEntities.add((BasicPhysicsEntity)e);
+			BasicPhysicsEntity body = (BasicPhysicsEntity) e;
+			simulation.post(s -> s.addEntity(body));
+		} else {
+			entities.add(e);
 		}
 	}
 
 	/**
-	 * Update loop for updating data of objects
+	 * Update loop for updating data of the entities that aren't physics ones
 	 * 
 	 * @param delta
-	 *            milliseconds between last update
+	 *            seconds between last update
 	 */
 	public void update(float delta) {
-		phyEngine.update(true);
-		
 		for (Entity e : entities) {
 			e.update(delta);
 		}
@@ -347,8 +294,11 @@ public class Main extends Application {
 		// Clear the canvas
 		gc.clearRect(0, 0, START_WIDTH, START_HEIGHT);
 
-		for (Entity e : entities) {
-			e.render(gc, delta);
+		// physics entities are drawn from the newest snapshot, between their last two steps
+		snapshot = simulation.getSnapshot();
+		float alpha = snapshot.getAlpha(System.nanoTime());
+		for (int i = 0; i < snapshot.size(); i++) {
+			ShapeRenderer.render(gc, snapshot, i, alpha);
 		}
 		
 	}
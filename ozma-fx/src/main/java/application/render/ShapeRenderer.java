@@ -0,0 +1,114 @@
+package application.render;
+
+import application.physics.shape.RectShape;
+import application.physics.shape.Shape;
+import application.simulation.Snapshot;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the outline, face normals and corners of the bodies in a snapshot,
+ * coloured by whether the engine found them colliding in the step the
+ * snapshot was taken after.
+ */
+public class ShapeRenderer {
+
+	/**
+	 * Length the face normals are drawn at
+	 */
+	private static final float NORMAL_LENGTH = 5f;
+	private static final float DOT_SIZE = 4f;
+
+	// corners of the rect being drawn, only used on the drawing thread
+	private static final double[] CORNER_X = new double[4];
+	private static final double[] CORNER_Y = new double[4];
+
+	private ShapeRenderer() {
+	}
+
+	/**
+	 * Renders the outline of a body part way through the step after the
+	 * snapshot
+	 * @param gc
+	 * @param snapshot
+	 * @param i the body
+	 * @param alpha see Snapshot.getAlpha
+	 */
+	public static void render(GraphicsContext gc, Snapshot snapshot, int i, float alpha) {
+		float x = snapshot.getX(i, alpha);
+		float y = snapshot.getY(i, alpha);
+		float angle = snapshot.getAngle(i, alpha);
+		float cos = (float) Math.cos(angle);
+		float sin = (float) Math.sin(angle);
+		float hw = snapshot.getWidth(i) / 2f;
+		float hh = snapshot.getHeight(i) / 2f;
+
+		gc.setStroke(colourOf(snapshot.getCollisionState(i)));
+		gc.setFill(colourOf(snapshot.getCollisionState(i)));
+
+		if (snapshot.getShapeType(i) == RectShape.TYPE_ID) {
+			// corners in the same order as RectShape's vertices
+			double[] xs = CORNER_X;
+			double[] ys = CORNER_Y;
+			for (int k = 0; k < 4; k++) {
+				float lx = (k == 0 || k == 3) ? -hw : hw;
+				float ly = k < 2 ? -hh : hh;
+				xs[k] = x + (cos * lx) - (sin * ly);
+				ys[k] = y + (sin * lx) + (cos * ly);
+			}
+
+			gc.strokePolygon(xs, ys, 4);
+			renderCorners(gc, xs, ys);
+			renderNormal(gc, x, y, cos, sin);
+			renderNormal(gc, x, y, -sin, cos);
+			renderNormal(gc, x, y, -cos, -sin);
+			renderNormal(gc, x, y, sin, -cos);
+		} else {
+			gc.strokeOval(x - hw, y - hw, hw * 2f, hw * 2f);
+
+			// a spoke so turning shows
+			gc.strokeLine(x, y, x + (cos * hw), y + (sin * hw));
+		}
+	}
+
+	/**
+	 * Draws a line from the centre along a face normal
+	 * @param gc
+	 * @param x
+	 * @param y
+	 * @param nx
+	 * @param ny
+	 */
+	private static void renderNormal(GraphicsContext gc, float x, float y, float nx, float ny) {
+		gc.strokeLine(x, y, x + (nx * NORMAL_LENGTH), y + (ny * NORMAL_LENGTH));
+	}
+
+	/**
+	 * Draws a dot on each corner
+	 * @param gc
+	 * @param xs
+	 * @param ys
+	 */
+	private static void renderCorners(GraphicsContext gc, double[] xs, double[] ys) {
+		float half = DOT_SIZE / 2f;
+		for (int k = 0; k < xs.length; k++) {
+			gc.fillOval(xs[k] - half, ys[k] - half, DOT_SIZE, DOT_SIZE);
+		}
+	}
+
+	/**
+	 * @param collisionState
+	 * @return red when colliding, blue when checked and not colliding, black
+	 * when not checked
+	 */
+	private static Color colourOf(int collisionState) {
+		switch (collisionState) {
+		case Shape.COLLIDING:
+			return Color.RED;
+		case Shape.NOT_COLLIDING:
+			return Color.BLUE;
+		default:
+			return Color.BLACK;
+		}
+	}
+}